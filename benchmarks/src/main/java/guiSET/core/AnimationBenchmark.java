@@ -0,0 +1,46 @@
+package guiSET.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * One step of a running Animation.animate() (computing the value and calling
+ * the setter through reflection) for a number and a color attribute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AnimationBenchmark {
+
+	@Param({ "x", "backgroundColor" })
+	String attribute;
+
+	private Label target;
+	private Animation animation;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		HeadlessFrame frame = BenchmarkFrame.get();
+		target = new Label("animated");
+		frame.add(target);
+		frame.renderFrame();
+	}
+
+	// long enough to never finish during an iteration
+	@Setup(Level.Iteration)
+	public void startAnimation() {
+		target.setX(0);
+		target.setBackgroundColor(0xFF000000);
+		animation = new Animation(attribute, target, attribute.contains("Color") ? 0xFFFFFFFF : 500, 99999);
+	}
+
+	@Benchmark
+	public boolean animate() {
+		return animation.animate();
+	}
+}
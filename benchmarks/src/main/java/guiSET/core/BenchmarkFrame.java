@@ -0,0 +1,27 @@
+package guiSET.core;
+
+
+/*
+ * The Frame all benchmarks render into. The first Frame that is created becomes
+ * the global one (Frame.getFrame()) which all elements use, so one headless
+ * Frame is shared by all benchmarks of a JVM and cleared for each setup.
+ */
+final class BenchmarkFrame {
+
+	static final int WIDTH = 800;
+	static final int HEIGHT = 600;
+
+	private static HeadlessFrame frame;
+
+	private BenchmarkFrame() {
+	}
+
+	static synchronized HeadlessFrame get() {
+		if (frame == null) {
+			frame = new HeadlessFrame(WIDTH, HEIGHT);
+		}
+		frame.clear();
+		frame.renderFrame();
+		return frame;
+	}
+}
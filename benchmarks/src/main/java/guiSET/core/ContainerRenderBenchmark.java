@@ -0,0 +1,58 @@
+package guiSET.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Container.render() with many children at random positions (all visible).
+ * renderAll repaints the container with all its children, renderOneChanged
+ * repaints after a single child changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ContainerRenderBenchmark {
+
+	@Param({ "10", "100", "10000" })
+	int children;
+
+	private HeadlessFrame frame;
+	private Container container;
+	private Label[] labels;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		frame = BenchmarkFrame.get();
+		container = new Container(BenchmarkFrame.WIDTH, BenchmarkFrame.HEIGHT);
+		Random random = new Random(42);
+		labels = new Label[children];
+		for (int i = 0; i < children; i++) {
+			labels[i] = new Label("label " + i);
+			labels[i].setPosition(random.nextInt(BenchmarkFrame.WIDTH - 60), random.nextInt(BenchmarkFrame.HEIGHT - 20));
+			labels[i].setBackgroundColor(0xFF000000 | random.nextInt());
+		}
+		container.add(labels);
+		frame.add(container);
+		frame.renderFrame();
+	}
+
+	@Benchmark
+	public void renderAll() {
+		container.forceRepaint();
+		frame.renderFrame();
+	}
+
+	@Benchmark
+	public void renderOneChanged() {
+		Label label = labels[next++ % children];
+		label.setTextColor(label.getTextColor() ^ 0x00FFFFFF);
+		frame.renderFrame();
+	}
+}
@@ -0,0 +1,55 @@
+package guiSET.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import processing.event.MouseEvent;
+
+
+/*
+ * Hit testing: dispatching mouse moves at random positions over a container
+ * with many children (Frame.mouseEvent() -> Container.mouseEvent()).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MouseEventBenchmark {
+
+	@Param({ "100", "10000" })
+	int children;
+
+	private HeadlessFrame frame;
+	private MouseEvent[] events;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		frame = BenchmarkFrame.get();
+		Container container = new Container(BenchmarkFrame.WIDTH, BenchmarkFrame.HEIGHT);
+		Random random = new Random(42);
+		Button[] buttons = new Button[children];
+		for (int i = 0; i < children; i++) {
+			buttons[i] = new Button("button");
+			buttons[i].setPosition(random.nextInt(BenchmarkFrame.WIDTH - 60), random.nextInt(BenchmarkFrame.HEIGHT - 20));
+		}
+		container.add(buttons);
+		frame.add(container);
+		frame.renderFrame();
+
+		events = new MouseEvent[256];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = new MouseEvent(null, 0, MouseEvent.MOVE, 0, random.nextInt(BenchmarkFrame.WIDTH), random.nextInt(BenchmarkFrame.HEIGHT), 0, 0);
+		}
+	}
+
+	@Benchmark
+	public Control move() {
+		frame.mouseEvent(events[next++ & 255]);
+		return Control.hoveredElement;
+	}
+}
@@ -0,0 +1,51 @@
+package guiSET.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Line breaking of 1 MB of text in MultilineTextbox.boxedText().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MultilineTextboxBenchmark {
+
+	static final int TEXT_SIZE = 1 << 20;
+
+	private MultilineTextbox textbox;
+	private String text;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		HeadlessFrame frame = BenchmarkFrame.get();
+		textbox = new MultilineTextbox(400, 300);
+		frame.add(textbox);
+		frame.renderFrame();
+
+		// words of random length, a paragraph every few lines
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(TEXT_SIZE);
+		while (sb.length() < TEXT_SIZE) {
+			int length = 1 + random.nextInt(10);
+			for (int i = 0; i < length; i++) {
+				sb.append((char) ('a' + random.nextInt(26)));
+			}
+			sb.append(random.nextInt(60) == 0 ? '\n' : ' ');
+		}
+		sb.setLength(TEXT_SIZE);
+		text = sb.toString();
+	}
+
+	@Benchmark
+	public int boxedText() {
+		textbox.boxedText(text);
+		return textbox.lines.size();
+	}
+}
@@ -0,0 +1,52 @@
+package guiSET.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Looking up registered shortcuts in Frame.checkShortcut() for a key
+ * combination that is registered (hit) and one that is not (miss).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ShortcutBenchmark {
+
+	@Param({ "10", "500" })
+	int shortcuts;
+
+	private HeadlessFrame frame;
+	private Shortcut[] lookups; // equal to the registered ones, but other instances (like those created by KeyListener)
+	private Shortcut missing;
+	private int next = 0;
+	int handled = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		frame = BenchmarkFrame.get();
+		lookups = new Shortcut[shortcuts];
+		int[] modifiers = { 0, java.awt.event.InputEvent.CTRL_DOWN_MASK, java.awt.event.InputEvent.SHIFT_DOWN_MASK,
+				java.awt.event.InputEvent.CTRL_DOWN_MASK | java.awt.event.InputEvent.SHIFT_DOWN_MASK };
+		for (int i = 0; i < shortcuts; i++) {
+			int keyCode = java.awt.event.KeyEvent.VK_A + i / modifiers.length;
+			frame.registerShortcut(Shortcut.shortcutFromKeyCode(keyCode, modifiers[i % modifiers.length]), () -> handled++);
+			lookups[i] = Shortcut.shortcutFromKeyCode(keyCode, modifiers[i % modifiers.length]);
+		}
+		missing = Shortcut.shortcutFromKeyCode(java.awt.event.KeyEvent.VK_F12, java.awt.event.InputEvent.ALT_DOWN_MASK);
+	}
+
+	@Benchmark
+	public boolean hit() {
+		return frame.checkShortcut(lookups[next++ % shortcuts]);
+	}
+
+	@Benchmark
+	public boolean miss() {
+		return frame.checkShortcut(missing);
+	}
+}
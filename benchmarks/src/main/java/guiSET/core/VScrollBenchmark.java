@@ -0,0 +1,48 @@
+package guiSET.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Scrolling a VScrollContainer through a long list of items: each operation
+ * moves the scroll position and renders the visible part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class VScrollBenchmark {
+
+	@Param({ "100", "10000" })
+	int items;
+
+	private HeadlessFrame frame;
+	private VScrollContainer list;
+	private int position = 0;
+	private int maxPosition;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		frame = BenchmarkFrame.get();
+		list = new VScrollContainer(400, BenchmarkFrame.HEIGHT);
+		Label[] labels = new Label[items];
+		for (int i = 0; i < items; i++) {
+			labels[i] = new Label("item " + i);
+		}
+		list.add(labels);
+		frame.add(list);
+		frame.renderFrame();
+		maxPosition = Math.max(1, list.fullScrollHeight - list.getHeight());
+	}
+
+	@Benchmark
+	public void scroll() {
+		position = (position + 37) % maxPosition;
+		list.setScrollPosition(position);
+		frame.renderFrame();
+	}
+}
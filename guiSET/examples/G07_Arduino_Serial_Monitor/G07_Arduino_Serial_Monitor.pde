@@ -7,7 +7,8 @@ import processing.serial.*; // for usb connection
  * a USB port, for example by an arduino. Sending text back is also possible. 
  *
  * The "serialEvent(Serial port)" catches all arriving messages and appends them to
- * a mulitline-textbox - the output. 
+ * a log view - the output. The log view only keeps the last lines and stays fast
+ * no matter how much text arrives. 
  * A single-line "input" textbox allows sending the entered message when pressing return. 
  */
 
@@ -17,12 +18,12 @@ import processing.serial.*; // for usb connection
  */
 Frame f;
 
-VFlowContainer mainWrapper;      // wrapper for input/outputTetxbox and outputControls
+VFlowContainer mainWrapper;      // wrapper for inputTextbox, outputLog and outputControls
 Textbox inputTextbox;            // textbox that allows user to send message to arduino
-MultilineTextbox outputTextbox;  // textbox that displays arriving message from arduino
-HFlowContainer outputControls;   // container for buttons for some outputTextbox options
+LogView outputLog;               // displays arriving messages from arduino
+HFlowContainer outputControls;   // container for buttons for some outputLog options
 
-Checkbox autoscrollCheckbox;     // enable/disable autoscrolling for the outputTextbox when messages arrive
+Checkbox autoscrollCheckbox;     // enable/disable autoscrolling for the outputLog when messages arrive
 ListView portList;               // displays list of all available usb ports
 Label currentPortLabel;          // displays name of currently connected port
 
@@ -34,7 +35,6 @@ Label currentPortLabel;          // displays name of currently connected port
 Serial port;                     // currently active usb port 
 String portName;                 // currently active usb port name
 int baudRate = 9600;             // baud rate (communication rate) for connection
-boolean autoscroll = true;       // if true then the outputTextbox always scrolls to the button when messages arrive 
 
 
 void setup() {
@@ -59,13 +59,12 @@ void setup() {
   inputTextbox.setForegroundColor(color(240));
   inputTextbox.setCursorColor(color(240));
 
-  outputTextbox = new MultilineTextbox();
-  outputTextbox.setSize(wrapperWidth, mainWrapper.getAvailableHeight()-inputTextbox.getHeight() - 30);
-  outputTextbox.setFontSize(12);
-  outputTextbox.disableInput();  // make this textbox "view-only" -> no writing or pasting allowed
-  outputTextbox.setMouseListener("wheel", "scrollOutput"); // notify when user scrolls this textbox (see below why we need this)
-  outputTextbox.setBackgroundColor(color(#434242));
-  outputTextbox.setForegroundColor(color(240));
+  outputLog = new LogView();
+  outputLog.setSize(wrapperWidth, mainWrapper.getAvailableHeight()-inputTextbox.getHeight() - 30);
+  outputLog.setFontSize(12);
+  outputLog.setMaxLines(5000);   // only keep the last 5000 lines, older ones are dropped
+  outputLog.setBackgroundColor(color(#434242));
+  outputLog.setForegroundColor(color(240));
   outputControls = new HFlowContainer(wrapperWidth, 30);
   outputControls.setBackgroundColor(color(80));
 
@@ -81,7 +80,7 @@ void setup() {
   autoscrollCheckbox.setForegroundColor(color(255));
 
   outputControls.add(clearConsoleButton, autoscrollCheckbox);
-  mainWrapper.add(inputTextbox, outputTextbox, outputControls);
+  mainWrapper.add(inputTextbox, outputLog, outputControls);
   f.add(mainWrapper);
 
 
@@ -124,7 +123,7 @@ void setup() {
   // add anchors for resizing (better do this after adding all elements to their containers)
   mainWrapper.addAutoAnchors(TOP, BOTTOM, LEFT, RIGHT);
   inputTextbox.addAutoAnchors(LEFT, RIGHT);
-  outputTextbox.addAutoAnchors(TOP, BOTTOM, LEFT, RIGHT);
+  outputLog.addAutoAnchors(TOP, BOTTOM, LEFT, RIGHT);
   outputControls.addAutoAnchors(LEFT, RIGHT);
   sidearea.addAutoAnchors(RIGHT, TOP, BOTTOM);        // always keep the sidearea at the very right
   currentPortLabel.addAutoAnchors(LEFT); // just prevent label from autosizing when changing text
@@ -221,14 +220,12 @@ void disconnect() {
 
 
 
-// This method is used to add text sent by the arduino to the outputTextbox
+// This method is used to add text sent by the arduino to the outputLog.
+// The log view scrolls along as long as it is scrolled to the bottom.
+// This may be called from any thread (like serialEvent()).
 
 void printToConsole(String text) {
-  int scrollPosition = outputTextbox.getScrollPosition();
-  outputTextbox.setText(outputTextbox.getText() + text);
-  if (autoscroll) {
-    outputTextbox.setScrollPosition(outputTextbox.getFullScrollHeight());
-  }
+  outputLog.append(text);
 }
 
 
@@ -236,7 +233,7 @@ void printToConsole(String text) {
 // Empty the output
 
 void clearConsole() {
-  outputTextbox.setText("");
+  outputLog.clear();
 }
 
 
@@ -244,7 +241,10 @@ void clearConsole() {
 // Set autoscroll according to the state of autoscrollCheckbox
 
 void setAutoScroll() {
-  autoscroll = autoscrollCheckbox.isChecked();
+  outputLog.setAutoScroll(autoscrollCheckbox.isChecked());
+  if (autoscrollCheckbox.isChecked()) {
+    outputLog.scrollToBottom();
+  }
 }
 
 
@@ -266,28 +266,13 @@ void sendMessage() {
 
 
 
-// Called when outputTextbox is scrolled. Turn off autoscroll if scrolled upwards 
-
-void scrollOutput(MouseEvent e) {
-  if (e.getCount() < 0 ) {
-    autoscrollCheckbox.setChecked(false);
-    setAutoScroll();
-  }
-}
-
-
-
-
 /*
  * Read out serial port when received bytes
  */
 
 void serialEvent(Serial port) {
-  String inputString = "";
-  while (port.available() > 0) {
-    char inChar = port.readChar(); 
-    inputString += inChar;
+  String inputString = port.readString(); // all available bytes at once
+  if (inputString != null) {
+    printToConsole(inputString);
   }
-  printToConsole(inputString);
-  inputString = "";
 }
@@ -23,9 +23,10 @@ public class Animation {
 	private static final int NUMBER = 0;
 	private static final int COLOR = 1;
 
-	// number animation steps (frames) the animations needs to complete
-	private int numberOfSteps;
-	private int counter = 0;
+	// the animation is timed by the clock (ns), it starts with its first step
+	private long duration;
+	private long startTime = -1;
+	private boolean finished = false;
 
 
 	private double currentValue;
@@ -44,9 +45,9 @@ public class Animation {
 	private Invoker invoker;
 
 	/**
-	 * Create a new animation. The time in milliseconds will not be ultimately precise though. At the
-	 * moment this is only estimated through the current framerate of the sketch (assuming 60 fps when
-	 * in {@link Frame#NO_LOOP} mode).
+	 * Create a new animation. The animation is timed by the clock and takes the given time independent
+	 * of the framerate of the sketch (also in {@link Frame#NO_LOOP} mode). A new step is done each
+	 * time the sketch is drawn.
 	 * 
 	 * 
 	 * @param attributeName Attribute to animate as String
@@ -112,10 +113,7 @@ public class Animation {
 				currentValue = ((Number) getter.invoke(target)).doubleValue();
 
 
-				// Calculate needed number of frames to complete animation, never less than 1!
-				// If not looping, the papplet.frameRate tells us nothing about time
-				float frameRate = Control.getFrame().getRefreshMode() == Frame.RefreshMode.NO_LOOP ? 60 : Control.getPApplet().frameRate;
-				numberOfSteps = (int) Math.max(1, (frameRate * milliseconds / 1000));
+				duration = (long) (milliseconds * 1_000_000);
 
 
 				// colors need to be animate differently than ordinary numerics
@@ -176,22 +174,28 @@ public class Animation {
 
 
 		// check if there's still work to do
-		if (counter <= numberOfSteps) {
+		if (!finished) {
+			long now = System.nanoTime();
+			if (startTime < 0) {
+				startTime = now;
+			}
+			// progress from 0 to 1, the last step always sets the final value
+			float t = duration <= 0 ? 1 : (float) Math.min(1, (now - startTime) / (double) duration);
 
 			switch (animationType) {
 			case NUMBER:
-				currentValue = valueStart + (valueEnd - valueStart) / (float) numberOfSteps * counter;
+				currentValue = valueStart + (valueEnd - valueStart) * t;
 				break;
 			case COLOR:
-				double ac = (a1 + (a2 - a1) / (float) numberOfSteps * counter);
-				double rc = (r1 + (r2 - r1) / (float) numberOfSteps * counter);
-				double gc = (g1 + (g2 - g1) / (float) numberOfSteps * counter);
-				double bc = (b1 + (b2 - b1) / (float) numberOfSteps * counter);
+				double ac = (a1 + (a2 - a1) * t);
+				double rc = (r1 + (r2 - r1) * t);
+				double gc = (g1 + (g2 - g1) * t);
+				double bc = (b1 + (b2 - b1) * t);
 
 				currentValue = GuisetColor.create((int) rc, (int) gc, (int) bc, (int) ac);
 				break;
 			}
-			counter++;
+			finished = t >= 1;
 		} else {
 			return false;      // end animation with false, which clears it off animation queue (in Frame)
 		}
@@ -283,4 +287,9 @@ public class Animation {
 		else
 			return false;
 	}
+
+	@Override
+	public String toString() {
+		return target.getClass().getSimpleName() + "." + attributeName + " (" + duration / 1000000 + "ms)";
+	}
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package guiSET.core;
+
+import processing.core.*;
+
+import java.util.function.Consumer;
+
+
+/*
+ * Shared cache for the parts of the default background that are expensive to
+ * draw: rounded rectangles (fill and border) and the masks used to cut images
+ * to a border radius.
+ *
+ * Images are cut in a buffer of the exact size of the control, as the buffer a
+ * control renders into might be larger (pooled buffers and atlas pages) or be
+ * the graphics of the parent. The result is kept by the control and only cut
+ * again when the image, its mode, the size, radius or border changed.
+ *
+ * Rounded rectangles are rasterized once per radius, border and color into a
+ * small image that is drawn as 9-slice. Controls that are too small to contain
+ * the corners of such an image are drawn directly instead.
+ */
+class BackgroundCache {
+
+	private static final LruCache<String, PImage> sprites = new LruCache<String, PImage>(64);
+	private static final LruCache<String, PImage> masks = new LruCache<String, PImage>(16);
+
+	private BackgroundCache() {
+	}
+
+	/*
+	 * Size of the corners of a sprite: the radius plus the border and 1px for
+	 * anti-aliasing.
+	 */
+	private static int inset(int radius, int borderWidth) {
+		return radius + borderWidth + 1;
+	}
+
+	/*
+	 * Draw a filled rounded rectangle with the size w x h at (0, 0). Returns false
+	 * if the rectangle is too small to be drawn from a sprite.
+	 */
+	static boolean drawRoundedFill(PGraphics pg, int w, int h, int radius, int color) {
+		int inset = inset(radius, 0);
+		if (w <= 2 * inset || h <= 2 * inset)
+			return false;
+
+		String key = "f:" + radius + ":" + color;
+		PImage sprite = sprites.get(key);
+		if (sprite == null) {
+			int n = 2 * inset + NineSlice.TILE;
+			PGraphics g = Frame.getPApplet().createGraphics(n, n);
+			g.beginDraw();
+			g.noStroke();
+			g.fill(color);
+			g.rect(0, 0, n, n, radius);
+			g.endDraw();
+			sprite = g.get();
+			sprites.put(key, sprite);
+		}
+		NineSlice.draw(pg, sprite, inset, 0, 0, w, h);
+		return true;
+	}
+
+	/*
+	 * Draw the border of a rounded rectangle with the size w x h at (0, 0) like
+	 * Control.Renderer.drawBorder(). Returns false if the rectangle is too small
+	 * to be drawn from a sprite.
+	 */
+	static boolean drawRoundedBorder(PGraphics pg, int w, int h, int radius, int borderWidth, int color) {
+		int inset = inset(radius, borderWidth);
+		if (w <= 2 * inset || h <= 2 * inset)
+			return false;
+
+		String key = "b:" + radius + ":" + borderWidth + ":" + color;
+		PImage sprite = sprites.get(key);
+		if (sprite == null) {
+			int n = 2 * inset + NineSlice.TILE;
+			float a = (borderWidth - 1) / 2f;
+			PGraphics g = Frame.getPApplet().createGraphics(n, n);
+			g.beginDraw();
+			g.noFill();
+			g.strokeWeight(borderWidth);
+			g.stroke(color);
+			g.rect(a, a, n - borderWidth, n - borderWidth, radius);
+			g.endDraw();
+			sprite = g.get();
+			sprites.put(key, sprite);
+		}
+		NineSlice.draw(pg, sprite, inset, 0, 0, w, h);
+		return true;
+	}
+
+	/*
+	 * Mask that cuts an image of exactly the size w x h to the given border
+	 * radius. Only used by drawRoundedImage(), never with the buffer of a
+	 * control which might be larger.
+	 */
+	private static PImage getMask(int w, int h, int radius, int borderWidth) {
+		String key = w + ":" + h + ":" + radius + ":" + borderWidth;
+		PImage mask = masks.get(key);
+		if (mask == null) {
+			PGraphics g = Frame.getPApplet().createGraphics(w, h);
+			g.beginDraw();
+			g.noStroke();
+			g.rect(borderWidth / 2, borderWidth / 2, w - borderWidth, h - borderWidth, radius);
+			g.endDraw();
+			mask = g.get();
+			masks.put(key, mask);
+		}
+		return mask;
+	}
+
+	/*
+	 * An image cut to a border radius together with what it was made from.
+	 */
+	static final class RoundedImage {
+		private final PImage source;
+		private final Control.ImageMode mode;
+		private final int w, h, radius, borderWidth;
+		private final PImage image;
+
+		private RoundedImage(PImage source, Control.ImageMode mode, int w, int h, int radius, int borderWidth, PImage image) {
+			this.source = source;
+			this.mode = mode;
+			this.w = w;
+			this.h = h;
+			this.radius = radius;
+			this.borderWidth = borderWidth;
+			this.image = image;
+		}
+
+		private boolean matches(PImage source, Control.ImageMode mode, int w, int h, int radius, int borderWidth) {
+			return this.source == source && this.mode == mode && this.w == w && this.h == h && this.radius == radius
+					&& this.borderWidth == borderWidth;
+		}
+	}
+
+	/*
+	 * Draw an image (drawn by drawImage at (0, 0) with the size w x h) cut to the
+	 * given border radius onto pg. The cut image from the last call is reused if
+	 * nothing changed, else it is cut again. Returns the image to pass next time.
+	 */
+	static RoundedImage drawRoundedImage(PGraphics pg, RoundedImage cached, PImage source, Control.ImageMode mode, int w, int h,
+			int radius, int borderWidth, Consumer<PGraphics> drawImage) {
+		if (cached == null || !cached.matches(source, mode, w, h, radius, borderWidth)) {
+			PGraphics g = Frame.getPApplet().createGraphics(w, h);
+			g.beginDraw();
+			g.clear();
+			drawImage.accept(g);
+			g.endDraw();
+
+			PImage image = g.get();
+			image.mask(getMask(w, h, radius, borderWidth));
+			cached = new RoundedImage(source, mode, w, h, radius, borderWidth, image);
+		}
+		pg.image(cached.image, 0, 0, w, h);
+		return cached;
+	}
+
+	static void clear() {
+		sprites.clear();
+		masks.clear();
+	}
+}
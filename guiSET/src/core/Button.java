@@ -176,6 +176,11 @@ public class Button extends TextBased {
 		drawDefaultDisabled();
 	}
 
+	@Override
+	protected boolean allowsBackgroundPatching() {
+		return getImage() == null;
+	}
+
 
 	@Override
 	protected int autoHeight() {
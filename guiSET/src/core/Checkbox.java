@@ -123,6 +123,11 @@ public class Checkbox extends TextBased {
 		}
 	}
 
+	@Override
+	protected boolean allowsBackgroundPatching() {
+		return getImage() == null;
+	}
+
 
 //	@Override
 //	protected void autosizeRule() {
@@ -153,7 +158,7 @@ public class Checkbox extends TextBased {
 	 */
 	public void setUncheckedBackgroundColor(int clr) {
 		uncheckedBackgroundColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -163,7 +168,7 @@ public class Checkbox extends TextBased {
 	 */
 	public void setCheckedBackgroundColor(int clr) {
 		checkedBackgroundColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -173,7 +178,7 @@ public class Checkbox extends TextBased {
 	 */
 	public void setCheckmarkColor(int clr) {
 		checkmarkColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -199,7 +204,7 @@ public class Checkbox extends TextBased {
 			return;
 		this.checked = checked;
 		handleEvent(toggleListener, this);
-		update();
+		invalidatePaint();
 	}
 
 
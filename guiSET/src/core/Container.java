@@ -1,10 +1,13 @@
 package guiSET.core; //<>// //<>// //<>// //<>// //<>//
 
+import processing.awt.PGraphicsJava2D;
 import processing.event.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinTask;
 
 
 
@@ -137,14 +140,65 @@ public class Container extends TextBased {
 	protected void render() {
 		drawDefaultBackground();
 
-		for (Control item : items) {
+		int[] opaque = getOpaqueItems();
+		for (int i = 0; i < items.size(); i++) {
+			Control item = items.get(i);
 			if (item.isVisible()) {
-				renderItem(item, item.getX(), item.getY());
+				if (opaque == null || !isOccluded(i, opaque, false)) {
+					renderItem(item, item.getX(), item.getY());
+				} else {
+					item.offsetX = item.getX(); // keep position up to date for mouse events
+					item.offsetY = item.getY();
+				}
 			}
 		}
 		drawDefaultDisabled();
 	}
 
+	/*
+	 * Indices of visible opaque items or null if there are none.
+	 */
+	protected int[] getOpaqueItems() {
+		int[] indices = null;
+		int count = 0;
+		for (int i = 0; i < items.size(); i++) {
+			Control item = items.get(i);
+			if (item.isVisible() && item.isOpaque()) {
+				if (indices == null) {
+					indices = new int[items.size() - i];
+				}
+				indices[count++] = i;
+			}
+		}
+		return indices == null ? null : Arrays.copyOf(indices, count);
+	}
+
+	/*
+	 * Check if the item at given index is completely covered by an opaque item 
+	 * that is drawn later (higher z-index). Either the positions the items are
+	 * rendered at (offsets) or their x and y coordinates are compared.
+	 */
+	protected boolean isOccluded(int index, int[] opaque, boolean useOffsets) {
+		Control item = items.get(index);
+		int overflow = item.getRenderOverflow();
+		int x0 = (useOffsets ? item.offsetX : item.getX()) - overflow;
+		int y0 = (useOffsets ? item.offsetY : item.getY()) - overflow;
+		int x1 = x0 + item.getWidth() + 2 * overflow;
+		int y1 = y0 + item.getHeight() + 2 * overflow;
+
+		for (int j = opaque.length - 1; j >= 0 && opaque[j] > index; j--) {
+			if (opaque[j] >= items.size())
+				continue; // list changed while dispatching events
+			Control above = items.get(opaque[j]);
+			int ax = useOffsets ? above.offsetX : above.getX();
+			int ay = useOffsets ? above.offsetY : above.getY();
+			if (ax <= x0 && ay <= y0 && ax + above.getWidth() >= x1 && ay + above.getHeight() >= y1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 
 
 
@@ -158,6 +212,7 @@ public class Container extends TextBased {
 		items.add(position, item);
 		item.parent = this;
 		item.addedToParent(); // notify control that it has been added to this parent
+		itemsChanged();
 		// update(); // called once by public add/insert
 	}
 
@@ -198,7 +253,11 @@ public class Container extends TextBased {
 	 * Remove all items.
 	 */
 	public void clear() {
+		for (Control item : items) {
+			item.releaseBuffers();
+		}
 		items.clear();
+		itemsChanged();
 
 		// not really necessary. But imagine clearing a huge list and now we have just a
 		// lot of null pointers
@@ -214,6 +273,8 @@ public class Container extends TextBased {
 	 */
 	public Control remove(int index) {
 		Control removedItem = items.remove(index);
+		removedItem.releaseBuffers();
+		itemsChanged();
 		update();
 		return removedItem;
 	}
@@ -226,8 +287,11 @@ public class Container extends TextBased {
 	 */
 	public boolean remove(Control item) {
 		boolean result = items.remove(item);
-		if (result)
+		if (result) {
+			item.releaseBuffers();
+			itemsChanged();
 			update();
+		}
 		return result;
 	}
 
@@ -281,6 +345,14 @@ public class Container extends TextBased {
 	 */
 	public void sortItems(Comparator<Control> comp) {
 		Collections.sort(items, comp);
+		itemsChanged();
+		invalidateLayout();
+	}
+
+	/*
+	 * Called when items have been added, removed or reordered.
+	 */
+	void itemsChanged() {
 	}
 
 
@@ -321,6 +393,68 @@ public class Container extends TextBased {
 	}
 
 
+	@Override
+	protected boolean canUseAtlas() {
+		return false;
+	}
+
+	@Override
+	protected boolean canUseRecording() {
+		return false;
+	}
+
+	/*
+	 * Buffered items render onto their own graphics and don't depend on each other.
+	 * If several of them changed, render them on the ForkJoin pool and only project
+	 * them (in z-order) in render() afterwards. Only Java2D graphics can be used
+	 * from other threads.
+	 */
+	@Override
+	void prerenderItems() {
+		if (!getFrame().isParallelRendering() || !(pg instanceof PGraphicsJava2D))
+			return;
+
+		ArrayList<ForkJoinTask<?>> tasks = null;
+		for (Control item : items) {
+			if (item.isVisible() && item.dirty && item.isBuffered() && item.getOpacity() > 0 && item.canRenderConcurrently()) {
+				if (tasks == null) {
+					tasks = new ArrayList<ForkJoinTask<?>>();
+				}
+				tasks.add(ForkJoinTask.adapt(() -> item.renderBuffer(RenderContext.forCurrentThread())));
+			}
+		}
+		if (tasks != null && tasks.size() > 1) {
+			Frame frame = getFrame();
+			frame.beginConcurrentRendering();
+			try {
+				ForkJoinTask.invokeAll(tasks);
+			} finally {
+				frame.endConcurrentRendering();
+			}
+		}
+	}
+
+	// all items are rendered on the same thread as their container
+	@Override
+	protected boolean canRenderConcurrently() {
+		if (!super.canRenderConcurrently())
+			return false;
+		for (Control item : items) {
+			if (!item.canRenderConcurrently())
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	void releaseBuffers() {
+		super.releaseBuffers();
+		for (Control item : items) {
+			item.releaseBuffers();
+		}
+	}
+
+
 
 
 
@@ -340,20 +474,30 @@ public class Container extends TextBased {
 		if (relativeCoordsAreWithin(x, y)) {
 			int x_ = x - getOffsetX();
 			int y_ = y - getOffsetY();
+			Profiler profiler = Profiler.active;
 
 
 			if (containerPreItemsMouseEvent(x_, y_)) { // allows container to peek into the event
 
 				// reverse iteration direction (as to drawing) so topmost elements will
-				// get the chance to stop the event propagation for objects below
-				for (int i = items.size() - 1; i >= 0; i--) {
+				// get the chance to stop the event propagation for objects below.
+				// Items of layouting containers don't overlap.
+				int[] opaque = needsSortingByZ() ? getOpaqueItems() : null;
+				int first = Math.max(0, getFirstEventItem());
+				for (int i = Math.min(items.size() - 1, getLastEventItem()); i >= first; i--) {
 
 					// don't allow further listening when event propagation has been stopped
 					if (isPropagationStopped()) {
 						return;
 					}
 
-					items.get(i).mouseEvent(x_, y_);
+					// items hidden by opaque items above can't be hit
+					if (opaque == null || !isOccluded(i, opaque, true)) {
+						items.get(i).mouseEvent(x_, y_);
+						if (profiler != null) {
+							profiler.hitTested();
+						}
+					}
 
 
 					// it's possible that item list has changed meanwhile, but iterator not nice
@@ -370,6 +514,20 @@ public class Container extends TextBased {
 	}
 
 
+	/*
+	 * Range of items that can receive mouse events. Containers that know that
+	 * only some of their items are displayed (i.e. scroll containers) can limit 
+	 * it, so that not every item has to be tested. 
+	 */
+	protected int getFirstEventItem() {
+		return 0;
+	}
+
+	protected int getLastEventItem() {
+		return items.size() - 1;
+	}
+
+
 	/**
 	 * Called by {@link #mouseEvent(int, int)} before dealing with the items. It enables the container
 	 * to process the mouse event before the items do and if this returns false the items will not
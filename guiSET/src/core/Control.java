@@ -89,6 +89,19 @@ public abstract class Control {
 	 */
 	protected boolean dirty = true;
 
+	/*
+	 * layoutDirty is set when size, margins, padding, visibility or the items of
+	 * this control changed, so that containers that arrange their items (i.e.
+	 * VScrollContainer) know they need to measure them again. A change of a
+	 * child sets the flag of its parent too.
+	 * 
+	 * Set by invalidateLayout() and cleared by the container after arranging.
+	 */
+	boolean layoutDirty = true;
+
+	// set while this control is collected by a batch of the Frame (see Frame.beginUpdate())
+	boolean batched = false;
+
 
 
 	/*
@@ -160,6 +173,7 @@ public abstract class Control {
 
 	private PImage image;
 	private ImageMode imageMode = ImageMode.FILL_DISTORT;
+	private BackgroundCache.RoundedImage roundedImage; // image cut to the border radius
 
 
 	/*
@@ -210,7 +224,7 @@ public abstract class Control {
 	 *
 	 */
 	public enum RenderingMethod {
-		BUFFERED_RENDERING, UNBUFFERED_RENDERING
+		BUFFERED_RENDERING, UNBUFFERED_RENDERING, AUTOMATIC_RENDERING, RECORDED_RENDERING
 	}
 
 	/**
@@ -225,6 +239,21 @@ public abstract class Control {
 	 * buffered by the parent needs no redrawing.
 	 */
 	public static final RenderingMethod UNBUFFERED_RENDERING = RenderingMethod.UNBUFFERED_RENDERING;
+	/**
+	 * The Frame measures how expensive rendering the element is and how often it changes and chooses
+	 * between {@link #BUFFERED_RENDERING} and {@link #UNBUFFERED_RENDERING} automatically.
+	 * 
+	 * @see RenderingPolicy
+	 */
+	public static final RenderingMethod AUTOMATIC_RENDERING = RenderingMethod.AUTOMATIC_RENDERING;
+	/**
+	 * Rendering Mode: The drawing calls of the element are recorded once and replayed onto the parents
+	 * graphics until the element changes. Needs about as little memory as
+	 * {@link #UNBUFFERED_RENDERING} while saving most of the rendering time. Hover and press color
+	 * changes of simple elements are applied to the recording without rendering again. Containers and
+	 * elements that work on pixels are rendered unbuffered.
+	 */
+	public static final RenderingMethod RECORDED_RENDERING = RenderingMethod.RECORDED_RENDERING;
 
 	/**
 	 * Specify rendering type for any new element instances.
@@ -292,10 +321,15 @@ public abstract class Control {
 
 		if (defaultRenderingMethod == RenderingMethod.BUFFERED_RENDERING) {
 			renderer = new BasicBufferedRenderer();
+		} else if (defaultRenderingMethod == RenderingMethod.RECORDED_RENDERING && canUseRecording()) {
+			renderer = new RecordedRenderer();
 		} else {
 			renderer = new BasicUnbufferedRenderer();
 		}
-
+		if (defaultRenderingMethod == RenderingMethod.AUTOMATIC_RENDERING && !(this instanceof Frame)) {
+			automaticRendering = true;
+			getFrame().getRenderingPolicy().register(this);
+		}
 	}
 
 
@@ -380,19 +414,196 @@ public abstract class Control {
 	 */
 	protected int pWidth, pHeight = -1;
 
+	/*
+	 * Own buffer used by buffered renderers. It is taken from the Frames GraphicsPool
+	 * and may be larger than this control. In contrast to pg, it never points to the 
+	 * parents graphics. 
+	 */
+	private PGraphics buffer;
+
+	/*
+	 * Elements that are drawn as a whole every frame (the Frame) get a buffer of
+	 * the exact size instead, a larger pooled buffer would be copied on every
+	 * endDraw().
+	 */
+	boolean usesPooledBuffer() {
+		return true;
+	}
+
+	private void releaseBuffer() {
+		if (usesPooledBuffer()) {
+			getFrame().getGraphicsPool().release(buffer);
+		}
+		buffer = null;
+	}
+
 	/*
 	 * Method to be executed before calling render(). It prepares the PGraphics for rendering. 
 	 */
 	protected final void preRender() {
-		// only create graphics when size changed
-		if (getWidth() != pWidth || getHeight() != pHeight) {
-			pg = getPApplet().createGraphics(getWidth(), getHeight());
+		boolean acquired = false;
+
+		// only get new graphics when size changed and the buffer does not fit anymore
+		if (buffer == null || getWidth() != pWidth || getHeight() != pHeight) {
+			GraphicsPool pool = getFrame().getGraphicsPool();
+			if (!usesPooledBuffer()) {
+				if (buffer == null || buffer.width != getWidth() || buffer.height != getHeight()) {
+					buffer = Frame.getPApplet().createGraphics(getWidth(), getHeight());
+					acquired = true;
+				}
+			} else if (buffer == null || !pool.fits(buffer, getWidth(), getHeight())) {
+				pool.release(buffer);
+				buffer = pool.acquire(getWidth(), getHeight());
+				acquired = true;
+			}
+			if (acquired) {
+				Profiler profiler = Profiler.active;
+				if (profiler != null) {
+					profiler.bufferAllocated();
+				}
+			}
 			pWidth = getWidth();
 			pHeight = getHeight();
-			pg.beginDraw();
+		}
+		pg = buffer;
+		pg.beginDraw();
+		if (acquired) {
+			getFrame().getGraphicsPool().resetStyle(pg);
+		}
+		pg.clear();
+	}
+
+	/*
+	 * Project own buffer onto given graphics. The buffer might be larger than 
+	 * the rendered area.
+	 */
+	protected void drawBuffer(PGraphics parentGraphics, int x, int y) {
+		if (atlasSlot != null) {
+			drawAtlasSlot(parentGraphics, x, y);
 		} else {
+			parentGraphics.image(pg, x, y, pWidth, pHeight, 0, 0, pWidth, pHeight);
+		}
+	}
+
+
+
+	/*
+	 * Slot on one of the pages of the Frames atlas. Used instead of an own buffer
+	 * if the atlas mode is enabled and this element is small enough. 
+	 */
+	private GraphicsAtlas.Slot atlasSlot;
+
+	/*
+	 * Elements that render other elements (containers) can't share a page 
+	 * with them. 
+	 */
+	protected boolean canUseAtlas() {
+		return true;
+	}
+
+	private boolean usesAtlas() {
+		return getFrame().getAtlas() != null && canUseAtlas() && GraphicsAtlas.accepts(getWidth(), getHeight());
+	}
+
+	/*
+	 * Replacement for preRender(), render(), drawBorder() and pg.endDraw() in atlas mode. 
+	 * The clip has to be set to the bounds of this element already.
+	 */
+	private void renderIntoAtlas() {
+		if (atlasSlot == null || !atlasSlot.fits(getWidth(), getHeight())) {
+			if (atlasSlot != null) {
+				atlasSlot.free();
+			}
+			atlasSlot = getFrame().getAtlas().allocate(getWidth(), getHeight());
+		}
+		if (buffer != null) {
+			releaseBuffer();
+		}
+		pWidth = getWidth();
+		pHeight = getHeight();
+
+		PGraphics page = atlasSlot.getGraphics();
+		synchronized (page) {
+			pg = page;
 			pg.beginDraw();
-			pg.clear();
+			getFrame().getGraphicsPool().resetStyle(pg);
+
+			// clear() would clear the entire page
+			if (pg instanceof processing.awt.PGraphicsJava2D) {
+				java.awt.Graphics2D g2 = ((processing.awt.PGraphicsJava2D) pg).g2;
+				java.awt.Composite composite = g2.getComposite();
+				g2.setComposite(java.awt.AlphaComposite.Clear);
+				g2.fillRect(atlasSlot.x, atlasSlot.y, atlasSlot.width, atlasSlot.height);
+				g2.setComposite(composite);
+			} else {
+				pg.blendMode(PConstants.REPLACE);
+				pg.noStroke();
+				pg.fill(0, 0);
+				pg.rect(atlasSlot.x, atlasSlot.y, atlasSlot.width, atlasSlot.height);
+				pg.blendMode(PConstants.BLEND);
+			}
+
+			pg.translate(atlasSlot.x, atlasSlot.y);
+			renderContext.applyClip(pg);
+			renderer.renderContent();
+			pg.noClip();
+			pg.resetMatrix();
+
+			// In Java2D the page is drawn directly (see drawAtlasSlot()), endDraw() would copy the entire page into pixels[]
+			if (!(pg instanceof processing.awt.PGraphicsJava2D)) {
+				pg.endDraw();
+			}
+		}
+	}
+
+	private void drawAtlasSlot(PGraphics parentGraphics, int x, int y) {
+		PGraphics page = atlasSlot.getGraphics();
+		if (page instanceof processing.awt.PGraphicsJava2D && parentGraphics instanceof processing.awt.PGraphicsJava2D) {
+			// image() would first copy the entire page into an image cache, draw the native image instead
+			java.awt.Graphics2D g2 = ((processing.awt.PGraphicsJava2D) parentGraphics).g2;
+			java.awt.Composite composite = null;
+			if (parentGraphics.tint) {
+				composite = g2.getComposite();
+				g2.setComposite(java.awt.AlphaComposite.getInstance(java.awt.AlphaComposite.SRC_OVER, (parentGraphics.tintColor >>> 24) / 255f));
+			}
+			int d = page.pixelDensity;
+			int sx = atlasSlot.x * d;
+			int sy = atlasSlot.y * d;
+			g2.drawImage(page.image, x, y, x + pWidth, y + pHeight, sx, sy, sx + pWidth * d, sy + pHeight * d, null);
+			if (composite != null) {
+				g2.setComposite(composite);
+			}
+		} else {
+			parentGraphics.image(page, x, y, pWidth, pHeight, atlasSlot.x, atlasSlot.y, atlasSlot.x + pWidth, atlasSlot.y + pHeight);
+		}
+	}
+
+	/*
+	 * Give own buffer back to the pool, i.e. when removed from the parent or switched
+	 * to unbuffered rendering. It will be re-acquired on next rendering.
+	 */
+	void releaseBuffers() {
+		if (atlasSlot != null) {
+			if (pg == atlasSlot.getGraphics()) {
+				pg = null;
+			}
+			atlasSlot.free();
+			atlasSlot = null;
+			pWidth = -1;
+			pHeight = -1;
+			dirty = true;
+		}
+		if (buffer != null) {
+			if (pg == buffer) {
+				pg = null;
+			}
+			releaseBuffer();
+			pWidth = -1;
+			pHeight = -1;
+			dirty = true;
+		}
+		if (renderer instanceof RecordedRenderer) {
+			((RecordedRenderer) renderer).displayList = null;
 		}
 	}
 
@@ -423,12 +634,35 @@ public abstract class Control {
 	protected abstract void render();
 
 	/*
-	 * Method used by containers to draw an item at specfied position. 
+	 * Method used by containers to draw an item at specfied position. Items that 
+	 * lie completely outside of the current clip (i.e. scrolled out of view or 
+	 * not within the damaged area of the Frame) are skipped. They stay dirty 
+	 * if they are, so they are rendered as soon as they can be seen.
 	 */
 	protected final void renderItem(Control item, int x, int y) {
 		// check visiblity in render(), some containers need to check it there anyway
 
-		item.renderer.renderAll(x, y, pg);
+		int overflow = item.getRenderOverflow();
+		if (x - overflow >= renderContext.clipX1 || y - overflow >= renderContext.clipY1 || x + item.getWidth() + overflow <= renderContext.clipX0
+				|| y + item.getHeight() + overflow <= renderContext.clipY0) {
+			item.offsetX = x; // needed for mouse events
+			item.offsetY = y;
+			item.storeRenderedLayout();
+			return;
+		}
+
+		if (item.automaticRendering) {
+			item.compositeCalls++;
+		}
+		item.renderContext = renderContext;
+		Profiler profiler = Profiler.active;
+		if (profiler != null && profiler.beginSample(item, x, y)) {
+			item.renderer.renderAll(x, y, pg);
+			profiler.endSample();
+		} else {
+			item.renderer.renderAll(x, y, pg);
+		}
+		item.storeRenderedLayout();
 	}
 
 
@@ -446,6 +680,48 @@ public abstract class Control {
 	abstract class Renderer {
 		abstract void renderAll(int x, int y, PGraphics parentGraphics);
 
+		/*
+		 * Render looks onto own buffer. The clip is reset to the bounds of the buffer
+		 * during this because the current clip refers to the parents graphics. 
+		 */
+		protected void renderBuffer() {
+			int dx0 = renderContext.clipX0, dy0 = renderContext.clipY0, dx1 = renderContext.clipX1, dy1 = renderContext.clipY1;
+			renderContext.setClip(0, 0, getWidth(), getHeight());
+
+			if (usesAtlas()) {
+				renderIntoAtlas();
+			} else {
+				if (atlasSlot != null) { // grew too large for the atlas
+					atlasSlot.free();
+					atlasSlot = null;
+				}
+				preRender();
+				renderContent();
+				pg.endDraw();
+			}
+
+			renderContext.setClip(dx0, dy0, dx1, dy1);
+		}
+
+		/*
+		 * Draw looks and border. If the rendering method is chosen automatically, the
+		 * time needed is measured.
+		 */
+		protected void renderContent() {
+			prerenderItems();
+			if (automaticRendering) {
+				long t0 = System.nanoTime();
+				render();
+				drawBorder();
+				long t = System.nanoTime() - t0;
+				averageRenderTime = renderCalls == 0 ? t : (averageRenderTime * 7 + t) / 8;
+				renderCalls++;
+			} else {
+				render();
+				drawBorder();
+			}
+		}
+
 		// only to be called by renderer
 		protected void drawBorder() {
 			if (borderWidth > 0) {
@@ -466,9 +742,10 @@ public abstract class Control {
 				// Therefore, 1 px needs to be subtracted from border width/height when borderWidth==1
 				float a = (borderWidth - 1) / 2f;
 
-				if (borderRadius > 0)
-					pg.rect(a, a, width - borderWidth, height - borderWidth, borderRadius); // this is slower
-				else
+				if (borderRadius > 0) {
+					if (pg instanceof RecordingGraphics || !BackgroundCache.drawRoundedBorder(pg, width, height, borderRadius, borderWidth, borderColor))
+						pg.rect(a, a, width - borderWidth, height - borderWidth, borderRadius);
+				} else
 					pg.rect(a, a, width - borderWidth, height - borderWidth);
 
 
@@ -479,9 +756,9 @@ public abstract class Control {
 	abstract class UnbufferedRenderer extends Renderer {
 
 		protected void prepareGraphics(PGraphics parentGraphics) {
-			intersectClip(offsetX, offsetY, offsetX + getWidth(), offsetY + getHeight());
-			applyClip(parentGraphics);
-			subtractFromClip(offsetX, offsetY);
+			renderContext.intersectClip(offsetX, offsetY, offsetX + getWidth(), offsetY + getHeight());
+			renderContext.applyClip(parentGraphics);
+			renderContext.subtractFromClip(offsetX, offsetY);
 			parentGraphics.pushMatrix();
 			parentGraphics.translate(offsetX, offsetY);
 			pg = parentGraphics;
@@ -491,25 +768,11 @@ public abstract class Control {
 
 
 
-	static int clipX0, clipY0, clipX1, clipY1; // Takes about half the time to use primitives instead of a rect class (measured on windows)
-
-	static void intersectClip(int x0, int y0, int x1, int y1) {
-		clipX0 = Math.max(clipX0, x0);
-		clipY0 = Math.max(clipY0, y0);
-		clipX1 = Math.min(clipX1, x1);
-		clipY1 = Math.min(clipY1, y1);
-	}
-
-	static void subtractFromClip(int x, int y) {
-		clipX0 -= x;
-		clipX1 -= x;
-		clipY0 -= y;
-		clipY1 -= y;
-	}
-
-	static void applyClip(PGraphics pg) {
-		pg.clip(clipX0, clipY0, clipX1 - clipX0, clipY1 - clipY0);
-	}
+	/*
+	 * Clip and helper graphics of the thread that renders this control. Handed on 
+	 * from the parent in renderItem().
+	 */
+	RenderContext renderContext = RenderContext.forCurrentThread();
 
 
 	/*
@@ -537,6 +800,9 @@ public abstract class Control {
 		int color;
 		float opacity;
 
+		// pre-rendered shadow, see getShadowSprite()
+		PImage sprite;
+
 		ShadowInformation(int size, int offsetX, int offsetY, int color, float opacity) {
 			this.size = size;
 			this.offsetX = offsetX;
@@ -546,34 +812,89 @@ public abstract class Control {
 		}
 	}
 
+	/*
+	 * Shadows are rendered only once per profile (size, color and opacity) into a
+	 * small image that is drawn as 9-slice. The images are shared by all controls.
+	 */
+	private static final LruCache<String, PImage> shadowSprites = new LruCache<String, PImage>(32);
+
+	static PImage getShadowSprite(int size, int color, float opacity) {
+		String key = size + ":" + color + ":" + Float.floatToIntBits(opacity);
+		PImage sprite = shadowSprites.get(key);
+		if (sprite == null) {
+			sprite = createShadowSprite(size, color, opacity);
+			shadowSprites.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	/*
+	 * Gaussian blurred rectangle. The image has a size of 4*size+TILE, the
+	 * rectangle lies in the middle with a margin of size. So each corner of 2*size
+	 * pixels contains the whole falloff and the middle part the plain edges.
+	 * The blur of a rectangle is separable, so the alpha is the product of the
+	 * blurred 1d-profiles in x and y.
+	 */
+	private static PImage createShadowSprite(int size, int color, float opacity) {
+		int n = 4 * size + NineSlice.TILE;
+		float sigma = Math.max(.5f, size / 3f);
+
+		float[] kernel = new float[2 * size + 1];
+		float sum = 0;
+		for (int i = -size; i <= size; i++) {
+			kernel[i + size] = (float) Math.exp(-i * i / (2 * sigma * sigma));
+			sum += kernel[i + size];
+		}
+
+		float[] profile = new float[n];
+		for (int i = 0; i < n; i++) {
+			for (int k = -size; k <= size; k++) {
+				int j = i + k;
+				if (j >= size && j < n - size) {
+					profile[i] += kernel[k + size] / sum;
+				}
+			}
+		}
+
+		PImage sprite = new PImage(n, n, PConstants.ARGB);
+		int rgb = color & 0xFFFFFF;
+		for (int y = 0; y < n; y++) {
+			for (int x = 0; x < n; x++) {
+				int alpha = Math.round(opacity * 255 * profile[x] * profile[y]);
+				sprite.pixels[y * n + x] = (Math.min(255, alpha) << 24) | rgb;
+			}
+		}
+		sprite.updatePixels();
+		return sprite;
+	}
+
 	protected void drawBoxShadow(PGraphics pg, ShadowInformation shadowInformation) {
-		int r = (shadowInformation.color >> 16) & 0xFF;
-		int g = (shadowInformation.color >> 8) & 0xFF;
-		int b = shadowInformation.color & 0xFF;
 		int size = shadowInformation.size;
 		int halfsize = size / 2;
 		int x = Control.this.offsetX + shadowInformation.offsetX - halfsize;
 		int y = Control.this.offsetY + shadowInformation.offsetY - halfsize;
 
-		pg.translate(x, y);
-		pg.fill(GuisetColor.create(r, g, b, shadowInformation.opacity * 255));
-		pg.noStroke();
-		pg.rect(0, 0, width - size, height - size);
-
-		pg.noFill();
-		pg.strokeWeight(1);
-		for (int i = 1; i < size; i++) {
-			int alpha = Math.max(0, (int) (shadowInformation.opacity * (255 - i * (255 / size))));
-			pg.stroke(GuisetColor.create(r, g, b, alpha));
-			pg.rect(-i, -i, width + 2 * i - 1 - size, height + 2 * i - 1 - size);
+		if (size < 1) {
+			pg.noStroke();
+			pg.fill(GuisetColor.create((shadowInformation.color >> 16) & 0xFF, (shadowInformation.color >> 8) & 0xFF, shadowInformation.color & 0xFF,
+					shadowInformation.opacity * 255));
+			pg.rect(x, y, width, height);
+			return;
+		}
+		if (shadowInformation.sprite == null) {
+			shadowInformation.sprite = getShadowSprite(size, shadowInformation.color, shadowInformation.opacity);
 		}
-		pg.translate(-x, -y);
+		// the blurred rectangle lies size pixels inside the sprite, so it ends up
+		// size - halfsize pixels inside the control
+		NineSlice.draw(pg, shadowInformation.sprite, 2 * size, x, y, width + 2 * halfsize, height + 2 * halfsize);
 	}
 
 	interface ExtendedRenderer {
 		void setShadow(int size, int offsetX, int offsetY, int color, float opacity);
 
 		void removeShadow();
+
+		ShadowInformation getShadow();
 	}
 
 	// The standard renderer. Draw looks on own buffer graphics. Can get expensive
@@ -587,12 +908,9 @@ public abstract class Control {
 
 			if (dirty) {
 				dirty = false; // before render(), maybe render() wants to call update for some reason
-				preRender();
-				render();
-				drawBorder();
-				pg.endDraw();
+				renderBuffer();
 			}
-			parentGraphics.image(pg, x, y);
+			drawBuffer(parentGraphics, x, y);
 		}
 	}
 
@@ -612,10 +930,7 @@ public abstract class Control {
 
 			if (dirty) {
 				dirty = false;
-				preRender();
-				render();
-				drawBorder();
-				pg.endDraw();
+				renderBuffer();
 			}
 
 			if (shadowInformation != null) {
@@ -623,10 +938,10 @@ public abstract class Control {
 			}
 			if (opacity < 1.0f) {
 				parentGraphics.tint(255, (int) (opacity * 256));
-				parentGraphics.image(pg, x, y);
+				drawBuffer(parentGraphics, x, y);
 				parentGraphics.tint = false;
 			} else {
-				parentGraphics.image(pg, x, y);
+				drawBuffer(parentGraphics, x, y);
 			}
 		}
 
@@ -637,6 +952,10 @@ public abstract class Control {
 		public void removeShadow() {
 			shadowInformation = null;
 		}
+
+		public ShadowInformation getShadow() {
+			return shadowInformation;
+		}
 	}
 
 
@@ -651,22 +970,135 @@ public abstract class Control {
 			offsetX = x;
 			offsetY = y;
 			prerender();
-			int dx0 = clipX0, dy0 = clipY0, dx1 = clipX1, dy1 = clipY1; // child items change the clip and we need to be able to reset it.
+			int dx0 = renderContext.clipX0, dy0 = renderContext.clipY0, dx1 = renderContext.clipX1, dy1 = renderContext.clipY1; // child items change the clip and we need to be able to reset it.
 			prepareGraphics(parentGraphics);
 			PFont f = parentGraphics.textFont;
 
-			render(); // no preRender(), pg.endDraw() needed
-			drawBorder();
+			renderContent(); // no preRender(), pg.endDraw() needed
 			if (f != null)
 				parentGraphics.textFont(f); // might need to reset font if textRenderer is an extended one
 
 			parentGraphics.popMatrix();
 
-			clipX0 = dx0;
-			clipX1 = dx1;
-			clipY0 = dy0;
-			clipY1 = dy1;
-			applyClip(parentGraphics); // AFTER resetting translation
+			renderContext.setClip(dx0, dy0, dx1, dy1);
+			renderContext.applyClip(parentGraphics); // AFTER resetting translation
+		}
+	}
+
+
+
+
+
+
+
+	/*
+	 * Called right before render(). Containers render the buffers of changed 
+	 * items here concurrently if parallel rendering is enabled.
+	 */
+	void prerenderItems() {
+	}
+
+	/*
+	 * Elements rendered on other threads (parallel rendering) must not use state
+	 * that is shared with other elements without synchronization. Elements whose 
+	 * render() does so return false and are rendered on the animation thread.
+	 */
+	protected boolean canRenderConcurrently() {
+		return true;
+	}
+
+	/*
+	 * Render the buffer of this (dirty, buffered) control using given context. Used
+	 * to render independent elements concurrently before they are projected onto 
+	 * the parent.
+	 */
+	void renderBuffer(RenderContext context) {
+		renderContext = context;
+		dirty = false;
+		renderer.renderBuffer();
+	}
+
+	/*
+	 * True if the next renderAll() only projects the buffer or replays the
+	 * recording of this control instead of rendering it anew.
+	 */
+	boolean rendersFromCache() {
+		if (dirty)
+			return false;
+		if (renderer instanceof RecordedRenderer)
+			return ((RecordedRenderer) renderer).displayList != null;
+		return renderer instanceof BasicBufferedRenderer || renderer instanceof ExtendedBufferedRenderer;
+	}
+
+	/*
+	 * Elements that render other elements (containers) are not recorded. Their
+	 * children would need to be recorded as well and could not change on
+	 * their own anymore.
+	 */
+	protected boolean canUseRecording() {
+		return true;
+	}
+
+	/*
+	 * Checks if visualBackgroundColor only influences the looks through the
+	 * background fill of drawDefaultBackground() (or not at all). Then a 
+	 * hover/press color change can just be patched into the recorded drawing
+	 * calls.
+	 */
+	protected boolean allowsBackgroundPatching() {
+		return false;
+	}
+
+	// Unbuffered renderer that records the drawing calls and replays them until the element changes.
+	class RecordedRenderer extends BasicUnbufferedRenderer {
+		DisplayList displayList;
+		private boolean recordingFailed = false; // render() does something that can't be recorded
+
+		@Override
+		void renderAll(int x, int y, PGraphics parentGraphics) {
+			if (dirty || displayList == null) {
+				dirty = false;
+				if (!recordingFailed) {
+					record();
+				}
+			}
+			if (displayList == null) {
+				super.renderAll(x, y, parentGraphics);
+				return;
+			}
+
+			offsetX = x;
+			offsetY = y;
+			prerender();
+			int dx0 = renderContext.clipX0, dy0 = renderContext.clipY0, dx1 = renderContext.clipX1, dy1 = renderContext.clipY1;
+			prepareGraphics(parentGraphics);
+			PFont f = parentGraphics.textFont;
+
+			displayList.replay(parentGraphics);
+			if (f != null)
+				parentGraphics.textFont(f);
+
+			parentGraphics.popMatrix();
+
+			renderContext.setClip(dx0, dy0, dx1, dy1);
+			renderContext.applyClip(parentGraphics); // AFTER resetting translation
+		}
+
+		private void record() {
+			RecordingGraphics recorder = renderContext.getRecorder();
+			recorder.beginRecord();
+			pg = recorder;
+			renderContent();
+			pg = null;
+			displayList = recorder.endRecord();
+			recordingFailed = displayList == null;
+		}
+
+		boolean patchBackground(int color) {
+			if (displayList == null)
+				return false;
+			displayList.patchBackground(color);
+			return true;
 		}
 	}
 
@@ -695,38 +1127,28 @@ public abstract class Control {
 			}
 
 			if (opacity < 1.0f) {
-				pg = getPApplet().createGraphics(getWidth(), getHeight());
-				pg.beginDraw();
-
-				render(); // no preRender() needed
-				drawBorder();
-				pg.endDraw();
-
-
-				parentGraphics.tint(255, (int) (opacity * 256));
-				parentGraphics.image(pg, x, y);
-				parentGraphics.tint = false;
+				// render into a pooled layer and project that with tint
+				LayerStack layers = renderContext.getLayers();
+				pg = layers.push(getFrame().getGraphicsPool(), getWidth(), getHeight());
+				renderContent(); // no preRender() needed
+				layers.pop(parentGraphics, x, y, opacity);
 
-				pg = null; // gc may delete the temporary graphics now
+				pg = null; // the layer belongs to the pool again
 
 			} else {
 				// Should be exactly like BasicUnbufferedRenderer.renderAll() (except setting offsetX/Y)
-				int dx0 = clipX0, dy0 = clipY0, dx1 = clipX1, dy1 = clipY1;
+				int dx0 = renderContext.clipX0, dy0 = renderContext.clipY0, dx1 = renderContext.clipX1, dy1 = renderContext.clipY1;
 				prepareGraphics(parentGraphics);
 				PFont f = parentGraphics.textFont;
-				render(); // no preRender()/pg.endDraw() needed
-				drawBorder();
+				renderContent(); // no preRender()/pg.endDraw() needed
 
 				if (f != null)
 					parentGraphics.textFont(f); // might need to reset font if textRenderer is an extended one
 
 				parentGraphics.popMatrix();
 
-				clipX0 = dx0;
-				clipX1 = dx1;
-				clipY0 = dy0;
-				clipY1 = dy1;
-				applyClip(parentGraphics); // AFTER resetting translation
+				renderContext.setClip(dx0, dy0, dx1, dy1);
+				renderContext.applyClip(parentGraphics); // AFTER resetting translation
 			}
 		}
 
@@ -739,9 +1161,15 @@ public abstract class Control {
 		public void removeShadow() {
 			shadowInformation = null;
 		}
+
+		@Override
+		public ShadowInformation getShadow() {
+			return shadowInformation;
+		}
 	}
 
 	protected void setToBufferedRenderer() {
+		dirty = true; // buffer needs to be rendered before it can be used
 		if (renderer instanceof BasicUnbufferedRenderer) {
 			renderer = new BasicBufferedRenderer();
 		} else if (renderer instanceof ExtendedUnbufferedRenderer) {
@@ -752,6 +1180,7 @@ public abstract class Control {
 	}
 
 	protected void setToUnbufferedRenderer() {
+		releaseBuffers();
 		if (renderer instanceof BasicBufferedRenderer) {
 			renderer = new BasicUnbufferedRenderer();
 		} else if (renderer instanceof ExtendedBufferedRenderer) {
@@ -762,6 +1191,72 @@ public abstract class Control {
 	}
 
 
+	boolean isBuffered() {
+		return renderer instanceof BasicBufferedRenderer || renderer instanceof ExtendedBufferedRenderer;
+	}
+
+
+
+	/*
+	 * Statistics for the automatic choice of the rendering method (see RenderingPolicy).
+	 */
+	private boolean automaticRendering = false;
+	long averageRenderTime;		// in nanoseconds
+	int renderCalls;			// number of calls to render()
+	int compositeCalls;			// number of times this has been rendered onto the parent
+	int invalidations;			// number of calls to update()
+
+	/**
+	 * Choose the rendering method for this element.
+	 * 
+	 * @param method {@link #BUFFERED_RENDERING}, {@link #UNBUFFERED_RENDERING},
+	 *               {@link #AUTOMATIC_RENDERING} or {@link #RECORDED_RENDERING}
+	 */
+	public void setRenderingMethod(RenderingMethod method) {
+		automaticRendering = method == RenderingMethod.AUTOMATIC_RENDERING;
+		if (automaticRendering) {
+			getFrame().getRenderingPolicy().register(this);
+		} else {
+			getFrame().getRenderingPolicy().unregister(this);
+			if (method == RenderingMethod.BUFFERED_RENDERING) {
+				setToBufferedRenderer();
+			} else {
+				setToUnbufferedRenderer();
+				if (method == RenderingMethod.RECORDED_RENDERING && canUseRecording() && renderer instanceof BasicUnbufferedRenderer) {
+					renderer = new RecordedRenderer();
+				} else if (method == RenderingMethod.UNBUFFERED_RENDERING && renderer instanceof RecordedRenderer) {
+					renderer = new BasicUnbufferedRenderer();
+				}
+			}
+		}
+		invalidatePaint();
+	}
+
+	/**
+	 * Get the rendering method of this element. If it is {@link #AUTOMATIC_RENDERING}, use
+	 * {@link #isBufferedNow()} to find out how it is currently rendered.
+	 * 
+	 * @return rendering method
+	 */
+	public RenderingMethod getRenderingMethod() {
+		if (automaticRendering)
+			return RenderingMethod.AUTOMATIC_RENDERING;
+		if (renderer instanceof RecordedRenderer)
+			return RenderingMethod.RECORDED_RENDERING;
+		return isBuffered() ? RenderingMethod.BUFFERED_RENDERING : RenderingMethod.UNBUFFERED_RENDERING;
+	}
+
+	/**
+	 * Check if the element currently draws to an own buffer.
+	 * 
+	 * @return true if rendered buffered
+	 */
+	public boolean isBufferedNow() {
+		return isBuffered();
+	}
+
+
+
 	protected void enableExtendedRenderer() {
 		if (renderer instanceof BasicBufferedRenderer) {
 			renderer = new ExtendedBufferedRenderer();
@@ -782,16 +1277,43 @@ public abstract class Control {
 	public void setBoxShadow(int size, int offsetX, int offsetY, int color, float opacity) {
 		enableExtendedRenderer();
 		((ExtendedRenderer) renderer).setShadow(size, offsetX, offsetY, color, opacity);
+		invalidatePaint(); // the shadow may reach further than before
 	}
 
 	public void removeBoxShadow() {
-		if (renderer instanceof ExtendedRenderer)
+		if (renderer instanceof ExtendedRenderer) {
 			((ExtendedRenderer) renderer).removeShadow();
+			invalidatePaint();
+		}
+	}
+
+	/*
+	 * Number of pixels this control draws outside of its bounds onto the parents
+	 * graphics (i.e. box shadows). 
+	 */
+	protected int getRenderOverflow() {
+		if (renderer instanceof ExtendedRenderer) {
+			ShadowInformation si = ((ExtendedRenderer) renderer).getShadow();
+			if (si != null) {
+				return si.size + Math.max(Math.abs(si.offsetX), Math.abs(si.offsetY));
+			}
+		}
+		return 0;
 	}
 
 
-	// just return the looks of this control, without drawing
+	/*
+	 * Just return the looks of this control, without drawing. The buffer might be
+	 * larger than the control (pooled buffer) or be a shared atlas page, then only
+	 * the area of this control is copied.
+	 */
 	protected PImage getGraphics() {
+		if (atlasSlot != null) {
+			return atlasSlot.getGraphics().get(atlasSlot.x, atlasSlot.y, pWidth, pHeight);
+		}
+		if (pg != null && pg == buffer && (pg.width != pWidth || pg.height != pHeight)) {
+			return pg.get(0, 0, pWidth, pHeight);
+		}
 		return pg;
 	}
 
@@ -800,19 +1322,154 @@ public abstract class Control {
 	 * Call parent to update and set flag that this control has changed its looks.
 	 * In the next frame elements that have changed get the chance to redraw
 	 * themselves. (normally the render() method is not called every frame)
+	 * 
+	 * There are two levels: invalidatePaint() for changes that only affect the
+	 * looks (colors, state, scrolling) and invalidateLayout() for changes that
+	 * might move this control or its siblings (size, margin, visibility, items). 
 	 */
 
 	/**
 	 * Method that is called when properties of a Component that influence the appearance change, i.e.
-	 * called in most setters.
+	 * called in most setters. Same as {@link #invalidateLayout()}. If only the looks changed, prefer
+	 * {@link #invalidatePaint()}.
 	 */
 	protected void update() {
+		invalidateLayout();
+	}
+
+	/**
+	 * Mark this control to be rendered again, without changing its size or position. Only the
+	 * buffers of this control and its parents are repainted, the layout of containers is kept.
+	 */
+	protected void invalidatePaint() {
+		if (Frame.getFrame().deferConcurrentInvalidation(this, false))
+			return;
+		InvalidationTracer tracer = InvalidationTracer.active;
+		if (tracer != null) {
+			tracer.enter(this);
+		}
+		try {
+			dirty = true;
+			if (automaticRendering) {
+				invalidations++;
+			}
+			Profiler profiler = Profiler.active;
+			if (profiler != null) {
+				profiler.invalidated(this);
+			}
+			if (!Frame.getFrame().deferInvalidation(this)) {
+				invalidateParent();
+			}
+		} finally {
+			if (tracer != null) {
+				tracer.exit();
+			}
+		}
+	}
+
+	/**
+	 * Mark the layout of this control and of its parent as changed and render it again. Containers
+	 * then measure and arrange their items again.
+	 */
+	protected void invalidateLayout() {
+		if (Frame.getFrame().deferConcurrentInvalidation(this, true))
+			return;
+		InvalidationTracer tracer = InvalidationTracer.active;
+		if (tracer != null) {
+			tracer.enter(this);
+		}
+		try {
+			layoutDirty = true;
+			invalidatePaint();
+			if (parent != null) {
+				parent.layoutDirty = true;
+				parent.childLayoutChanged(this);
+				// containers that arrange their items might need to move the siblings too
+				if (parent instanceof Container && !((Container) parent).needsSortingByZ()) {
+					parent.invalidatePaint();
+				}
+			}
+		} finally {
+			if (tracer != null) {
+				tracer.exit();
+			}
+		}
+	}
+
+	/*
+	 * Let the parent know that the area of this control needs to be repainted
+	 * without marking the looks of this control as changed.
+	 */
+	void invalidateParent() {
+		if (parent != null && visible) { // hiding is handled by setVisible()
+			if (renderedLayoutChanged()) {
+				// position, size or visibility changed -> the parent (and maybe siblings) need repainting
+				parent.invalidatePaint();
+			} else {
+				int overflow = Math.max(renderedOverflow, getRenderOverflow());
+				parent.childDamaged(offsetX - overflow, offsetY - overflow, offsetX + width + overflow, offsetY + height + overflow);
+			}
+		}
+	}
+
+	/*
+	 * Called by children whose size, margin or visibility might have changed.
+	 * Containers that keep positions of their items can update them here.
+	 */
+	void childLayoutChanged(Control child) {
+	}
+
+	/*
+	 * Called by children when only the given rectangle (in this controls coordinates) 
+	 * changed its looks. Passes the damaged area on to the Frame which then can
+	 * repaint only these parts. 
+	 */
+	protected void childDamaged(int x0, int y0, int x1, int y1) {
 		dirty = true;
 		if (parent != null) {
-			parent.update();
+			// children can't draw outside of their parents bounds
+			x0 = Math.max(0, x0);
+			y0 = Math.max(0, y0);
+			x1 = Math.min(width, x1);
+			y1 = Math.min(height, y1);
+			parent.childDamaged(x0 + offsetX, y0 + offsetY, x1 + offsetX, y1 + offsetY);
 		}
 	}
 
+
+
+	/*
+	 * Layout of this control when it has been rendered by the parent the last time. If 
+	 * it changed since then, not only the old bounds need to be repainted. 
+	 */
+	private int renderedX, renderedY, renderedWidth, renderedHeight;
+	private int renderedMarginLeft, renderedMarginTop, renderedMarginRight, renderedMarginBottom;
+	private int renderedOverflow;
+	private boolean renderedLayoutValid = false;
+
+	void storeRenderedLayout() {
+		renderedX = x;
+		renderedY = y;
+		renderedWidth = width;
+		renderedHeight = height;
+		renderedMarginLeft = marginLeft;
+		renderedMarginTop = marginTop;
+		renderedMarginRight = marginRight;
+		renderedMarginBottom = marginBottom;
+		renderedOverflow = getRenderOverflow();
+		renderedLayoutValid = true;
+	}
+
+	void invalidateRenderedLayout() {
+		renderedLayoutValid = false;
+	}
+
+	protected boolean renderedLayoutChanged() {
+		return !renderedLayoutValid || x != renderedX || y != renderedY || width != renderedWidth || height != renderedHeight
+				|| marginLeft != renderedMarginLeft || marginTop != renderedMarginTop || marginRight != renderedMarginRight
+				|| marginBottom != renderedMarginBottom;
+	}
+
 	/**
 	 * Force a re-render of this Component. This shouldn't be needed, but just in case.
 	 */
@@ -1110,14 +1767,20 @@ public abstract class Control {
 			// int visualBackgroundColor = pPressed ? pressedColor : pHovered ? hoverColor :
 			// backgroundColor;
 
-			if (visualBackgroundColor != 0) {
+			if (pg instanceof RecordingGraphics) {
+				((RecordingGraphics) pg).backgroundFill(visualBackgroundColor); // can be patched later
+			} else if (visualBackgroundColor != 0) {
 				pg.fill(visualBackgroundColor);
 			} else {
 				pg.noFill();
 			}
 			pg.noStroke();
-			pg.rect(borderWidth / 2, borderWidth / 2, width - borderWidth, height - borderWidth, borderRadius);
-			pg.rect(0, 0, getWidth(), getHeight(), borderRadius);
+
+			// rounded rects are slow, draw them from a cached image if possible
+			if (borderRadius == 0 || visualBackgroundColor == 0 || pg instanceof RecordingGraphics
+					|| !BackgroundCache.drawRoundedFill(pg, width, height, borderRadius, visualBackgroundColor)) {
+				pg.rect(0, 0, width, height, borderRadius);
+			}
 
 		} else {
 
@@ -1147,42 +1810,15 @@ public abstract class Control {
 			}
 			pg.endShape();*/
 
-			if (imageMode == FILL) {
-
-				pg.image(image, 0, 0, width, height);
-			} else if (imageMode == FIT) {
-
-				// mode FIT fills the entire background (without distortion) but without leaving
-				// any blank parts
-				if (image.width / image.height < width / height) {
-					int newHeight = (int) (image.height / (float) image.width * width);
-					pg.image(image, 0, -(newHeight - height) / 2, width, newHeight);
-				} else {
-					int newWidth = (int) (image.width / (float) image.height * height);
-					pg.image(image, -(newWidth - width) / 2, 0, newWidth, height);
-				}
-			} else if (imageMode == FIT_INSIDE) {
-
-				// mode FITINSIDE makes sure the entire image is visible without distortion;
-				// usually results in blank parts
-				if (image.width / image.height > width / height) {
-					int newHeight = (int) (image.height / (float) image.width * width);
-					pg.image(image, 0, -(newHeight - height) / 2, width, newHeight);
-				} else {
-					int newWidth = (int) (image.width / (float) image.height * height);
-					pg.image(image, -(newWidth - width) / 2, 0, newWidth, height);
-				}
-
-			}
-
-			// If there is a border radius, we need to mask the image
+			// If there is a border radius, the image needs to be masked. pg might be larger than
+			// this control (pooled buffer, atlas page) or be the parents graphics, so the image is
+			// cut to shape at the exact size first (and kept until something changes).
 			if (borderRadius > 0) {
-				PGraphics maskImage = getPApplet().createGraphics(width, height);
-				maskImage.beginDraw();
-				maskImage.noStroke();
-				maskImage.rect(borderWidth / 2, borderWidth / 2, width - borderWidth, height - borderWidth, borderRadius);
-				maskImage.endDraw();
-				pg.mask(maskImage);
+				roundedImage = BackgroundCache.drawRoundedImage(pg, roundedImage, image, imageMode, width, height, borderRadius,
+						borderWidth, this::drawBackgroundImage);
+			} else {
+				roundedImage = null;
+				drawBackgroundImage(pg);
 			}
 
 			// Draw pressedColor/hoverColor over image.
@@ -1200,6 +1836,37 @@ public abstract class Control {
 		}
 	}
 
+	// draw the background image according to the image mode
+	private void drawBackgroundImage(PGraphics pg) {
+		if (imageMode == FILL) {
+
+			pg.image(image, 0, 0, width, height);
+		} else if (imageMode == FIT) {
+
+			// mode FIT fills the entire background (without distortion) but without leaving
+			// any blank parts
+			if (image.width / image.height < width / height) {
+				int newHeight = (int) (image.height / (float) image.width * width);
+				pg.image(image, 0, -(newHeight - height) / 2, width, newHeight);
+			} else {
+				int newWidth = (int) (image.width / (float) image.height * height);
+				pg.image(image, -(newWidth - width) / 2, 0, newWidth, height);
+			}
+		} else if (imageMode == FIT_INSIDE) {
+
+			// mode FITINSIDE makes sure the entire image is visible without distortion;
+			// usually results in blank parts
+			if (image.width / image.height > width / height) {
+				int newHeight = (int) (image.height / (float) image.width * width);
+				pg.image(image, 0, -(newHeight - height) / 2, width, newHeight);
+			} else {
+				int newWidth = (int) (image.width / (float) image.height * height);
+				pg.image(image, -(newWidth - width) / 2, 0, newWidth, height);
+			}
+
+		}
+	}
+
 
 	/**
 	 * Standard disabled-state drawing feature. If called at end of render() it will draw a transparent
@@ -1216,7 +1883,12 @@ public abstract class Control {
 	protected void setVisualBackgroundColor(int color) {
 		if (color != visualBackgroundColor) {
 			visualBackgroundColor = color;
-			update();
+			if (!dirty && renderer instanceof RecordedRenderer && allowsBackgroundPatching()
+					&& ((RecordedRenderer) renderer).patchBackground(color)) {
+				invalidateParent(); // no need to render again
+			} else {
+				invalidatePaint();
+			}
 		}
 	}
 
@@ -2038,6 +2710,13 @@ public abstract class Control {
 		if (oldWidth == this.width) 		// no unnecessary resize event calling when setting min/max
 			return false;
 
+		// no update here, but containers that arrange this control need to know
+		layoutDirty = true;
+		if (parent != null) {
+			parent.layoutDirty = true;
+			parent.childLayoutChanged(this);
+		}
+
 		availableWidthChanged();
 		handleEvent(resizeListener, this); 	// width of this element has really changed
 
@@ -2072,6 +2751,13 @@ public abstract class Control {
 		if (temp == this.height) 			// no unnecessary resize event calling when setting min/max
 			return false;
 
+		// no update here, but containers that arrange this control need to know
+		layoutDirty = true;
+		if (parent != null) {
+			parent.layoutDirty = true;
+			parent.childLayoutChanged(this);
+		}
+
 		availableHeightChanged();
 		handleEvent(resizeListener, this); 	// height of this element has really changed
 
@@ -2244,8 +2930,9 @@ public abstract class Control {
 			pressedColor = clr;
 		visualBackgroundColor = clr;
 		image = null;
+		roundedImage = null;
 		backgroundColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2273,7 +2960,8 @@ public abstract class Control {
 			pressedColor = GuisetColor.create(r + 40, g + 40, b + 40, alpha);
 		}
 		image = null; // just in case
-		update();
+		roundedImage = null;
+		invalidatePaint();
 	}
 
 	/**
@@ -2283,7 +2971,7 @@ public abstract class Control {
 	 */
 	public void setForegroundColor(int clr) {
 		foregroundColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2293,7 +2981,7 @@ public abstract class Control {
 	 */
 	public void setHoverColor(int clr) {
 		this.hoverColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2303,7 +2991,7 @@ public abstract class Control {
 	 */
 	public void setPressedColor(int clr) {
 		this.pressedColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2313,7 +3001,7 @@ public abstract class Control {
 	 */
 	public void setBorderColor(int clr) {
 		borderColor = clr;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2323,7 +3011,7 @@ public abstract class Control {
 	 */
 	public void setBorderWidth(int borderWidth) {
 		this.borderWidth = Math.max(0, borderWidth);
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2333,7 +3021,7 @@ public abstract class Control {
 	 */
 	public void setBorderRadius(int borderRadius) {
 		this.borderRadius = borderRadius;
-		update();
+		invalidatePaint();
 	}
 
 
@@ -2388,7 +3076,7 @@ public abstract class Control {
 			if (pressedColor == backgroundColor) {
 				pressedColor = GuisetColor.create(0, 80);
 			}
-			update();
+			invalidatePaint();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -2402,7 +3090,7 @@ public abstract class Control {
 	 */
 	public void setImageMode(ImageMode imageMode) {
 		this.imageMode = imageMode;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2435,7 +3123,7 @@ public abstract class Control {
 		this.enabled = enabled;
 		if (!enabled && focused)
 			blur();
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -2447,7 +3135,11 @@ public abstract class Control {
 		this.visible = visible;
 		if (!visible && focused)
 			blur();
-		update();
+		renderedLayoutValid = false; // siblings might need to move
+		invalidateLayout();
+		if (!visible && parent != null) {
+			parent.invalidatePaint();
+		}
 	}
 
 	/**
@@ -2480,7 +3172,32 @@ public abstract class Control {
 		this.opacity = Math.max(0, Math.min(1, opacity));
 
 		enableExtendedRenderer();
-		update();
+		invalidatePaint();
+	}
+
+	private boolean opaque = false;
+
+	/**
+	 * Declare that this element paints every pixel of its bounds (i.e. a panel with an opaque
+	 * background). Elements that are completely covered by an opaque element with higher z-index are
+	 * neither rendered nor receive mouse events. The declaration only takes effect as long as the
+	 * background color is fully opaque, there is no background image, no border radius and opacity is
+	 * 1.
+	 * 
+	 * @param opaque true if the element covers its bounds completely
+	 */
+	public void setOpaque(boolean opaque) {
+		this.opaque = opaque;
+		invalidatePaint();
+	}
+
+	/**
+	 * Check if this element covers its bounds completely, see {@link #setOpaque(boolean)}.
+	 * 
+	 * @return true if opaque
+	 */
+	public boolean isOpaque() {
+		return opaque && image == null && borderRadius == 0 && opacity == 1 && (backgroundColor >>> 24) == 255 && (visualBackgroundColor >>> 24) == 255;
 	}
 
 
@@ -2888,49 +3605,54 @@ public abstract class Control {
 	 * @param attribs bitwise OR added attributes
 	 */
 	public void copyStyle(Control source, long attribs) {
-		if ((attribs & PADDING) != 0)
-			setPadding(source.paddingTop, source.paddingRight, source.paddingBottom, source.paddingLeft);
-		else {
-			if ((attribs & PADDING_LEFT) != 0)
-				setPaddingLeft(source.paddingLeft);
-			if ((attribs & PADDING_RIGHT) != 0)
-				setPaddingRight(source.paddingRight);
-			if ((attribs & PADDING_TOP) != 0)
-				setPaddingTop(source.paddingTop);
-			if ((attribs & PADDING_BOTTOM) != 0)
-				setPaddingBottom(source.paddingBottom);
-		}
-		if ((attribs & MARGIN) != 0)
-			setMargin(source.marginTop, source.marginRight, source.marginBottom, source.marginLeft);
-		else {
-			if ((attribs & MARGIN_LEFT) != 0)
-				setMarginLeft(source.marginLeft);
-			if ((attribs & MARGIN_RIGHT) != 0)
-				setMarginRight(source.marginRight);
-			if ((attribs & MARGIN_TOP) != 0)
-				setMarginTop(source.marginTop);
-			if ((attribs & MARGIN_BOTTOM) != 0)
-				setMarginBottom(source.marginBottom);
-		}
-		if ((attribs & BACKGROUND_COLOR) != 0)
-			setBackgroundColor(source.backgroundColor);
-		if ((attribs & HOVER_COLOR) != 0)
-			setHoverColor(source.hoverColor);
-		if ((attribs & PRESSED_COLOR) != 0)
-			setPressedColor(source.pressedColor);
-
-		if ((attribs & FOREGROUND_COLOR) != 0)
-			setForegroundColor(source.foregroundColor);
-
-		if ((attribs & BORDER_WIDTH) != 0)
-			setBorderWidth(source.borderWidth);
-		if ((attribs & BORDER_RADIUS) != 0)
-			setBorderRadius(source.borderRadius);
-		if ((attribs & BORDER_COLOR) != 0)
-			setBorderColor(source.borderColor);
-
-		if ((attribs & OPACITY) != 0)
-			setOpacity(source.opacity);
+		getFrame().beginUpdate(); // copying many properties should only update once
+		try {
+			if ((attribs & PADDING) != 0)
+				setPadding(source.paddingTop, source.paddingRight, source.paddingBottom, source.paddingLeft);
+			else {
+				if ((attribs & PADDING_LEFT) != 0)
+					setPaddingLeft(source.paddingLeft);
+				if ((attribs & PADDING_RIGHT) != 0)
+					setPaddingRight(source.paddingRight);
+				if ((attribs & PADDING_TOP) != 0)
+					setPaddingTop(source.paddingTop);
+				if ((attribs & PADDING_BOTTOM) != 0)
+					setPaddingBottom(source.paddingBottom);
+			}
+			if ((attribs & MARGIN) != 0)
+				setMargin(source.marginTop, source.marginRight, source.marginBottom, source.marginLeft);
+			else {
+				if ((attribs & MARGIN_LEFT) != 0)
+					setMarginLeft(source.marginLeft);
+				if ((attribs & MARGIN_RIGHT) != 0)
+					setMarginRight(source.marginRight);
+				if ((attribs & MARGIN_TOP) != 0)
+					setMarginTop(source.marginTop);
+				if ((attribs & MARGIN_BOTTOM) != 0)
+					setMarginBottom(source.marginBottom);
+			}
+			if ((attribs & BACKGROUND_COLOR) != 0)
+				setBackgroundColor(source.backgroundColor);
+			if ((attribs & HOVER_COLOR) != 0)
+				setHoverColor(source.hoverColor);
+			if ((attribs & PRESSED_COLOR) != 0)
+				setPressedColor(source.pressedColor);
+
+			if ((attribs & FOREGROUND_COLOR) != 0)
+				setForegroundColor(source.foregroundColor);
+
+			if ((attribs & BORDER_WIDTH) != 0)
+				setBorderWidth(source.borderWidth);
+			if ((attribs & BORDER_RADIUS) != 0)
+				setBorderRadius(source.borderRadius);
+			if ((attribs & BORDER_COLOR) != 0)
+				setBorderColor(source.borderColor);
+
+			if ((attribs & OPACITY) != 0)
+				setOpacity(source.opacity);
+		} finally {
+			getFrame().endUpdate();
+		}
 	}
 
 
@@ -2990,8 +3712,13 @@ public abstract class Control {
 
 	@SafeVarargs // well i guess an error could occur if the user passes a bad method
 	public static <T> void doForAll(Setter<T> setter, T... elements) {
-		for (T c : elements) {
-			setter.run(c);
+		getFrame().beginUpdate();
+		try {
+			for (T c : elements) {
+				setter.run(c);
+			}
+		} finally {
+			getFrame().endUpdate();
 		}
 	}
 
@@ -3223,6 +3950,10 @@ public abstract class Control {
 	protected void handleEvent(EventListener callback, Object... args) {
 		if (callback == null)
 			return;
+		FrameStatistics s = FrameStatistics.active;
+		if (s != null) {
+			s.listenerInvoked();
+		}
 		callback.handle(args);
 	}
 
@@ -0,0 +1,155 @@
+package guiSET.core;
+
+
+/*
+ * Collects the areas of the Frame that need to be repainted in the next frame.
+ *
+ * When a control changes, it reports its last rendered bounds (translated into
+ * Frame coordinates) up to the Frame which stores them here. Rectangles that
+ * overlap or are close to each other are merged, so that only a small set
+ * of rectangles remains. If the damaged area grows too large compared to the
+ * whole Frame, the region is simply marked as "full".
+ *
+ * Update may be called from other threads (i.e. text cursor threads), so all
+ * methods are synchronized.
+ */
+class DamageRegion {
+
+	// Rectangles closer than this (in pixel) are merged into one.
+	private static final int MERGE_DISTANCE = 8;
+
+	// If the damaged area exceeds this share of the full area, just repaint everything.
+	private static final float FULL_REPAINT_RATIO = .6f;
+
+	private final int maxRects;
+
+	// x0, y0, x1, y1 for each rectangle
+	private int[] rects;
+	private int count = 0;
+	private boolean full = true; // initially everything needs to be painted
+
+	private int width, height;
+
+
+	DamageRegion(int maxRects) {
+		this.maxRects = maxRects;
+		rects = new int[4 * (maxRects + 1)];
+	}
+
+	synchronized void setBounds(int width, int height) {
+		if (width != this.width || height != this.height) {
+			this.width = width;
+			this.height = height;
+			full = true;
+		}
+	}
+
+	synchronized void setFull() {
+		full = true;
+	}
+
+	synchronized boolean isFull() {
+		return full;
+	}
+
+	synchronized boolean isEmpty() {
+		return !full && count == 0;
+	}
+
+	synchronized void clear() {
+		full = false;
+		count = 0;
+	}
+
+
+
+	/*
+	 * Add a rectangle given by its corners. It is clipped to the bounds of the region.
+	 */
+	synchronized void add(int x0, int y0, int x1, int y1) {
+		if (full)
+			return;
+
+		x0 = Math.max(0, x0);
+		y0 = Math.max(0, y0);
+		x1 = Math.min(width, x1);
+		y1 = Math.min(height, y1);
+		if (x1 <= x0 || y1 <= y0)
+			return;
+
+		// merge with any close rectangle, this might make the new one close to others again
+		int i = 0;
+		while (i < count) {
+			int j = 4 * i;
+			if (x0 - MERGE_DISTANCE <= rects[j + 2] && rects[j] <= x1 + MERGE_DISTANCE && y0 - MERGE_DISTANCE <= rects[j + 3] && rects[j + 1] <= y1 + MERGE_DISTANCE) {
+				x0 = Math.min(x0, rects[j]);
+				y0 = Math.min(y0, rects[j + 1]);
+				x1 = Math.max(x1, rects[j + 2]);
+				y1 = Math.max(y1, rects[j + 3]);
+				removeRect(i);
+				i = 0;
+			} else {
+				i++;
+			}
+		}
+
+		if (count == maxRects) {
+			// merge into the rectangle whose area grows the least
+			int best = 0;
+			long bestGrowth = Long.MAX_VALUE;
+			for (i = 0; i < count; i++) {
+				int j = 4 * i;
+				long union = (long) (Math.max(x1, rects[j + 2]) - Math.min(x0, rects[j])) * (Math.max(y1, rects[j + 3]) - Math.min(y0, rects[j + 1]));
+				long growth = union - (long) (rects[j + 2] - rects[j]) * (rects[j + 3] - rects[j + 1]);
+				if (growth < bestGrowth) {
+					bestGrowth = growth;
+					best = i;
+				}
+			}
+			int j = 4 * best;
+			x0 = Math.min(x0, rects[j]);
+			y0 = Math.min(y0, rects[j + 1]);
+			x1 = Math.max(x1, rects[j + 2]);
+			y1 = Math.max(y1, rects[j + 3]);
+			removeRect(best);
+		}
+
+		int j = 4 * count;
+		rects[j] = x0;
+		rects[j + 1] = y0;
+		rects[j + 2] = x1;
+		rects[j + 3] = y1;
+		count++;
+
+		if (getArea() > FULL_REPAINT_RATIO * width * height) {
+			full = true;
+		}
+	}
+
+	private void removeRect(int i) {
+		count--;
+		System.arraycopy(rects, 4 * (i + 1), rects, 4 * i, 4 * (count - i));
+	}
+
+	private long getArea() {
+		long area = 0;
+		for (int i = 0; i < count; i++) {
+			int j = 4 * i;
+			area += (long) (rects[j + 2] - rects[j]) * (rects[j + 3] - rects[j + 1]);
+		}
+		return area;
+	}
+
+
+
+	/*
+	 * Copy the current rectangles (x0, y0, x1, y1 each) and reset the region.
+	 * Returns null if the whole area is damaged.
+	 */
+	synchronized int[] takeRects() {
+		int[] result = full ? null : java.util.Arrays.copyOf(rects, 4 * count);
+		full = false;
+		count = 0;
+		return result;
+	}
+}
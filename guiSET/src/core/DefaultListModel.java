@@ -0,0 +1,139 @@
+package guiSET.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+
+
+/**
+ * {@link ListModel} backed by an ArrayList.
+ * 
+ * @param <T> type of the entries
+ */
+public class DefaultListModel<T> implements ListModel<T> {
+
+	protected ArrayList<T> items = new ArrayList<T>();
+
+	protected ArrayList<Listener> listeners = new ArrayList<Listener>(1);
+
+
+	public DefaultListModel() {
+	}
+
+	public DefaultListModel(Collection<? extends T> items) {
+		this.items.addAll(items);
+	}
+
+
+
+	@Override
+	public int size() {
+		return items.size();
+	}
+
+	@Override
+	public T get(int index) {
+		return items.get(index);
+	}
+
+	public void add(T item) {
+		items.add(item);
+		fireInserted(items.size() - 1, 1);
+	}
+
+	/**
+	 * Add many entries with a single notification.
+	 * 
+	 * @param newItems entries
+	 */
+	public void addAll(Collection<? extends T> newItems) {
+		int index = items.size();
+		items.addAll(newItems);
+		if (newItems.size() > 0) {
+			fireInserted(index, newItems.size());
+		}
+	}
+
+	public void insert(int index, T item) {
+		items.add(index, item);
+		fireInserted(index, 1);
+	}
+
+	public void set(int index, T item) {
+		items.set(index, item);
+		fireChanged(index, 1);
+	}
+
+	public T remove(int index) {
+		T item = items.remove(index);
+		fireRemoved(index, 1);
+		return item;
+	}
+
+	/**
+	 * Remove the entries from index start (inclusive) to end (exclusive).
+	 * 
+	 * @param start first index
+	 * @param end   last index (exclusive)
+	 */
+	public void removeRange(int start, int end) {
+		if (end > start) {
+			items.subList(start, end).clear();
+			fireRemoved(start, end - start);
+		}
+	}
+
+	public void clear() {
+		int size = items.size();
+		items.clear();
+		if (size > 0) {
+			fireRemoved(0, size);
+		}
+	}
+
+	public void sort(Comparator<? super T> comparator) {
+		Collections.sort(items, comparator);
+		if (items.size() > 0) {
+			fireChanged(0, items.size());
+		}
+	}
+
+	public int indexOf(T item) {
+		return items.indexOf(item);
+	}
+
+
+
+	/*
+	 * LISTENERS
+	 */
+
+	@Override
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	protected void fireInserted(int index, int count) {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).itemsInserted(index, count);
+		}
+	}
+
+	protected void fireRemoved(int index, int count) {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).itemsRemoved(index, count);
+		}
+	}
+
+	protected void fireChanged(int index, int count) {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).itemsChanged(index, count);
+		}
+	}
+}
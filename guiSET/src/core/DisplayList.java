@@ -0,0 +1,488 @@
+package guiSET.core;
+
+import processing.core.*;
+
+import java.util.Arrays;
+
+
+/*
+ * Compact list of drawing commands recorded by RecordingGraphics.
+ *
+ * Each command consists of an opcode in the code array, followed by its int
+ * arguments. Float arguments are stored in a separate array, referenced objects
+ * (strings, fonts, images) in a third one. Replaying executes the same calls
+ * on the target graphics, so the result is the same as calling render() on it
+ * directly.
+ *
+ * Commands are recorded in the local coordinates of the control. Replaying it
+ * at another position only needs a different translation of the target.
+ */
+class DisplayList {
+
+	// style
+	static final int FILL = 0;
+	static final int NO_FILL = 1;
+	static final int STROKE = 2;
+	static final int NO_STROKE = 3;
+	static final int TINT = 4;
+	static final int NO_TINT = 5;
+	static final int STROKE_WEIGHT = 6;
+	static final int STROKE_CAP = 7;
+	static final int STROKE_JOIN = 8;
+	static final int RECT_MODE = 9;
+	static final int ELLIPSE_MODE = 10;
+	static final int IMAGE_MODE = 11;
+	static final int BLEND_MODE = 12;
+	static final int PUSH_STYLE = 13;
+	static final int POP_STYLE = 14;
+
+	// background fill of drawDefaultBackground(), can be patched
+	static final int BACKGROUND_FILL = 15;
+
+	// text
+	static final int TEXT_ALIGN = 20;
+	static final int TEXT_ALIGN_XY = 21;
+	static final int TEXT_SIZE = 22;
+	static final int TEXT_LEADING = 23;
+	static final int TEXT_FONT = 24;
+	static final int TEXT_FONT_SIZE = 25;
+	static final int TEXT_MODE = 26;
+	static final int TEXT = 27;
+	static final int TEXT_BOX = 28;
+	static final int TEXT_CHAR = 29;
+
+	// shapes
+	static final int POINT = 40;
+	static final int LINE = 41;
+	static final int TRIANGLE = 42;
+	static final int QUAD = 43;
+	static final int RECT = 44;
+	static final int ROUNDED_RECT = 45;
+	static final int ROUNDED_RECT_4 = 46;
+	static final int ELLIPSE = 47;
+	static final int ARC = 48;
+	static final int ARC_MODE = 49;
+	static final int IMAGE = 50;
+	static final int IMAGE_SIZE = 51;
+	static final int IMAGE_REGION = 52;
+
+	// vertex shapes
+	static final int BEGIN_SHAPE = 60;
+	static final int BEGIN_SHAPE_KIND = 61;
+	static final int VERTEX = 62;
+	static final int VERTEX_UV = 63;
+	static final int BEZIER_VERTEX = 64;
+	static final int QUADRATIC_VERTEX = 65;
+	static final int CURVE_VERTEX = 66;
+	static final int BEGIN_CONTOUR = 67;
+	static final int END_CONTOUR = 68;
+	static final int END_SHAPE = 69;
+	static final int END_SHAPE_MODE = 70;
+
+	// transformation and clipping
+	static final int PUSH_MATRIX = 80;
+	static final int POP_MATRIX = 81;
+	static final int TRANSLATE = 82;
+	static final int ROTATE = 83;
+	static final int SCALE = 84;
+	static final int SCALE_XY = 85;
+	static final int SHEAR_X = 86;
+	static final int SHEAR_Y = 87;
+	static final int CLIP = 88;
+	static final int NO_CLIP = 89;
+
+
+	private int[] code = new int[64];
+	private float[] nums = new float[128];
+	private Object[] refs = new Object[8];
+	private int codeLength, numsLength, refsLength;
+
+	private boolean hasBackgroundFill = false;
+
+
+
+	void clear() {
+		codeLength = 0;
+		numsLength = 0;
+		Arrays.fill(refs, 0, refsLength, null);
+		refsLength = 0;
+		hasBackgroundFill = false;
+	}
+
+	boolean isEmpty() {
+		return codeLength == 0;
+	}
+
+	/*
+	 * Copy of the recorded commands with arrays shrinked to their used size.
+	 */
+	DisplayList copy() {
+		DisplayList copy = new DisplayList();
+		copy.code = Arrays.copyOf(code, codeLength);
+		copy.nums = Arrays.copyOf(nums, numsLength);
+		copy.refs = Arrays.copyOf(refs, refsLength);
+		copy.codeLength = codeLength;
+		copy.numsLength = numsLength;
+		copy.refsLength = refsLength;
+		copy.hasBackgroundFill = hasBackgroundFill;
+		return copy;
+	}
+
+	/*
+	 * Approximate memory needed by the command arrays in bytes.
+	 */
+	int getByteSize() {
+		return 4 * code.length + 4 * nums.length + 4 * refs.length;
+	}
+
+
+
+	/*
+	 * Recording
+	 */
+
+	void add(int op) {
+		addInt(op);
+		if (op == BACKGROUND_FILL) {
+			hasBackgroundFill = true;
+		}
+	}
+
+	void add(int op, int arg) {
+		add(op);
+		addInt(arg);
+	}
+
+	// int argument following the last opcode
+	void addInt(int arg) {
+		if (codeLength == code.length) {
+			code = Arrays.copyOf(code, 2 * code.length);
+		}
+		code[codeLength++] = arg;
+	}
+
+	void add(int op, float... args) {
+		add(op);
+		addFloats(args);
+	}
+
+	void addRef(int op, Object ref, float... args) {
+		add(op);
+		addRef(ref);
+		addFloats(args);
+	}
+
+	// float arguments following the last opcode
+	void addFloats(float... args) {
+		if (numsLength + args.length > nums.length) {
+			nums = Arrays.copyOf(nums, Math.max(2 * nums.length, numsLength + args.length));
+		}
+		System.arraycopy(args, 0, nums, numsLength, args.length);
+		numsLength += args.length;
+	}
+
+	private void addRef(Object ref) {
+		if (refsLength == refs.length) {
+			refs = Arrays.copyOf(refs, 2 * refs.length);
+		}
+		refs[refsLength++] = ref;
+	}
+
+
+
+	/*
+	 * Change the color of the background fills recorded in drawDefaultBackground().
+	 */
+	void patchBackground(int color) {
+		if (!hasBackgroundFill)
+			return;
+		int ci = 0;
+		while (ci < codeLength) {
+			int op = code[ci++];
+			if (op == BACKGROUND_FILL) {
+				code[ci] = color;
+			}
+			ci += intArgs(op);
+		}
+	}
+
+	private static int intArgs(int op) {
+		switch (op) {
+		case FILL:
+		case STROKE:
+		case TINT:
+		case STROKE_CAP:
+		case STROKE_JOIN:
+		case RECT_MODE:
+		case ELLIPSE_MODE:
+		case IMAGE_MODE:
+		case BLEND_MODE:
+		case BACKGROUND_FILL:
+		case TEXT_ALIGN:
+		case TEXT_MODE:
+		case TEXT_CHAR:
+		case ARC_MODE:
+		case BEGIN_SHAPE_KIND:
+		case END_SHAPE_MODE:
+			return 1;
+		case TEXT_ALIGN_XY:
+			return 2;
+		case IMAGE_REGION:
+			return 4;
+		default:
+			return 0;
+		}
+	}
+
+
+
+	/*
+	 * Execute all commands on given graphics.
+	 */
+	void replay(PGraphics g) {
+		int[] code = this.code;
+		float[] f = nums;
+		int ci = 0, ni = 0, ri = 0;
+
+		while (ci < codeLength) {
+			switch (code[ci++]) {
+			case FILL:
+				fill(g, code[ci++]);
+				break;
+			case NO_FILL:
+				g.noFill();
+				break;
+			case BACKGROUND_FILL:
+				int color = code[ci++];
+				if (color != 0) {
+					fill(g, color);
+				} else {
+					g.noFill();
+				}
+				break;
+			case STROKE:
+				int c = code[ci++];
+				if ((c & 0xFF000000) != 0) {
+					g.stroke(c);
+				} else {
+					g.stroke((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF, 0);
+				}
+				break;
+			case NO_STROKE:
+				g.noStroke();
+				break;
+			case TINT:
+				c = code[ci++];
+				if ((c & 0xFF000000) != 0) {
+					g.tint(c);
+				} else {
+					g.tint((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF, 0);
+				}
+				break;
+			case NO_TINT:
+				g.noTint();
+				break;
+			case STROKE_WEIGHT:
+				g.strokeWeight(f[ni++]);
+				break;
+			case STROKE_CAP:
+				g.strokeCap(code[ci++]);
+				break;
+			case STROKE_JOIN:
+				g.strokeJoin(code[ci++]);
+				break;
+			case RECT_MODE:
+				g.rectMode(code[ci++]);
+				break;
+			case ELLIPSE_MODE:
+				g.ellipseMode(code[ci++]);
+				break;
+			case IMAGE_MODE:
+				g.imageMode(code[ci++]);
+				break;
+			case BLEND_MODE:
+				g.blendMode(code[ci++]);
+				break;
+			case PUSH_STYLE:
+				g.pushStyle();
+				break;
+			case POP_STYLE:
+				g.popStyle();
+				break;
+
+			case TEXT_ALIGN:
+				g.textAlign(code[ci++]);
+				break;
+			case TEXT_ALIGN_XY:
+				g.textAlign(code[ci], code[ci + 1]);
+				ci += 2;
+				break;
+			case TEXT_SIZE:
+				g.textSize(f[ni++]);
+				break;
+			case TEXT_LEADING:
+				g.textLeading(f[ni++]);
+				break;
+			case TEXT_FONT:
+				g.textFont((PFont) refs[ri++]);
+				break;
+			case TEXT_FONT_SIZE:
+				g.textFont((PFont) refs[ri++], f[ni++]);
+				break;
+			case TEXT_MODE:
+				g.textMode(code[ci++]);
+				break;
+			case TEXT:
+				g.text((String) refs[ri++], f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case TEXT_BOX:
+				g.text((String) refs[ri++], f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case TEXT_CHAR:
+				g.text((char) code[ci++], f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+
+			case POINT:
+				g.point(f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case LINE:
+				g.line(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case TRIANGLE:
+				g.triangle(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5]);
+				ni += 6;
+				break;
+			case QUAD:
+				g.quad(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5], f[ni + 6], f[ni + 7]);
+				ni += 8;
+				break;
+			case RECT:
+				g.rect(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case ROUNDED_RECT:
+				g.rect(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4]);
+				ni += 5;
+				break;
+			case ROUNDED_RECT_4:
+				g.rect(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5], f[ni + 6], f[ni + 7]);
+				ni += 8;
+				break;
+			case ELLIPSE:
+				g.ellipse(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case ARC:
+				g.arc(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5]);
+				ni += 6;
+				break;
+			case ARC_MODE:
+				g.arc(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5], code[ci++]);
+				ni += 6;
+				break;
+			case IMAGE:
+				g.image((PImage) refs[ri++], f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case IMAGE_SIZE:
+				g.image((PImage) refs[ri++], f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case IMAGE_REGION:
+				g.image((PImage) refs[ri++], f[ni], f[ni + 1], f[ni + 2], f[ni + 3], code[ci], code[ci + 1], code[ci + 2], code[ci + 3]);
+				ni += 4;
+				ci += 4;
+				break;
+
+			case BEGIN_SHAPE:
+				g.beginShape();
+				break;
+			case BEGIN_SHAPE_KIND:
+				g.beginShape(code[ci++]);
+				break;
+			case VERTEX:
+				g.vertex(f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case VERTEX_UV:
+				g.vertex(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case BEZIER_VERTEX:
+				g.bezierVertex(f[ni], f[ni + 1], f[ni + 2], f[ni + 3], f[ni + 4], f[ni + 5]);
+				ni += 6;
+				break;
+			case QUADRATIC_VERTEX:
+				g.quadraticVertex(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case CURVE_VERTEX:
+				g.curveVertex(f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case BEGIN_CONTOUR:
+				g.beginContour();
+				break;
+			case END_CONTOUR:
+				g.endContour();
+				break;
+			case END_SHAPE:
+				g.endShape();
+				break;
+			case END_SHAPE_MODE:
+				g.endShape(code[ci++]);
+				break;
+
+			case PUSH_MATRIX:
+				g.pushMatrix();
+				break;
+			case POP_MATRIX:
+				g.popMatrix();
+				break;
+			case TRANSLATE:
+				g.translate(f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case ROTATE:
+				g.rotate(f[ni++]);
+				break;
+			case SCALE:
+				g.scale(f[ni++]);
+				break;
+			case SCALE_XY:
+				g.scale(f[ni], f[ni + 1]);
+				ni += 2;
+				break;
+			case SHEAR_X:
+				g.shearX(f[ni++]);
+				break;
+			case SHEAR_Y:
+				g.shearY(f[ni++]);
+				break;
+			case CLIP:
+				g.clip(f[ni], f[ni + 1], f[ni + 2], f[ni + 3]);
+				ni += 4;
+				break;
+			case NO_CLIP:
+				g.noClip();
+				break;
+			}
+		}
+	}
+
+	/*
+	 * fill(int) would interpret small values without alpha as gray.
+	 */
+	private static void fill(PGraphics g, int c) {
+		if ((c & 0xFF000000) != 0) {
+			g.fill(c);
+		} else {
+			g.fill((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF, 0);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package guiSET.core;
+
+
+/*
+ * Offsets of a row of items (i.e. the items of a VScrollContainer) as Fenwick
+ * tree over their extents. Changing the extent of one item, getting the offset
+ * of an item and finding the item at a position take O(log n), so that
+ * scrolling containers only need to visit the items in view.
+ *
+ * Inserting or removing items requires a rebuild in O(n) with put() and
+ * build().
+ */
+class ExtentIndex {
+
+	private int[] extents = new int[0];
+	private int[] tree = new int[1]; // 1-based, tree[i] holds the sum of extents (i - (i & -i), i]
+	private int size = 0;
+
+	/*
+	 * Clear the index and resize it to given number of items. Fill it with put()
+	 * and call build() afterwards.
+	 */
+	void resize(int size) {
+		if (extents.length < size || extents.length > 2 * size + 16) {
+			extents = new int[size];
+			tree = new int[size + 1];
+		}
+		this.size = size;
+	}
+
+	void put(int index, int extent) {
+		extents[index] = extent;
+	}
+
+	void build() {
+		for (int i = 1; i <= size; i++) {
+			tree[i] = extents[i - 1];
+		}
+		for (int i = 1; i <= size; i++) {
+			int parent = i + (i & -i);
+			if (parent <= size) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/*
+	 * Change the extent of one item.
+	 */
+	void set(int index, int extent) {
+		int delta = extent - extents[index];
+		if (delta == 0)
+			return;
+		extents[index] = extent;
+		for (int i = index + 1; i <= size; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	int get(int index) {
+		return extents[index];
+	}
+
+	/*
+	 * Sum of the extents of the first count items, i.e. the offset of item count.
+	 */
+	int offset(int count) {
+		int sum = 0;
+		for (int i = count; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	int total() {
+		return offset(size);
+	}
+
+	/*
+	 * Index of the first item that ends at or after given position (size if there
+	 * is none). Requires non-negative extents.
+	 */
+	int find(int position) {
+		int index = 0;
+		int rest = position;
+		for (int step = Integer.highestOneBit(Math.max(1, size)); step > 0; step >>= 1) {
+			if (index + step <= size && tree[index + step] < rest) {
+				index += step;
+				rest -= tree[index];
+			}
+		}
+		return index;
+	}
+
+	int size() {
+		return size;
+	}
+}
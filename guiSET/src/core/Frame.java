@@ -32,12 +32,13 @@ import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.lang.reflect.InvocationTargetException;
 
 import com.jogamp.newt.event.WindowEvent;
 import com.jogamp.newt.opengl.GLWindow;
-import java.lang.reflect.Field;
 
 /**
  * 
@@ -183,11 +184,14 @@ public class Frame extends Container {
 		// if static Frame has been a nullFrame (not yet initialized correctly with
 		// papplet) set this the new frame0
 		if (frame0.isNullFrame) {
+			renderingPolicy = frame0.renderingPolicy; // elements might have been created before the Frame
 			frame0 = this;
 			isNullFrame = false;
 		}
 
 		this.papplet = pa;
+		idleGovernor.setPApplet(pa);
+		displayThread = Thread.currentThread(); // setup() runs on the animation thread
 
 
 
@@ -199,6 +203,8 @@ public class Frame extends Container {
 		animations = new ArrayList<Animation>();
 
 		TextBased.init_text();
+		renderContext.setTextGraphics(TextBased.textInfo_graphics); // the animation thread shares the global one
+		graphicsPool.createDefaultStyle(); // before any element renders, maybe concurrently
 
 		protectedFrame = new Protected_Frame(timeToDraw); // register pre(), mouseEvent() and keyEvent() methods
 
@@ -281,16 +287,179 @@ public class Frame extends Container {
 
 		}
 
-		try {
-			pappletsRedrawField = PApplet.class.getDeclaredField("redraw");
-			pappletsRedrawField.setAccessible(true);
-		} catch (NoSuchFieldException | SecurityException e) {
-			e.printStackTrace();
-		}
+	}
+
+
+
+	/*
+	 * Offscreen buffers of all buffered elements are taken from here.
+	 */
+	private GraphicsPool graphicsPool = new GraphicsPool();
+
+	/**
+	 * Get the pool that provides the offscreen buffers for all buffered elements. It can be used to
+	 * limit the memory held by unused buffers and to check its hit/miss counters.
+	 * 
+	 * @return the graphics pool
+	 */
+	public GraphicsPool getGraphicsPool() {
+		return graphicsPool;
+	}
+
+	// the frame is copied to the window every frame, its buffer has the size of the window
+	@Override
+	boolean usesPooledBuffer() {
+		return false;
+	}
+
+
+
+	/*
+	 * Render changed buffered elements concurrently.
+	 */
+	private boolean parallelRendering = false;
+
+	/**
+	 * Render buffered elements that changed in the same frame concurrently on the common ForkJoin pool.
+	 * They are projected in the right order afterwards. This only pays off if several large buffered
+	 * elements change at once and only works with the default (Java2D) renderer.
+	 * 
+	 * Changes the elements make while rendering are applied on the animation thread afterwards.
+	 * Elements with a font that has no native font (i.e. from loadFont()) are always rendered on the
+	 * animation thread, as their shared glyph images are drawn. render() of own elements must not
+	 * access other shared state (i.e. a PImage that is also drawn by other elements) without
+	 * synchronization, else override canRenderConcurrently() to return false.
+	 * 
+	 * @param parallelRendering true to enable
+	 */
+	public void setParallelRendering(boolean parallelRendering) {
+		this.parallelRendering = parallelRendering;
+	}
+
+	public boolean isParallelRendering() {
+		return parallelRendering;
+	}
+
+
+
+	/*
+	 * Chooses between buffered and unbuffered rendering for elements with AUTOMATIC_RENDERING.
+	 */
+	private RenderingPolicy renderingPolicy = new RenderingPolicy();
+
+	/**
+	 * Get the policy that chooses the rendering method of all elements that use
+	 * {@link Control#AUTOMATIC_RENDERING}. Its decisions can be audited with
+	 * {@link RenderingPolicy#getDecisions()}.
+	 * 
+	 * @return rendering policy
+	 */
+	public RenderingPolicy getRenderingPolicy() {
+		return renderingPolicy;
+	}
+
+
+
+	/*
+	 * Reduces the frame rate of the sketch while nothing happens in EFFICIENT mode.
+	 */
+	private IdleGovernor idleGovernor = new IdleGovernor();
+
+	// thread that calls display(), changes from other threads wake up the idle governor
+	private volatile Thread displayThread;
+
+	/**
+	 * Get the governor that reduces the frame rate of the sketch while the GUI is idle in
+	 * {@link #EFFICIENT} mode. It is disabled by default.
+	 * 
+	 * @return idle governor
+	 */
+	public IdleGovernor getIdleGovernor() {
+		return idleGovernor;
+	}
+
 
+
+	private Profiler profiler = new Profiler();
+
+	/**
+	 * Get the profiler that records render times, invalidations and buffer allocations of all
+	 * elements per frame and can show them in an overlay. It is disabled by default.
+	 * 
+	 * @return profiler
+	 */
+	public Profiler getProfiler() {
+		return profiler;
+	}
+
+
+
+	private InvalidationTracer invalidationTracer = new InvalidationTracer();
+
+	/**
+	 * Get the tracer that records which elements are invalidated (i.e. by {@link Control#update()})
+	 * in many consecutive frames and by whom. It is disabled by default.
+	 * 
+	 * @return invalidation tracer
+	 */
+	public InvalidationTracer getInvalidationTracer() {
+		return invalidationTracer;
+	}
+
+
+
+	private FrameStatistics statistics = new FrameStatistics(this, "Frame");
+
+	/**
+	 * Get the statistics of this Frame (frame times, dirty frames, animations, buffer memory,
+	 * listener invocations and event latency). When enabled they are registered as MBean and can be
+	 * written to a sink periodically. They are disabled by default.
+	 * 
+	 * @return statistics
+	 */
+	public FrameStatistics getStatistics() {
+		return statistics;
+	}
+
+
+
+	/*
+	 * Shared pages for small buffered elements, null if atlas mode is disabled.
+	 */
+	private GraphicsAtlas atlas;
+
+	GraphicsAtlas getAtlas() {
+		return atlas;
 	}
 
-	private Field pappletsRedrawField;
+	/**
+	 * In atlas mode, small buffered elements (that are not containers) don't get an own buffer but
+	 * share a few large pages. This saves memory and speeds up projecting them onto their parents
+	 * when there are many of them. Default: false.
+	 * 
+	 * @param atlasMode enable atlas mode
+	 */
+	public void setAtlasMode(boolean atlasMode) {
+		if (atlasMode == (atlas != null))
+			return;
+
+		releaseBuffers(); // all buffered elements get their new storage when rendered the next time
+		atlas = atlasMode ? new GraphicsAtlas() : null;
+		update();
+	}
+
+	public boolean isAtlasMode() {
+		return atlas != null;
+	}
+
+	/**
+	 * Get the number of pages currently used in atlas mode.
+	 * 
+	 * @return number of atlas pages
+	 */
+	public int getAtlasPageCount() {
+		return atlas == null ? 0 : atlas.getPageCount();
+	}
 
 
 	// A protected inner frame that users cannot access so keyEvent, mouseEvent, pre
@@ -317,12 +486,14 @@ public class Frame extends Container {
 		protected void registerPost() {
 			if (!postRegistered) {
 				papplet.registerMethod("post", this);
+				postRegistered = true;
 			}
 		}
 
 		protected void deregisterPost() {
 			if (postRegistered) {
 				papplet.unregisterMethod("post", this);
+				postRegistered = false;
 			}
 		}
 
@@ -335,19 +506,37 @@ public class Frame extends Container {
 		}
 
 		public void post() {
-			// Used in RefreshMode.NO_LOOP to schedule another redraw.
-			if (refreshAgain) {
-				getPApplet().redraw();
-				refreshAgain = false;
+			// Used in RefreshMode.NO_LOOP to schedule another redraw. PApplet resets its redraw
+			// flag after draw(), so changes during drawing (or after the Frame has been displayed)
+			// need another one. Running animations need a redraw for their next step.
+			if (dirty || !animations.isEmpty()) {
+				papplet.redraw();
 			}
 		}
 
 		public void mouseEvent(MouseEvent e) {
-			Frame.this.mouseEvent(e);
+			idleGovernor.wakeUp();
+			Profiler p = Profiler.active;
+			if (p != null) {
+				long t0 = System.nanoTime();
+				Frame.this.mouseEvent(e);
+				p.mouseEventHandled(System.nanoTime() - t0);
+			} else {
+				Frame.this.mouseEvent(e);
+			}
+			FrameStatistics s = FrameStatistics.active;
+			if (s != null) {
+				s.eventHandled(e.getMillis());
+			}
 		}
 
 		public void keyEvent(KeyEvent e) {
+			idleGovernor.wakeUp();
 			Frame.this.keyEvent(e);
+			FrameStatistics s = FrameStatistics.active;
+			if (s != null) {
+				s.eventHandled(e.getMillis());
+			}
 		}
 	}
 
@@ -368,10 +557,9 @@ public class Frame extends Container {
 	 * This way the gui itself will always be visible and not overdrawn in strange
 	 * manners. It is the most inefficient mode but not by far.
 	 *
-	 * - no_loop is an experiment that shuts off the looping altogether. The
-	 * draw()-method is only called when the gui changed due to any events. Still
-	 * that leads to problems with resizing the window and details such as the
-	 * cursor animation with textboxes.
+	 * - no_loop shuts off the looping altogether. The draw()-method is only called 
+	 * when the gui changed due to any events, when an animation is running or when
+	 * a scheduled task (i.e. the cursor blinking of textboxes) gets due. 
 	 */
 
 	public enum RefreshMode {
@@ -397,8 +585,9 @@ public class Frame extends Container {
 
 
 	/**
-	 * Most efficient mode. The {@link PApplet#draw()} loop is interrupted and only key and mouse events
-	 * are still received and can change the state of the GUI. Animation timing is not as good.
+	 * Most efficient mode. The {@link PApplet#draw()} loop is interrupted and the sketch is only
+	 * redrawn when the GUI changed through events, while animations are running and when timed
+	 * effects like the cursor blinking of textboxes are due.
 	 */
 	public static final RefreshMode NO_LOOP = RefreshMode.NO_LOOP;
 
@@ -421,6 +610,10 @@ public class Frame extends Container {
 			papplet.loop();
 			protectedFrame.deregisterPost();
 		}
+		if (mode != RefreshMode.EFFICIENT) {
+			idleGovernor.restore();
+		}
+		scheduler.setWakeupsEnabled(mode == RefreshMode.NO_LOOP);
 	}
 
 	public RefreshMode getRefreshMode() {
@@ -430,43 +623,213 @@ public class Frame extends Container {
 
 
 	/*
-	 * When RefreshMode is NO_LOOP, a call to redraw usually enables refreshing the gui.
-	 * During drawing however, redraw() will do nothing as the redraw flag in PApplet 
-	 * is only reset after drawing. Therefore Frame.update() will set this flag to true 
-	 * when called during drawing. The post() method will check it and if the flag is 
-	 * set, will schedule another redraw. 
-	 * 
-	 * This issue also occurs randomly when calling redraw() outside of the drawing process. 
-	 * Therefore, the PApplets redraw flag is checked. If it is false but the Frame just got 
-	 * dirty in this call of update() we know there is something wrong: PApplets redraw flag 
-	 * should be false. Anyway, we just refresh again.     
+	 * Delayed tasks of controls (cursor blinking, menu hover delays). They are run
+	 * at the beginning of display(). In NO_LOOP mode the scheduler requests a
+	 * redraw when the next task gets due. 
 	 */
-	private boolean refreshAgain = false;
+	private Scheduler scheduler = new Scheduler(() -> papplet.redraw());
 
+	Scheduler getScheduler() {
+		return scheduler;
+	}
 
 
-	@Override
-	protected void update() {
 
-		if (refreshMode == NO_LOOP) {
-			try {
-				// No other way to access this. But we are in NO_LOOP mode and performance is not a real issue.
-				// When update is called very often very quick, this is evaluated much faster anyway due to
-				// optimization.
-				boolean redraw = (boolean) pappletsRedrawField.get(papplet);
-				if (redraw && !dirty) { // PApplets redraw is already set to true but that's old news, as the Frame got dirty just now.
-					refreshAgain = true;
-				}
-			} catch (IllegalArgumentException | IllegalAccessException e) { // will (should) not happen
-				e.printStackTrace();
+	/*
+	 * Parts of the Frame that changed since the last rendering. Only these parts are
+	 * re-rendered and projected onto the sketch if possible. 
+	 */
+	private DamageRegion damageRegion = new DamageRegion(8);
+
+
+	@Override
+	protected void invalidatePaint() {
+		if (batchDepth > 0 && Thread.currentThread() == displayThread) {
+			batchInvalidated = true; // repaint once at the end of the batch
+			return;
+		}
+		InvalidationTracer tracer = InvalidationTracer.active;
+		if (tracer != null) {
+			tracer.enter(this);
+		}
+		try {
+			damageRegion.setFull();
+			requestRedraw();
+		} finally {
+			if (tracer != null) {
+				tracer.exit();
 			}
-			papplet.redraw(); // Call redraw upon sketch when changed occured
+		}
+	}
+
+	@Override
+	protected void childDamaged(int x0, int y0, int x1, int y1) {
+		damageRegion.setBounds(getWidth(), getHeight());
+		damageRegion.add(x0, y0, x1, y1);
+		requestRedraw();
+	}
 
+	private void requestRedraw() {
+		if (refreshMode == NO_LOOP && !dirty) {
+			// Call redraw upon sketch when changed occured. If this happens while drawing, the request
+			// is lost but post() will see that the Frame is still dirty and redraw again.
+			papplet.redraw();
+		}
+		if (idleGovernor.isIdle() && Thread.currentThread() != displayThread) {
+			idleGovernor.wakeUp(); // changes on the drawing thread are noticed by display()
 		}
 		dirty = true;
 	}
 
 
+
+	/*
+	 * Batched updates: while a batch is open, controls that change are only
+	 * marked dirty and collected here instead of notifying all their parents
+	 * each time. At the end of the outermost batch each control passes its
+	 * damage on to its parents once, so only the changed parts are repainted.
+	 * Layout is done lazily in the next render anyway.
+	 *
+	 * Batches only exist on the animation thread. Changes from other threads are
+	 * never collected and the batch fields are only touched by that thread.
+	 */
+	private int batchDepth = 0;
+	private ArrayList<Control> batchedControls = new ArrayList<Control>();
+	private boolean batchInvalidated = false;
+
+	/**
+	 * Start a batch of changes. Until the matching {@link #endUpdate()}, changes of elements are
+	 * collected and only applied (repainted) once at the end. Batches can be nested. Prefer
+	 * {@link #batch(Runnable)} which also handles exceptions. Only works on the animation thread (i.e.
+	 * in setup(), draw() or event handlers).
+	 */
+	public void beginUpdate() {
+		if (Thread.currentThread() != displayThread) {
+			System.err.println("guiSET: beginUpdate() can only be called on the animation thread");
+			return;
+		}
+		batchDepth++;
+	}
+
+	/**
+	 * End a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, all
+	 * changed elements are repainted at once.
+	 */
+	public void endUpdate() {
+		if (Thread.currentThread() != displayThread) {
+			return; // see beginUpdate()
+		}
+		if (batchDepth == 0) {
+			System.err.println("guiSET: endUpdate() called without matching beginUpdate()");
+			return;
+		}
+		if (--batchDepth == 0) {
+			flushBatch();
+		}
+	}
+
+	/**
+	 * Apply a number of changes (i.e. building or restyling a large part of the gui) as one batch.
+	 * The changed elements are repainted once at the end, even if an exception is thrown. Called from
+	 * another thread than the animation thread, the changes are applied without batching.
+	 * 
+	 * <pre>
+	 * {@code frame.batch(() -> {
+	 *     for (int i = 0; i < 1000; i++)
+	 *         listView.add("item " + i);
+	 * });}
+	 * </pre>
+	 * 
+	 * @param changes changes to apply
+	 */
+	public void batch(Runnable changes) {
+		if (Thread.currentThread() != displayThread) {
+			changes.run();
+			return;
+		}
+		beginUpdate();
+		try {
+			changes.run();
+		} finally {
+			endUpdate();
+		}
+	}
+
+	/**
+	 * @return true if a batch of changes is currently open
+	 */
+	public boolean isUpdating() {
+		return batchDepth > 0 && Thread.currentThread() == displayThread;
+	}
+
+	/*
+	 * While buffered elements render concurrently (see Container.prerenderItems()),
+	 * invalidations must not walk up to the parents they share. They are queued
+	 * and replayed on the animation thread when all of them finished.
+	 */
+	private final AtomicInteger concurrentRendering = new AtomicInteger();
+	private final ConcurrentLinkedQueue<Runnable> concurrentInvalidations = new ConcurrentLinkedQueue<Runnable>();
+
+	// nested by containers that are rendered concurrently themselves
+	void beginConcurrentRendering() {
+		concurrentRendering.incrementAndGet();
+	}
+
+	// the outermost call is on the animation thread
+	void endConcurrentRendering() {
+		if (concurrentRendering.decrementAndGet() == 0) {
+			Runnable invalidation;
+			while ((invalidation = concurrentInvalidations.poll()) != null) {
+				invalidation.run();
+			}
+		}
+	}
+
+	/*
+	 * Called by controls that changed. Returns false if elements aren't rendered
+	 * concurrently right now and the control can go on with the invalidation.
+	 */
+	boolean deferConcurrentInvalidation(Control control, boolean layout) {
+		if (concurrentRendering.get() == 0)
+			return false;
+		concurrentInvalidations.add(layout ? control::invalidateLayout : control::invalidatePaint);
+		return true;
+	}
+
+	/*
+	 * Called by controls that changed. Returns false if no batch is open and the
+	 * control needs to notify its parents itself.
+	 */
+	boolean deferInvalidation(Control control) {
+		if (batchDepth == 0 || Thread.currentThread() != displayThread)
+			return false;
+		if (!control.batched) {
+			control.batched = true;
+			batchedControls.add(control);
+		}
+		return true;
+	}
+
+	private void flushBatch() {
+		ArrayList<Control> controls = batchedControls;
+		batchedControls = new ArrayList<Control>();
+		for (Control c : controls) {
+			c.batched = false;
+		}
+
+		// Each changed control damages its own area in the parents (or the whole
+		// parent if its layout changed), just like without a batch.
+		for (Control c : controls) {
+			c.invalidateParent();
+		}
+		if (batchInvalidated) {
+			batchInvalidated = false;
+			damageRegion.setFull();
+			requestRedraw();
+		}
+	}
+
+
 	@Override
 	protected void initialize() {
 		initializationState = InitializationState.INITIALIZING;
@@ -488,16 +851,32 @@ public class Frame extends Container {
 	/**
 	 * Called each draw loop
 	 */
-	private void display() {
+	void display() {
 		if (initializationState == InitializationState.NOT_INITIALIZED) {
 			initialize();	// recursive procedure going through all elements connected to Frame
 		}
 
+		displayThread = Thread.currentThread();
+		FrameStatistics s = FrameStatistics.active;
+		long frameStart = s != null ? System.nanoTime() : 0;
+		Profiler p = Profiler.active;
+		if (p != null) {
+			p.beginFrame();
+		}
+
+		// Changes of scheduled tasks (i.e. the blinking cursor) don't keep the sketch from
+		// going idle, they are shown at the reduced frame rate.
+		boolean active = dirty || !animations.isEmpty();
+
+		scheduler.runDue(); // before rendering so that changes of due tasks are shown now
+		boolean dirtyFrame = dirty && isVisible();
+
 		/*
 		 * re-render if graphics have been changed
 		 */
 		if (isVisible()) {
 			render();
+			renderingPolicy.frameRendered();
 		}
 
 		/*
@@ -508,37 +887,101 @@ public class Frame extends Container {
 				animations.remove(i);
 			}
 		}
+
+		if (refreshMode == EFFICIENT) {
+			idleGovernor.frameDisplayed(active);
+		}
+
+		if (p != null) {
+			p.endFrame();
+			if (p.isOverlayEnabled() && isVisible()) {
+				// the overlay changes each frame, so the gui below needs to be drawn again
+				if (refreshMode != CONTINOUS) {
+					drawBuffer(papplet.g, 0, 0);
+				}
+				p.drawOverlay(papplet.g, getWidth(), getHeight());
+			}
+		}
+
+		InvalidationTracer tracer = InvalidationTracer.active;
+		if (tracer != null) {
+			tracer.frameEnded();
+		}
+
+		if (s != null) {
+			s.frameDisplayed(System.nanoTime() - frameStart, dirtyFrame, animations);
+		}
 	}
 
 
 
 	@Override
 	protected void render() {
+		renderContext = RenderContext.forCurrentThread();
 		if (dirty) {
-			clipX0 = 0;
-			clipY0 = 0;
-			clipX1 = getWidth();
-			clipY1 = getHeight();
+			Profiler p = Profiler.active;
+			boolean sampled = p != null && p.beginSample(this, 0, 0);
 			dirty = false;
+			damageRegion.setBounds(getWidth(), getHeight());
+			int[] damagedRects = damageRegion.takeRects(); // null if everything needs to be rendered
+
+			if (damagedRects == null || !canRenderPartially()) {
+				renderContext.setClip(0, 0, getWidth(), getHeight());
 
-			preRender(); 		// for frame
-			super.render();		// render everything
-			pg.endDraw();
-			// System.out.println((System.nanoTime() - t0));
+				preRender(); 		// for frame
+				prerenderItems();
+				super.render();		// render everything
+				pg.endDraw();
+				// System.out.println((System.nanoTime() - t0));
 
-			if (refreshMode == EFFICIENT || refreshMode == NO_LOOP) {
-				papplet.image(pg, 0, 0);
+				if (refreshMode == EFFICIENT || refreshMode == NO_LOOP) {
+					drawBuffer(papplet.g, 0, 0);
+				}
+			} else if (damagedRects.length > 0) {
+				pg.beginDraw(); // no clearing, the background paints over the damaged parts
+				prerenderItems();
+
+				// render everything but clipped to each damaged rectangle. Buffered elements
+				// are only rendered in the first pass, afterwards they are not dirty anymore.
+				for (int i = 0; i < damagedRects.length; i += 4) {
+					renderContext.setClip(damagedRects[i], damagedRects[i + 1], damagedRects[i + 2], damagedRects[i + 3]);
+					renderContext.applyClip(pg);
+					super.render();
+				}
+				pg.noClip();
+				pg.endDraw();
+
+				if (refreshMode == EFFICIENT || refreshMode == NO_LOOP) {
+					for (int i = 0; i < damagedRects.length; i += 4) {
+						int x0 = damagedRects[i], y0 = damagedRects[i + 1], x1 = damagedRects[i + 2], y1 = damagedRects[i + 3];
+						papplet.image(pg, x0, y0, x1 - x0, y1 - y0, x0, y0, x1, y1);
+					}
+				}
+			}
+			if (sampled) {
+				p.endSample();
 			}
 		}
 
 		// project graphics onto papplet
 		if (refreshMode == CONTINOUS) {
-			papplet.image(pg, 0, 0);
+			drawBuffer(papplet.g, 0, 0);
 		}
 	}
 
 
 
+	/*
+	 * The previous content of the Frames graphics can only be kept if the background
+	 * paints over it completely (clear() would ignore the clip). 
+	 */
+	private boolean canRenderPartially() {
+		return pg != null && pWidth == getWidth() && pHeight == getHeight() && getImage() == null && getBorderRadius() == 0
+				&& (visualBackgroundColor >>> 24) == 255;
+	}
+
+
+
 	protected void resized(int w, int h) {
 
 		// always resize frame to window size
@@ -0,0 +1,338 @@
+package guiSET.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * Statistics of a {@link Frame} for watching long running sketches: frame times, the ratio of
+ * frames in which something had to be rendered, running animations, memory held by buffers, listener
+ * invocations and the latency of mouse and key events.
+ * 
+ * The statistics are collected when enabled. The Frame then also registers them as MBean (see
+ * {@link FrameStatisticsMBean}) and they can be written periodically to a {@link Sink}, for
+ * example a {@link FileSink}.
+ * 
+ * Get the statistics with {@link Frame#getStatistics()}.
+ */
+public class FrameStatistics implements FrameStatisticsMBean {
+
+	/**
+	 * Receives the statistics periodically (on the drawing thread).
+	 */
+	public interface Sink {
+		void publish(FrameStatistics statistics);
+	}
+
+	/**
+	 * Sink that appends one line with all statistics to a file each time.
+	 */
+	public static class FileSink implements Sink {
+		private final String path;
+
+		public FileSink(String path) {
+			this.path = path;
+		}
+
+		@Override
+		public void publish(FrameStatistics statistics) {
+			try (PrintWriter out = new PrintWriter(new FileWriter(path, true))) {
+				out.println(System.currentTimeMillis() + " " + statistics);
+			} catch (IOException e) {
+				System.err.println("guiSET: could not write statistics to " + path + ": " + e.getMessage());
+			}
+		}
+	}
+
+
+
+	// upper bounds of the frame time buckets in ms, the last bucket takes all slower frames
+	private static final double[] BUCKETS = { 1, 2, 4, 8, 16, 33, 50, 100 };
+
+	/*
+	 * The statistics of the Frame if they are enabled, otherwise null. Read by
+	 * the instrumented code.
+	 */
+	static volatile FrameStatistics active;
+
+	private final Frame frame;
+	private final String name;
+	private ObjectName objectName;
+	private boolean enabled = false;
+
+	private long frames = 0;
+	private long dirtyFrames = 0;
+	private long totalFrameTime = 0;
+	private long maxFrameTime = 0;
+	private long[] histogram = new long[BUCKETS.length + 1];
+	private String[] animations = new String[0];
+
+	private final AtomicLong listenerInvocations = new AtomicLong();
+	private long events = 0;
+	private double totalEventLatency = 0;
+	private double maxEventLatency = 0;
+
+	// rates are measured over the last rate interval
+	private static final long RATE_INTERVAL = 1000;
+	private long rateStart = System.currentTimeMillis();
+	private long rateListenerInvocations = 0, rateEvents = 0;
+	private double listenerInvocationRate = 0, eventRate = 0;
+
+	private Sink sink;
+	private long sinkInterval;
+	private long lastPublished;
+
+	FrameStatistics(Frame frame, String name) {
+		this.frame = frame;
+		this.name = name;
+	}
+
+	/**
+	 * Start or stop collecting. When enabled, the statistics are registered with the platform
+	 * MBeanServer. Default: false.
+	 * 
+	 * @param enabled enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		if (enabled == this.enabled)
+			return;
+		this.enabled = enabled;
+		active = enabled ? this : (active == this ? null : active);
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (enabled) {
+				objectName = new ObjectName("guiSET:type=FrameStatistics,name=" + ObjectName.quote(name));
+				if (!server.isRegistered(objectName)) {
+					server.registerMBean(this, objectName);
+				}
+			} else if (objectName != null && server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			System.err.println("guiSET: could not register frame statistics as MBean: " + e.getMessage());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Publish the statistics to a sink every interval milliseconds.
+	 * 
+	 * @param sink     sink, null to remove
+	 * @param interval interval in milliseconds
+	 */
+	public void setSink(Sink sink, int interval) {
+		this.sink = sink;
+		this.sinkInterval = Math.max(1, interval);
+		this.lastPublished = System.currentTimeMillis();
+	}
+
+
+
+	/*
+	 * RECORDING
+	 */
+
+	// called by Frame after each display()
+	void frameDisplayed(long frameTime, boolean dirty, ArrayList<Animation> running) {
+		synchronized (this) {
+			frames++;
+			if (dirty) {
+				dirtyFrames++;
+			}
+			totalFrameTime += frameTime;
+			maxFrameTime = Math.max(maxFrameTime, frameTime);
+			double ms = frameTime / 1e6;
+			int bucket = 0;
+			while (bucket < BUCKETS.length && ms > BUCKETS[bucket]) {
+				bucket++;
+			}
+			histogram[bucket]++;
+
+			if (running.size() != animations.length || !running.isEmpty()) {
+				String[] a = new String[running.size()];
+				for (int i = 0; i < a.length; i++) {
+					a[i] = running.get(i).toString();
+				}
+				animations = a;
+			}
+
+			long now = System.currentTimeMillis();
+			if (now - rateStart >= RATE_INTERVAL) {
+				long invocations = listenerInvocations.get();
+				listenerInvocationRate = (invocations - rateListenerInvocations) * 1000.0 / (now - rateStart);
+				eventRate = (events - rateEvents) * 1000.0 / (now - rateStart);
+				rateListenerInvocations = invocations;
+				rateEvents = events;
+				rateStart = now;
+			}
+		}
+
+		if (sink != null && System.currentTimeMillis() - lastPublished >= sinkInterval) {
+			lastPublished = System.currentTimeMillis();
+			sink.publish(this);
+		}
+	}
+
+	void listenerInvoked() {
+		listenerInvocations.incrementAndGet();
+	}
+
+	// latency from the creation of the event until it has been handled
+	synchronized void eventHandled(long eventMillis) {
+		double latency = Math.max(0, System.currentTimeMillis() - eventMillis);
+		events++;
+		totalEventLatency += latency;
+		maxEventLatency = Math.max(maxEventLatency, latency);
+	}
+
+
+
+	/*
+	 * MBEAN
+	 */
+
+	@Override
+	public synchronized long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * @return number of frames in which something has been rendered
+	 */
+	@Override
+	public synchronized long getDirtyFrames() {
+		return dirtyFrames;
+	}
+
+	@Override
+	public synchronized double getDirtyFrameRatio() {
+		return frames == 0 ? 0 : dirtyFrames / (double) frames;
+	}
+
+	@Override
+	public synchronized double getAverageFrameTime() {
+		return frames == 0 ? 0 : totalFrameTime / 1e6 / frames;
+	}
+
+	@Override
+	public synchronized double getMaxFrameTime() {
+		return maxFrameTime / 1e6;
+	}
+
+	@Override
+	public String[] getFrameTimeHistogramBuckets() {
+		String[] names = new String[BUCKETS.length + 1];
+		for (int i = 0; i < BUCKETS.length; i++) {
+			names[i] = "<=" + BUCKETS[i] + "ms";
+		}
+		names[BUCKETS.length] = ">" + BUCKETS[BUCKETS.length - 1] + "ms";
+		return names;
+	}
+
+	/**
+	 * @return number of frames per frame time bucket (see {@link #getFrameTimeHistogramBuckets()})
+	 */
+	@Override
+	public synchronized long[] getFrameTimeHistogram() {
+		return histogram.clone();
+	}
+
+	@Override
+	public synchronized int getRunningAnimations() {
+		return animations.length;
+	}
+
+	@Override
+	public synchronized String[] getAnimations() {
+		return animations.clone();
+	}
+
+	/**
+	 * @return bytes of the buffers currently used by buffered elements
+	 */
+	@Override
+	public long getBufferBytes() {
+		return frame.getGraphicsPool().getBytesInUse();
+	}
+
+	/**
+	 * @return bytes of unused buffers kept for reuse
+	 */
+	@Override
+	public long getPooledBufferBytes() {
+		return frame.getGraphicsPool().getPooledBytes();
+	}
+
+	@Override
+	public long getListenerInvocations() {
+		return listenerInvocations.get();
+	}
+
+	/**
+	 * @return listener invocations per second during the last second
+	 */
+	@Override
+	public synchronized double getListenerInvocationRate() {
+		return listenerInvocationRate;
+	}
+
+	/**
+	 * @return number of handled mouse and key events
+	 */
+	@Override
+	public synchronized long getEvents() {
+		return events;
+	}
+
+	@Override
+	public synchronized double getEventRate() {
+		return eventRate;
+	}
+
+	@Override
+	public synchronized double getAverageEventLatency() {
+		return events == 0 ? 0 : totalEventLatency / events;
+	}
+
+	@Override
+	public synchronized double getMaxEventLatency() {
+		return maxEventLatency;
+	}
+
+	@Override
+	public synchronized void reset() {
+		frames = dirtyFrames = totalFrameTime = maxFrameTime = 0;
+		histogram = new long[BUCKETS.length + 1];
+		listenerInvocations.set(0);
+		events = 0;
+		totalEventLatency = maxEventLatency = 0;
+		rateListenerInvocations = rateEvents = 0;
+		rateStart = System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT,
+				"frames=%d dirtyFrameRatio=%.3f avgFrameTime=%.3f maxFrameTime=%.3f animations=%d bufferBytes=%d pooledBufferBytes=%d listenerInvocations=%d listenerRate=%.1f events=%d eventRate=%.1f avgEventLatency=%.2f maxEventLatency=%.2f",
+				frames, getDirtyFrameRatio(), getAverageFrameTime(), getMaxFrameTime(), animations.length, getBufferBytes(), getPooledBufferBytes(),
+				listenerInvocations.get(), listenerInvocationRate, events, eventRate, getAverageEventLatency(), maxEventLatency));
+		sb.append(" histogram=");
+		for (int i = 0; i < histogram.length; i++) {
+			sb.append(i == 0 ? "" : ",").append(histogram[i]);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,46 @@
+package guiSET.core;
+
+
+/**
+ * Management interface of {@link FrameStatistics}, so the statistics can be watched with a JMX
+ * console like jconsole (object name {@code guiSET:type=FrameStatistics,name=...}). Times are in
+ * milliseconds.
+ */
+public interface FrameStatisticsMBean {
+
+	long getFrames();
+
+	long getDirtyFrames();
+
+	double getDirtyFrameRatio();
+
+	double getAverageFrameTime();
+
+	double getMaxFrameTime();
+
+	String[] getFrameTimeHistogramBuckets();
+
+	long[] getFrameTimeHistogram();
+
+	int getRunningAnimations();
+
+	String[] getAnimations();
+
+	long getBufferBytes();
+
+	long getPooledBufferBytes();
+
+	long getListenerInvocations();
+
+	double getListenerInvocationRate();
+
+	long getEvents();
+
+	double getEventRate();
+
+	double getAverageEventLatency();
+
+	double getMaxEventLatency();
+
+	void reset();
+}
@@ -0,0 +1,211 @@
+package guiSET.core;
+
+import processing.core.*;
+
+import java.util.ArrayList;
+
+
+/*
+ * Shared pages that hold the buffers of many small buffered elements.
+ *
+ * Each element gets a slot (a sub-rectangle on one of the pages). Slots are
+ * packed in shelves: each shelf has a fixed height and slots are placed next
+ * to each other from left to right. Freed parts of a shelf are reused by later
+ * slots of the same height class. Pages that become empty are discarded.
+ *
+ * Only leaf elements (no containers) use the atlas, because rendering into a
+ * page would otherwise be interrupted by children rendering into the same page.
+ */
+class GraphicsAtlas {
+
+	static final int PAGE_SIZE = 1024;
+
+	// Elements larger than this in any dimension get an own buffer.
+	static final int MAX_SLOT_SIZE = 256;
+
+	// Slot dimensions are rounded up to multiples of this.
+	private static final int GRANULARITY = 8;
+
+
+	class Slot {
+		final Page page;
+		final Shelf shelf;
+		final int x, y;
+		final int width, height; 	// reserved size, might be larger than the element
+
+		Slot(Page page, Shelf shelf, int x, int width) {
+			this.page = page;
+			this.shelf = shelf;
+			this.x = x;
+			this.y = shelf.y;
+			this.width = width;
+			this.height = shelf.height;
+		}
+
+		PGraphics getGraphics() {
+			return page.pg;
+		}
+
+		boolean fits(int width, int height) {
+			return width <= this.width && roundUp(height) == this.height;
+		}
+
+		void free() {
+			GraphicsAtlas.this.free(this);
+		}
+	}
+
+	class Shelf {
+		final int y;
+		final int height;
+		int nextX = 0;
+
+		// Free ranges below nextX as pairs of (x, width)
+		ArrayList<int[]> freeRanges = new ArrayList<int[]>(1);
+
+		Shelf(int y, int height) {
+			this.y = y;
+			this.height = height;
+		}
+
+		int allocate(int width) {
+			for (int i = 0; i < freeRanges.size(); i++) {
+				int[] range = freeRanges.get(i);
+				if (range[1] >= width) {
+					int x = range[0];
+					range[0] += width;
+					range[1] -= width;
+					if (range[1] == 0) {
+						freeRanges.remove(i);
+					}
+					return x;
+				}
+			}
+			if (nextX + width <= PAGE_SIZE) {
+				int x = nextX;
+				nextX += width;
+				return x;
+			}
+			return -1;
+		}
+
+		void free(int x, int width) {
+			if (x + width == nextX) {
+				nextX = x;
+			} else {
+				freeRanges.add(new int[] { x, width });
+			}
+			// merge ranges that now touch the end or each other
+			boolean merged = true;
+			while (merged) {
+				merged = false;
+				for (int i = 0; i < freeRanges.size(); i++) {
+					int[] a = freeRanges.get(i);
+					if (a[0] + a[1] == nextX) {
+						nextX = a[0];
+						freeRanges.remove(i);
+						merged = true;
+						break;
+					}
+					for (int j = 0; j < freeRanges.size(); j++) {
+						int[] b = freeRanges.get(j);
+						if (i != j && a[0] + a[1] == b[0]) {
+							a[1] += b[1];
+							freeRanges.remove(j);
+							merged = true;
+							break;
+						}
+					}
+					if (merged)
+						break;
+				}
+			}
+		}
+
+		boolean isEmpty() {
+			return nextX == 0;
+		}
+	}
+
+	class Page {
+		final PGraphics pg;
+		ArrayList<Shelf> shelves = new ArrayList<Shelf>();
+		int nextY = 0;
+		int slotCount = 0;
+
+		Page() {
+			pg = Frame.getPApplet().createGraphics(PAGE_SIZE, PAGE_SIZE);
+		}
+
+		Slot allocate(int width, int height) {
+			for (Shelf shelf : shelves) {
+				if (shelf.height == height) {
+					int x = shelf.allocate(width);
+					if (x >= 0) {
+						return new Slot(this, shelf, x, width);
+					}
+				}
+			}
+			if (nextY + height <= PAGE_SIZE) {
+				Shelf shelf = new Shelf(nextY, height);
+				nextY += height;
+				shelves.add(shelf);
+				return new Slot(this, shelf, shelf.allocate(width), width);
+			}
+			return null;
+		}
+
+		void free(Slot slot) {
+			slot.shelf.free(slot.x, slot.width);
+			// give back empty shelves at the bottom of the page
+			while (!shelves.isEmpty() && shelves.get(shelves.size() - 1).isEmpty()) {
+				Shelf last = shelves.remove(shelves.size() - 1);
+				nextY = last.y;
+			}
+		}
+	}
+
+
+	private ArrayList<Page> pages = new ArrayList<Page>(1);
+
+	private static int roundUp(int size) {
+		return (size + GRANULARITY - 1) / GRANULARITY * GRANULARITY;
+	}
+
+	static boolean accepts(int width, int height) {
+		return width <= MAX_SLOT_SIZE && height <= MAX_SLOT_SIZE;
+	}
+
+
+	/*
+	 * Reserve a slot for given size. Never returns null for accepted sizes.
+	 */
+	synchronized Slot allocate(int width, int height) {
+		int w = roundUp(width);
+		int h = roundUp(height);
+		for (Page page : pages) {
+			Slot slot = page.allocate(w, h);
+			if (slot != null) {
+				page.slotCount++;
+				return slot;
+			}
+		}
+		Page page = new Page();
+		pages.add(page);
+		page.slotCount++;
+		return page.allocate(w, h);
+	}
+
+	synchronized void free(Slot slot) {
+		Page page = slot.page;
+		page.free(slot);
+		page.slotCount--;
+		if (page.slotCount == 0) {
+			pages.remove(page);
+		}
+	}
+
+	synchronized int getPageCount() {
+		return pages.size();
+	}
+}
@@ -0,0 +1,254 @@
+package guiSET.core;
+
+import processing.core.*;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Pool of offscreen buffers shared by all buffered elements of the {@link Frame}.
+ *
+ * Creating a new PGraphics each time the size of an element changes is expensive (especially when
+ * resizing the window with anchored elements). Instead, buffer sizes are rounded up to buckets and
+ * buffers that are not needed anymore are kept for reuse. When the pooled (unused) buffers exceed
+ * the byte cap, the buffers of the least recently used bucket are discarded first.
+ *
+ * The pool can be accessed through {@link Frame#getGraphicsPool()}.
+ */
+public class GraphicsPool {
+
+	/**
+	 * Default maximum number of bytes held by unused buffers in the pool.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+	private long maxBytes = DEFAULT_MAX_BYTES;
+
+	// Unused buffers by bucket size, in access order (least recently used first)
+	private LinkedHashMap<Long, ArrayDeque<PGraphics>> buckets = new LinkedHashMap<Long, ArrayDeque<PGraphics>>(16, .75f, true);
+
+	private long pooledBytes = 0;
+	private long bytesInUse = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	// style of a fresh buffer, applied to reused buffers
+	private volatile PStyle defaultStyle;
+
+
+
+	/*
+	 * Round size up to a bucket. Small sizes use steps of 16px, larger ones
+	 * four steps per power of two so at most about a fourth is wasted.
+	 */
+	static int bucketSize(int size) {
+		if (size <= 64) {
+			return Math.max(16, (size + 15) & ~15);
+		}
+		int step = Integer.highestOneBit(size - 1) / 4;
+		return (size + step - 1) / step * step;
+	}
+
+	private static long key(int width, int height) {
+		return ((long) width << 32) | height;
+	}
+
+	private static long bytes(PGraphics pg) {
+		return 4L * pg.pixelWidth * pg.pixelHeight;
+	}
+
+
+	/**
+	 * Check if given buffer is the right one for the requested size, so that it can be kept.
+	 *
+	 * @param pg     buffer
+	 * @param width  requested width
+	 * @param height requested height
+	 * @return true if the buffer falls into the bucket of given size
+	 */
+	public boolean fits(PGraphics pg, int width, int height) {
+		return pg.width == bucketSize(width) && pg.height == bucketSize(height);
+	}
+
+
+	/**
+	 * Get a buffer that is at least as large as specified. It is taken from the pool if possible.
+	 *
+	 * @param width  minimum width
+	 * @param height minimum height
+	 * @return buffer
+	 */
+	public synchronized PGraphics acquire(int width, int height) {
+		int w = bucketSize(width);
+		int h = bucketSize(height);
+
+		PGraphics pg = null;
+		ArrayDeque<PGraphics> bucket = buckets.get(key(w, h));
+		if (bucket != null) {
+			pg = bucket.pollLast();
+			if (bucket.isEmpty()) {
+				buckets.remove(key(w, h));
+			}
+		}
+
+		if (pg != null) {
+			hits++;
+			pooledBytes -= bytes(pg);
+		} else {
+			misses++;
+			pg = Frame.getPApplet().createGraphics(w, h);
+		}
+		bytesInUse += bytes(pg);
+		return pg;
+	}
+
+
+	/**
+	 * Give back a buffer that has been acquired before. It must not be used anymore by the caller.
+	 *
+	 * @param pg buffer
+	 */
+	public synchronized void release(PGraphics pg) {
+		if (pg == null)
+			return;
+		bytesInUse = Math.max(0, bytesInUse - bytes(pg));
+		if (pg.width != bucketSize(pg.width) || pg.height != bucketSize(pg.height))
+			return; // not from this pool
+
+		long key = key(pg.width, pg.height);
+		ArrayDeque<PGraphics> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayDeque<PGraphics>(2);
+			buckets.put(key, bucket);
+		}
+		bucket.addLast(pg);
+		pooledBytes += bytes(pg);
+		evict(maxBytes);
+	}
+
+	/*
+	 * Drop buffers of the least recently used buckets until no more than given bytes are pooled.
+	 */
+	private void evict(long limit) {
+		Iterator<Map.Entry<Long, ArrayDeque<PGraphics>>> it = buckets.entrySet().iterator();
+		while (pooledBytes > limit && it.hasNext()) {
+			ArrayDeque<PGraphics> bucket = it.next().getValue();
+			while (pooledBytes > limit && !bucket.isEmpty()) {
+				pooledBytes -= bytes(bucket.pollFirst());
+				evictions++;
+			}
+			if (bucket.isEmpty()) {
+				it.remove();
+			}
+		}
+	}
+
+
+	/*
+	 * Take the style of a fresh buffer. Called by the Frame when it is created, so
+	 * elements that render concurrently only read it.
+	 */
+	synchronized void createDefaultStyle() {
+		if (defaultStyle == null) {
+			PGraphics fresh = Frame.getPApplet().createGraphics(1, 1);
+			fresh.beginDraw();
+			fresh.endDraw();
+			defaultStyle = fresh.getStyle();
+		}
+	}
+
+	/*
+	 * Reused buffers still carry the style of their previous user. Reset it to
+	 * the style of a fresh buffer. Needs to be called after beginDraw().
+	 */
+	void resetStyle(PGraphics pg) {
+		if (defaultStyle == null) {
+			createDefaultStyle();
+		}
+		pg.style(defaultStyle);
+		pg.textFont = null;
+		pg.resetMatrix();
+		pg.noClip();
+	}
+
+
+	/**
+	 * Discard all pooled buffers.
+	 */
+	public synchronized void clear() {
+		evict(0);
+	}
+
+	/**
+	 * Set the maximum number of bytes that unused buffers in the pool may occupy.
+	 *
+	 * @param maxBytes byte cap
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+		evict(this.maxBytes);
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Number of bytes held by unused buffers in the pool.
+	 *
+	 * @return pooled bytes
+	 */
+	public synchronized long getPooledBytes() {
+		return pooledBytes;
+	}
+
+	/**
+	 * Number of bytes held by buffers that are currently acquired by elements.
+	 *
+	 * @return bytes in use
+	 */
+	public synchronized long getBytesInUse() {
+		return bytesInUse;
+	}
+
+	/**
+	 * Number of requests that could be served by a pooled buffer.
+	 *
+	 * @return hit count
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Number of requests that needed a new buffer to be created.
+	 *
+	 * @return miss count
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Number of pooled buffers that have been discarded because of the byte cap.
+	 *
+	 * @return eviction count
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Reset hit, miss and eviction counters.
+	 */
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+}
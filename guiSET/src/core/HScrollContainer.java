@@ -11,6 +11,9 @@ package guiSET.core;
  * for i.e inline-textboxes etc. (reminding of mobile phone scroll bars). 
  */
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
 import processing.core.*;
 import processing.event.*;
 
@@ -38,6 +41,19 @@ public class HScrollContainer extends HFlowContainer {
 	// textboxes)
 	protected boolean slim_scrollhandle = false;
 
+	// Widths of the items (including margins) as prefix sums, so that the position
+	// of an item and the items in view can be found without visiting all items.
+	private final ExtentIndex extents = new ExtentIndex();
+	private final IdentityHashMap<Control, Integer> itemIndices = new IdentityHashMap<Control, Integer>();
+
+	// Items that might have changed their width since the last layout pass. If items
+	// have been added, removed or reordered the index is built again.
+	private final ArrayList<Control> changedItems = new ArrayList<Control>();
+	private boolean itemsChanged = true;
+
+	// Range of items that have been rendered last time (all others are out of view)
+	private int firstRenderedItem = 0, lastRenderedItem = -1;
+
 
 
 
@@ -57,32 +73,34 @@ public class HScrollContainer extends HFlowContainer {
 	protected void render() {
 		drawDefaultBackground();
 
-		fullScrollWidth = getPaddingLeft();
-		for (Control c : items) {
-			if (c.isVisible()) {
-				fullScrollWidth += c.getMarginRight() + c.getWidth() + c.getMarginLeft();
-			}
+		// only measure the items again if any of them changed size, margin or visibility
+		if (layoutDirty || extents.size() != items.size()) {
+			layoutItems();
 		}
 
 		scrollPosition = PApplet.constrain(scrollPosition, 0, PApplet.max(0, fullScrollWidth - getWidth()));
 
-		int usedSpace = getPaddingLeft();
-		for (Control c : items) {
+		// only visit the items in view
+		int first = extents.find(scrollPosition - getPaddingLeft());
+		int last = first - 1;
+		int left = getPaddingLeft() + extents.offset(first);
+		for (int i = first; i < items.size() && left - scrollPosition <= getWidth(); i++) {
+			Control c = items.get(i);
 			if (c.isVisible()) {
+				renderItem(c, left + c.getMarginLeft() - scrollPosition, c.getMarginTop() + getPaddingTop());
+			}
+			left += extents.get(i);
+			last = i;
+		}
 
-				int cx0 = usedSpace + c.getMarginLeft() - scrollPosition;
-				int cy0 = c.getMarginTop() + getPaddingTop();
-
-				if (cx0 > getWidth() || cx0 + c.getWidth() < 0) {  // out of the containers bounds due to scrolling
-					c.offsetX = getWidth(); // one should suffice
-					c.offsetY = getHeight();
-				} else {
-					renderItem(c, cx0, cy0);
-				}
-
-				usedSpace += (c.getWidth() + c.getMarginLeft() + c.getMarginRight());
+		// items that have been scrolled out of view should not receive mouse events
+		for (int i = firstRenderedItem; i <= lastRenderedItem; i++) {
+			if (i < first || i > last) {
+				moveOutOfView(items.get(i));
 			}
 		}
+		firstRenderedItem = first;
+		lastRenderedItem = last;
 
 		drawScrollbar();
 		drawDefaultDisabled();
@@ -96,6 +114,78 @@ public class HScrollContainer extends HFlowContainer {
 
 
 
+	/*
+	 * Update the widths of changed items and compute fullScrollWidth. If items
+	 * have been added, removed or reordered, all items are measured again and
+	 * moved out of view until they are rendered.
+	 */
+	protected void layoutItems() {
+		if (itemsChanged || extents.size() != items.size()) {
+			extents.resize(items.size());
+			itemIndices.clear();
+			for (int i = 0; i < items.size(); i++) {
+				Control c = items.get(i);
+				extents.put(i, extentOf(c));
+				itemIndices.put(c, i);
+				moveOutOfView(c);
+			}
+			extents.build();
+			firstRenderedItem = 0;
+			lastRenderedItem = -1;
+			itemsChanged = false;
+		} else {
+			for (Control c : changedItems) {
+				Integer i = itemIndices.get(c);
+				if (i != null) {
+					extents.set(i, extentOf(c));
+				}
+			}
+		}
+		changedItems.clear();
+		fullScrollWidth = getPaddingLeft() + extents.total();
+		layoutDirty = false;
+	}
+
+	private int extentOf(Control c) {
+		return c.isVisible() ? c.getMarginLeft() + c.getWidth() + c.getMarginRight() : 0;
+	}
+
+	@Override
+	void childLayoutChanged(Control child) {
+		if (itemsChanged)
+			return;
+		if (changedItems.size() < items.size()) {
+			changedItems.add(child);
+		} else {
+			itemsChanged = true; // cheaper to measure all
+			changedItems.clear();
+		}
+	}
+
+	@Override
+	void itemsChanged() {
+		itemsChanged = true;
+		changedItems.clear();
+	}
+
+	private void moveOutOfView(Control c) {
+		c.offsetX = getWidth(); // one should suffice
+		c.offsetY = getHeight();
+	}
+
+	@Override
+	protected int getFirstEventItem() {
+		return layoutDirty ? 0 : firstRenderedItem;
+	}
+
+	@Override
+	protected int getLastEventItem() {
+		return layoutDirty ? items.size() - 1 : lastRenderedItem;
+	}
+
+
+
+
 	// draw horizontal scrollbar if needed
 	protected void drawScrollbar() {
 		if (needsScrollbarH()) { // don't display scroll-bar when there's nothing to scroll
@@ -159,10 +249,10 @@ public class HScrollContainer extends HFlowContainer {
 
 	public void scrollToItem(int index) {
 		if (index >= 0 && index < items.size()) {
-			int x = getPaddingLeft();
-			for (int i = 0; i < index; i++) {
-				x += items.get(i).getMarginLeft() + items.get(i).getWidth() + items.get(i).getMarginRight();
+			if (layoutDirty || extents.size() != items.size()) {
+				layoutItems();
 			}
+			int x = getPaddingLeft() + extents.offset(index);
 			Control item = items.get(index);
 			if (scrollPosition > x) {
 				setScrollPosition(x);
@@ -173,19 +263,12 @@ public class HScrollContainer extends HFlowContainer {
 	}
 
 	public void scrollToItem(Control item) {
-		if (items.indexOf(item) == -1)
-			return;
-
-		int x = getPaddingLeft();
-		for (int i = 0; i < items.size(); i++) {
-			if (item == items.get(i))
-				break;
-			x += items.get(i).getMarginLeft() + items.get(i).getWidth() + items.get(i).getMarginRight();
+		if (layoutDirty || extents.size() != items.size()) {
+			layoutItems();
 		}
-		if (scrollPosition > x) {
-			setScrollPosition(x);
-		} else if (scrollPosition + getWidth() < x + item.getWidth()) {
-			setScrollPosition(x - getWidth() + item.getWidth() + item.getMarginLeft() + item.getMarginRight());
+		Integer index = itemIndices.get(item);
+		if (index != null) {
+			scrollToItem(index);
 		}
 	}
 
@@ -201,7 +284,7 @@ public class HScrollContainer extends HFlowContainer {
 	 */
 	public void setScrollPosition(int scrollPosition) {
 		this.scrollPosition = scrollPosition; // will be constrained in render()
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -309,7 +392,7 @@ public class HScrollContainer extends HFlowContainer {
 		super.release(e);
 		if (isDraggingScrollHandle()) {
 			startHandleDragPos = -1;
-			update();
+			invalidatePaint();
 		}
 	}
 
@@ -329,7 +412,7 @@ public class HScrollContainer extends HFlowContainer {
 
 		if (currentMouseEvent.getAction() == MouseEvent.PRESS && mouseIsOverScrollBar) {
 			int scrollhandle_posX = scrollhandle_posX();
-			update();
+			invalidatePaint();
 
 			// if clicked on scrollhandle itself (instead of entire scroll area) the
 			// dragging is started
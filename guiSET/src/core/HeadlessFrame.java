@@ -0,0 +1,218 @@
+package guiSET.core;
+
+import java.awt.image.BufferedImage;
+
+import processing.core.*;
+import processing.event.*;
+
+
+/**
+ * A Frame that does not need a sketch window. It renders onto an offscreen Java2D graphics and can
+ * be driven with synthesized mouse and key events. This is useful to render snapshots of a GUI on a
+ * server or to run tests and benchmarks on machines without a display (run the JVM with
+ * {@code -Djava.awt.headless=true} there).
+ * 
+ * <pre>
+ * {@code HeadlessFrame frame = new HeadlessFrame(400, 300);
+ * frame.add(new Button("OK"));
+ * frame.click(10, 10);
+ * frame.snapshot().save("snapshot.png");}
+ * </pre>
+ * 
+ * Nothing is rendered automatically. Each call to {@link #snapshot()} (or {@link #renderFrame()})
+ * does what the Frame usually does once per frame of the sketch: run due tasks, render what changed
+ * and step animations.
+ */
+public class HeadlessFrame extends Frame {
+
+	private final HeadlessSketch sketch;
+
+	// buttons currently pressed, used to send DRAG instead of MOVE events
+	private int pressedButton = 0;
+
+	/**
+	 * Create a headless Frame of the given size.
+	 * 
+	 * @param width  width
+	 * @param height height
+	 */
+	public HeadlessFrame(int width, int height) {
+		this(new HeadlessSketch(width, height));
+	}
+
+	private HeadlessFrame(HeadlessSketch sketch) {
+		super(sketch);
+		this.sketch = sketch;
+	}
+
+	/**
+	 * Get the sketch behind this Frame. It is never started and has no window.
+	 * 
+	 * @return offscreen sketch
+	 */
+	public PApplet getSketch() {
+		return sketch;
+	}
+
+	/**
+	 * Process one frame: run due tasks, render everything that changed and step animations.
+	 */
+	public void renderFrame() {
+		sketch.g.beginDraw();
+		display();
+		sketch.g.endDraw();
+	}
+
+	/**
+	 * Render the GUI and return a copy of the result.
+	 * 
+	 * @return rendered image
+	 */
+	public PImage snapshot() {
+		renderFrame();
+		return sketch.g.get();
+	}
+
+	/**
+	 * Render the GUI and return a copy of the result as AWT image.
+	 * 
+	 * @return rendered image
+	 */
+	public BufferedImage snapshotImage() {
+		PImage img = snapshot();
+		BufferedImage image = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, img.width, img.height, img.pixels, 0, img.width);
+		return image;
+	}
+
+
+
+	/*
+	 * SYNTHESIZED EVENTS 
+	 * 
+	 * Events are posted to the sketch which dispatches them right away (as it is
+	 * not looping), just like events of a real window.
+	 */
+
+	/**
+	 * Move the mouse to (x, y). Sends a drag event if a button is pressed.
+	 * 
+	 * @param x x-coordinate
+	 * @param y y-coordinate
+	 */
+	public void mouseMove(int x, int y) {
+		postMouseEvent(pressedButton == 0 ? MouseEvent.MOVE : MouseEvent.DRAG, x, y, pressedButton, 0);
+	}
+
+	/**
+	 * Press a mouse button at (x, y).
+	 * 
+	 * @param x      x-coordinate
+	 * @param y      y-coordinate
+	 * @param button PConstants.LEFT, RIGHT or CENTER
+	 */
+	public void mousePress(int x, int y, int button) {
+		pressedButton = button;
+		postMouseEvent(MouseEvent.PRESS, x, y, button, 1);
+	}
+
+	/**
+	 * Release a mouse button at (x, y).
+	 * 
+	 * @param x      x-coordinate
+	 * @param y      y-coordinate
+	 * @param button PConstants.LEFT, RIGHT or CENTER
+	 */
+	public void mouseRelease(int x, int y, int button) {
+		pressedButton = 0;
+		postMouseEvent(MouseEvent.RELEASE, x, y, button, 1);
+	}
+
+	/**
+	 * Click at (x, y) with the left mouse button (move, press, release and click).
+	 * 
+	 * @param x x-coordinate
+	 * @param y y-coordinate
+	 */
+	public void click(int x, int y) {
+		mouseMove(x, y);
+		mousePress(x, y, PConstants.LEFT);
+		mouseRelease(x, y, PConstants.LEFT);
+		postMouseEvent(MouseEvent.CLICK, x, y, PConstants.LEFT, 1);
+	}
+
+	/**
+	 * Turn the mouse wheel at (x, y).
+	 * 
+	 * @param x     x-coordinate
+	 * @param y     y-coordinate
+	 * @param count wheel rotation, positive values scroll down
+	 */
+	public void mouseWheel(int x, int y, int count) {
+		postMouseEvent(MouseEvent.WHEEL, x, y, 0, count);
+	}
+
+	/**
+	 * Press a key that produces a character. Use {@link #keyPress(int)} for coded keys like arrows,
+	 * shift or control.
+	 * 
+	 * @param key     character of the key
+	 * @param keyCode key code (i.e. java.awt.event.KeyEvent.VK_A or PConstants.SHIFT)
+	 */
+	public void keyPress(char key, int keyCode) {
+		postKeyEvent(KeyEvent.PRESS, key, keyCode);
+		if (key != PConstants.CODED) {
+			postKeyEvent(KeyEvent.TYPE, key, 0);
+		}
+	}
+
+	/**
+	 * Press a coded key (a key without character like arrows, shift or control).
+	 * 
+	 * @param keyCode key code (i.e. PConstants.UP or PConstants.SHIFT)
+	 */
+	public void keyPress(int keyCode) {
+		keyPress((char) PConstants.CODED, keyCode);
+	}
+
+	/**
+	 * Release a key.
+	 * 
+	 * @param key     character of the key
+	 * @param keyCode key code
+	 */
+	public void keyRelease(char key, int keyCode) {
+		postKeyEvent(KeyEvent.RELEASE, key, keyCode);
+	}
+
+	/**
+	 * Release a coded key.
+	 * 
+	 * @param keyCode key code
+	 */
+	public void keyRelease(int keyCode) {
+		keyRelease((char) PConstants.CODED, keyCode);
+	}
+
+	/**
+	 * Type a text (press and release a key for each character) into the focused element.
+	 * 
+	 * @param text text to type
+	 */
+	public void typeText(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			int keyCode = java.awt.event.KeyEvent.getExtendedKeyCodeForChar(c);
+			keyPress(c, keyCode);
+			keyRelease(c, keyCode);
+		}
+	}
+
+	private void postMouseEvent(int action, int x, int y, int button, int count) {
+		sketch.postEvent(new MouseEvent(null, System.currentTimeMillis(), action, 0, x, y, button, count));
+	}
+
+	private void postKeyEvent(int action, char key, int keyCode) {
+		sketch.postEvent(new KeyEvent(null, System.currentTimeMillis(), action, 0, key, keyCode));
+	}
+}
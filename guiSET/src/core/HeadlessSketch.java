@@ -0,0 +1,61 @@
+package guiSET.core;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import processing.awt.PGraphicsJava2D;
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PSurfaceNone;
+
+
+/*
+ * A PApplet that is never started: it has no window and no animation thread.
+ * It draws onto an offscreen Java2D graphics and is used by HeadlessFrame.
+ *
+ * Java2D normally creates its images compatible to the screen which fails
+ * without a display. The graphics created here use plain ARGB images instead,
+ * this also applies to all buffers the library creates through
+ * createGraphics().
+ *
+ * The sketch is not looping, so events posted to it are dispatched right away
+ * on the calling thread.
+ */
+class HeadlessSketch extends PApplet {
+
+	static class HeadlessGraphics extends PGraphicsJava2D {
+		@Override
+		public Graphics2D checkImage() {
+			if (image == null || ((BufferedImage) image).getWidth() != width * pixelDensity || ((BufferedImage) image).getHeight() != height * pixelDensity) {
+				image = new BufferedImage(width * pixelDensity, height * pixelDensity, BufferedImage.TYPE_INT_ARGB);
+			}
+			return (Graphics2D) image.getGraphics();
+		}
+	}
+
+	HeadlessSketch(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.pixelWidth = width;
+		this.pixelHeight = height;
+		g = createGraphics(width, height);
+		g.beginDraw(); // creates the image
+		g.endDraw();
+		surface = new PSurfaceNone(g);
+		noLoop();
+	}
+
+	@Override
+	public PGraphics createGraphics(int w, int h) {
+		HeadlessGraphics pg = new HeadlessGraphics();
+		pg.setParent(this);
+		pg.setPrimary(false);
+		pg.setSize(w, h);
+		return pg;
+	}
+
+	@Override
+	public void exit() {
+		// there is no window to close (i.e. Processing exits on ESC)
+	}
+}
@@ -0,0 +1,212 @@
+package guiSET.core;
+
+import processing.core.PApplet;
+
+
+/**
+ * Lowers the frame rate of the sketch while the GUI is idle in {@link Frame#EFFICIENT} mode.
+ * 
+ * In this mode the draw loop keeps running at the full frame rate although the GUI is only drawn
+ * when it changed. When enabled, the governor reduces the frame rate to the floor rate after no
+ * element changed, no animation ran and no mouse or key event arrived for the idle delay. The
+ * ceiling rate is restored with the next event, animation or change (also when elements are
+ * changed from another thread).
+ * 
+ * By default the ceiling rate is the frame rate the sketch ran at before it became idle, so a
+ * sketch that calls frameRate(30) keeps running at 30 fps while active. Use
+ * {@link #setFrameRates(float, float)} to set a fixed ceiling rate.
+ * 
+ * While idle, the first event is handled with a latency of up to one frame at the floor rate.
+ * Disabled by default, as it also slows down the draw() method of the sketch.
+ * 
+ * Get the governor with {@link Frame#getIdleGovernor()}.
+ */
+public class IdleGovernor {
+
+	private PApplet papplet;
+
+	private boolean enabled = false;
+	private float floorRate = 10;
+	private float ceilingRate = 0; // 0: the rate of the sketch
+	private float restoreRate; // rate to restore after the current idle phase
+	private int idleDelay = 2000;
+
+	private volatile long lastActivity = System.currentTimeMillis();
+	private volatile boolean idle = false;
+
+	// statistics
+	private long idleSince;
+	private long totalIdleTime = 0;
+	private int idlePhases = 0;
+	private long idleFrames = 0;
+
+	IdleGovernor() {
+	}
+
+	void setPApplet(PApplet papplet) {
+		this.papplet = papplet;
+	}
+
+	/**
+	 * Enable or disable the governor. Disabling restores the ceiling rate. Default: false.
+	 * 
+	 * @param enabled enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			restore();
+		}
+		lastActivity = System.currentTimeMillis();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the frame rates the sketch runs at while idle (floor) and active (ceiling). Defaults: 10
+	 * and the frame rate of the sketch.
+	 * 
+	 * @param floorRate   frame rate while idle
+	 * @param ceilingRate frame rate while active, 0 to use the frame rate of the sketch
+	 */
+	public void setFrameRates(float floorRate, float ceilingRate) {
+		if (floorRate <= 0 || (ceilingRate != 0 && ceilingRate < floorRate)) {
+			System.err.println("guiSET: invalid idle frame rates " + floorRate + ", " + ceilingRate);
+			return;
+		}
+		this.floorRate = floorRate;
+		this.ceilingRate = ceilingRate;
+		if (papplet != null && idle) {
+			papplet.frameRate(floorRate);
+		} else if (papplet != null && ceilingRate != 0) {
+			papplet.frameRate(ceilingRate);
+		}
+	}
+
+	/**
+	 * Set the frame rate the sketch runs at while idle and keep the ceiling rate. Default: 10.
+	 * 
+	 * @param floorRate frame rate while idle
+	 */
+	public void setFloorRate(float floorRate) {
+		setFrameRates(floorRate, ceilingRate);
+	}
+
+	public float getFloorRate() {
+		return floorRate;
+	}
+
+	/**
+	 * @return the frame rate while active, 0 if the frame rate of the sketch is used
+	 */
+	public float getCeilingRate() {
+		return ceilingRate;
+	}
+
+	/**
+	 * Set the time without any activity after which the frame rate is reduced. Default: 2000.
+	 * 
+	 * @param milliseconds idle delay in milliseconds
+	 */
+	public void setIdleDelay(int milliseconds) {
+		idleDelay = Math.max(0, milliseconds);
+	}
+
+	public int getIdleDelay() {
+		return idleDelay;
+	}
+
+	/**
+	 * @return true if the frame rate is currently reduced
+	 */
+	public boolean isIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return total time the sketch has been idle in milliseconds, including the current idle phase
+	 */
+	public synchronized long getIdleTime() {
+		return totalIdleTime + (idle ? System.currentTimeMillis() - idleSince : 0);
+	}
+
+	/**
+	 * @return how often the frame rate has been reduced
+	 */
+	public synchronized int getIdlePhases() {
+		return idlePhases;
+	}
+
+	/**
+	 * @return number of frames displayed at the floor rate
+	 */
+	public synchronized long getIdleFrames() {
+		return idleFrames;
+	}
+
+	/*
+	 * Activity that needs the full frame rate (input, changes from other threads).
+	 * May be called from any thread.
+	 */
+	void wakeUp() {
+		if (!enabled)
+			return;
+		lastActivity = System.currentTimeMillis();
+		if (idle) {
+			restore();
+		}
+	}
+
+	/*
+	 * Called by the Frame after each display in EFFICIENT mode. active is true if
+	 * something changed or is animated.
+	 */
+	void frameDisplayed(boolean active) {
+		if (!enabled)
+			return;
+		long now = System.currentTimeMillis();
+		if (active) {
+			lastActivity = now;
+			if (idle) {
+				restore();
+			}
+		} else if (idle) {
+			synchronized (this) {
+				idleFrames++;
+			}
+		} else if (now - lastActivity >= idleDelay) {
+			if (ceilingRate == 0) {
+				/*
+				 * the sketch has been quiet for the idle delay, so its measured rate is
+				 * close to the rate it set with frameRate()
+				 */
+				restoreRate = Math.max(floorRate, Math.round(papplet.frameRate));
+			} else {
+				restoreRate = ceilingRate;
+			}
+			synchronized (this) {
+				idle = true;
+				idleSince = now;
+				idlePhases++;
+			}
+			papplet.frameRate(floorRate);
+		}
+	}
+
+	/*
+	 * Restore the ceiling rate if idle (i.e. when leaving EFFICIENT mode).
+	 */
+	void restore() {
+		synchronized (this) {
+			if (!idle)
+				return;
+			idle = false;
+			totalIdleTime += System.currentTimeMillis() - idleSince;
+		}
+		if (papplet != null) {
+			papplet.frameRate(restoreRate);
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package guiSET.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Opt-in tracer that finds out who keeps the gui busy with redraws.
+ *
+ * When enabled, each call of {@link Control#update()} (or invalidatePaint()/invalidateLayout())
+ * that does not come from the invalidation of another element is recorded for the calling
+ * element. Every n-th call (see {@link #setSampleInterval(int)}) the stack is captured to find the
+ * setter that caused the invalidation and who called it (i.e. a listener or an {@link Animation}).
+ *
+ * An element that is invalidated in more consecutive frames than the storm threshold is reported
+ * once on the console. {@link #getReport()} lists all elements with their call sites, the elements
+ * that invalidated most often first.
+ *
+ * Get the tracer with {@link Frame#getInvalidationTracer()}.
+ */
+public class InvalidationTracer {
+
+	/*
+	 * Invalidations of one control.
+	 */
+	private static class Record {
+		final String name;
+		long invalidations = 0;
+		int frame = -1; // last frame in which the control has been invalidated
+		int consecutiveFrames = 0;
+		int maxConsecutiveFrames = 0;
+		boolean reported = false;
+		final HashMap<String, Long> sites = new HashMap<String, Long>();
+
+		Record(Control control) {
+			name = control.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(control));
+		}
+
+		String topSite() {
+			String top = "?";
+			long max = 0;
+			for (Map.Entry<String, Long> site : sites.entrySet()) {
+				if (site.getValue() > max) {
+					max = site.getValue();
+					top = site.getKey();
+				}
+			}
+			return top;
+		}
+	}
+
+	/*
+	 * The tracer if it is enabled, otherwise null. Read by the instrumented code.
+	 */
+	static volatile InvalidationTracer active;
+
+	private boolean enabled = false;
+	private int sampleInterval = 8;
+	private int stormThreshold = 30;
+
+	private final WeakHashMap<Control, Record> records = new WeakHashMap<Control, Record>();
+	private int frame = 0;
+	private long calls = 0;
+
+	// nesting of invalidations per thread, only the outermost one is recorded
+	private final ThreadLocal<int[]> depth = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	InvalidationTracer() {
+	}
+
+	/**
+	 * Start or stop tracing. Default: false.
+	 * 
+	 * @param enabled enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		active = enabled ? this : (active == this ? null : active);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Capture the stack of every n-th invalidation. Capturing the stack is expensive, with 1 every
+	 * call is captured. Default: 8.
+	 * 
+	 * @param n interval
+	 */
+	public void setSampleInterval(int n) {
+		sampleInterval = Math.max(1, n);
+	}
+
+	/**
+	 * Number of consecutive frames in which an element may be invalidated before it is reported as
+	 * invalidation storm. Default: 30.
+	 * 
+	 * @param frames frames
+	 */
+	public void setStormThreshold(int frames) {
+		stormThreshold = Math.max(1, frames);
+	}
+
+
+
+	/*
+	 * RECORDING
+	 */
+
+	/*
+	 * Called at the beginning of an invalidation of the control. Each call has to
+	 * be followed by exit().
+	 */
+	void enter(Control control) {
+		int[] d = depth.get();
+		if (d[0]++ > 0)
+			return; // caused by another invalidation
+
+		synchronized (this) {
+			Record record = records.get(control);
+			if (record == null) {
+				record = new Record(control);
+				records.put(control, record);
+			}
+			record.invalidations++;
+			if (record.frame != frame) {
+				record.consecutiveFrames = record.frame == frame - 1 ? record.consecutiveFrames + 1 : 1;
+				record.maxConsecutiveFrames = Math.max(record.maxConsecutiveFrames, record.consecutiveFrames);
+				record.frame = frame;
+			}
+			if (calls++ % sampleInterval == 0) {
+				String site = callSite(new Throwable().getStackTrace());
+				Long n = record.sites.get(site);
+				record.sites.put(site, n == null ? 1 : n + 1);
+			}
+			if (record.consecutiveFrames > stormThreshold && !record.reported) {
+				record.reported = true;
+				System.err.println("guiSET: " + record.name + " has been invalidated in " + record.consecutiveFrames + " consecutive frames, by "
+						+ record.topSite());
+			}
+		}
+	}
+
+	void exit() {
+		depth.get()[0]--;
+	}
+
+	/*
+	 * Called by the Frame after each display.
+	 */
+	synchronized void frameEnded() {
+		frame++;
+		depth.get()[0] = 0; // in case an exception interrupted an invalidation
+		for (Record record : records.values()) {
+			if (record.frame < frame - 1) {
+				record.consecutiveFrames = 0;
+				record.reported = false;
+			}
+		}
+	}
+
+	/*
+	 * Describe the call site as "setter <- origin": the first method above the
+	 * invalidation methods and the first method above that which is an animation
+	 * or is outside of guiSET (i.e. a listener of the sketch).
+	 */
+	private static String callSite(StackTraceElement[] stack) {
+		int i = 1; // skip enter()
+		while (i < stack.length && isInvalidation(stack[i])) {
+			i++;
+		}
+		if (i >= stack.length)
+			return "?";
+		String setter = shortName(stack[i]);
+		i++;
+		while (i < stack.length && !isOrigin(stack[i])) {
+			i++;
+		}
+		return i < stack.length ? setter + " <- " + shortName(stack[i]) : setter;
+	}
+
+	private static boolean isInvalidation(StackTraceElement e) {
+		if (!e.getClassName().startsWith("guiSET.core."))
+			return false;
+		switch (e.getMethodName()) {
+		case "update":
+		case "invalidatePaint":
+		case "invalidateLayout":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static boolean isOrigin(StackTraceElement e) {
+		String c = e.getClassName();
+		if (c.startsWith("guiSET.core."))
+			return c.equals("guiSET.core.Animation");
+		return !(c.startsWith("java.lang.reflect.") || c.startsWith("sun.reflect.") || c.startsWith("jdk.internal.")
+				|| c.startsWith("java.lang.invoke.") || c.contains("$$Lambda"));
+	}
+
+	private static String shortName(StackTraceElement e) {
+		String c = e.getClassName();
+		return c.substring(c.lastIndexOf('.') + 1) + "." + e.getMethodName() + (e.getLineNumber() > 0 ? ":" + e.getLineNumber() : "");
+	}
+
+
+
+	/*
+	 * REPORT
+	 */
+
+	/**
+	 * Get a report of all invalidated elements since the tracer has been enabled or reset, the
+	 * elements that invalidated most often first. For each element the sampled call sites are listed.
+	 * 
+	 * @return report
+	 */
+	public synchronized String getReport() {
+		ArrayList<Record> sorted = new ArrayList<Record>(records.values());
+		Collections.sort(sorted, (a, b) -> Long.compare(b.invalidations, a.invalidations));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("Invalidations in ").append(frame).append(" frames\n");
+		for (Record record : sorted) {
+			sb.append(record.name).append(": ").append(record.invalidations).append(" invalidations, max ").append(record.maxConsecutiveFrames)
+					.append(" consecutive frames");
+			if (record.consecutiveFrames > stormThreshold) {
+				sb.append(" (STORM)");
+			}
+			sb.append('\n');
+
+			ArrayList<Map.Entry<String, Long>> sites = new ArrayList<Map.Entry<String, Long>>(record.sites.entrySet());
+			Collections.sort(sites, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+			for (Map.Entry<String, Long> site : sites) {
+				sb.append("    ").append(site.getValue()).append("x ").append(site.getKey()).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Print the report (see {@link #getReport()}) to the console.
+	 */
+	public void printReport() {
+		System.out.print(getReport());
+	}
+
+	/**
+	 * Forget all recorded invalidations.
+	 */
+	public synchronized void reset() {
+		records.clear();
+		calls = 0;
+	}
+}
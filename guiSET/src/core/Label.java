@@ -96,6 +96,11 @@ public class Label extends TextBased {
 		drawDefaultText();
 	}
 
+	@Override
+	protected boolean allowsBackgroundPatching() {
+		return getImage() == null;
+	}
+
 	@Override
 	protected int autoHeight() {
 		return (int) textHeight(getText()) + getPaddingTop() + getPaddingBottom();
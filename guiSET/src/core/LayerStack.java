@@ -0,0 +1,83 @@
+package guiSET.core;
+
+import processing.core.*;
+
+import java.util.ArrayList;
+
+
+/*
+ * Offscreen layers for translucent unbuffered controls (opacity groups). A
+ * control with opacity < 1 can't be drawn directly onto its parent, it has to
+ * be rendered into a layer first that is then projected with tint.
+ *
+ * Layers are taken from the GraphicsPool and given back after compositing, so
+ * that fading controls don't create a new buffer each frame. Translucent
+ * controls inside of translucent controls simply push another layer.
+ *
+ * Each RenderContext has its own stack.
+ */
+class LayerStack {
+
+	private static class Layer {
+		PGraphics pg;
+		GraphicsPool pool;
+		int width, height;
+		int clipX0, clipY0, clipX1, clipY1; // clip of the graphics below
+	}
+
+	private final RenderContext context;
+	private final ArrayList<Layer> layers = new ArrayList<Layer>();
+	private int depth = 0;
+
+	LayerStack(RenderContext context) {
+		this.context = context;
+	}
+
+	/*
+	 * Get a cleared layer of at least the given size and make it the current one.
+	 * The clip of the context is set to the layer until pop() is called.
+	 */
+	PGraphics push(GraphicsPool pool, int width, int height) {
+		if (depth == layers.size()) {
+			layers.add(new Layer()); // only grows with nesting depth
+		}
+		Layer layer = layers.get(depth++);
+		layer.pool = pool;
+		layer.width = width;
+		layer.height = height;
+		layer.clipX0 = context.clipX0;
+		layer.clipY0 = context.clipY0;
+		layer.clipX1 = context.clipX1;
+		layer.clipY1 = context.clipY1;
+
+		layer.pg = pool.acquire(width, height);
+		layer.pg.beginDraw();
+		pool.resetStyle(layer.pg);
+		layer.pg.clear();
+
+		context.setClip(0, 0, width, height); // the clip of the parent does not apply to the layer
+		return layer.pg;
+	}
+
+	/*
+	 * Finish the current layer, project it onto target at (x, y) with given
+	 * opacity and give it back to the pool.
+	 */
+	void pop(PGraphics target, float x, float y, float opacity) {
+		Layer layer = layers.get(--depth);
+		layer.pg.endDraw();
+		context.setClip(layer.clipX0, layer.clipY0, layer.clipX1, layer.clipY1);
+
+		target.tint(255, (int) (opacity * 256));
+		target.image(layer.pg, x, y, layer.width, layer.height, 0, 0, layer.width, layer.height);
+		target.tint = false;
+
+		layer.pool.release(layer.pg);
+		layer.pg = null;
+		layer.pool = null;
+	}
+
+	int getDepth() {
+		return depth;
+	}
+}
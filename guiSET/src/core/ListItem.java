@@ -19,6 +19,9 @@ public class ListItem extends TextBased {
 	// true if this item has been selected by the parent listview
 	protected boolean selected;
 
+	// row shown by this item if the parent listview is in model mode, -1 if unused
+	int row = -1;
+
 	
 	public ListItem() {
 		super();
@@ -58,6 +61,12 @@ public class ListItem extends TextBased {
 
 	}
 
+	// selection colors depend on hovering
+	@Override
+	protected boolean allowsBackgroundPatching() {
+		return !selected && getImage() == null;
+	}
+
 
 	@Override
 	protected int autoHeight() {
@@ -106,7 +115,7 @@ public class ListItem extends TextBased {
 			// lighten color for selectionHoverColor when color too dark
 			selectionHoverColor = GuisetColor.create(r + 20, g + 20, b + 20);
 		}
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -116,7 +125,7 @@ public class ListItem extends TextBased {
 	 */
 	public void setSelectionHoverColor(int selectionHoverColor) {
 		this.selectionHoverColor = selectionHoverColor;
-		update();
+		invalidatePaint();
 	}
 
 	public int getSelectionColor() {
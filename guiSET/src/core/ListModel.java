@@ -0,0 +1,53 @@
+package guiSET.core;
+
+
+/**
+ * Data of a {@link ListView} in model mode (see {@link ListView#setModel(ListModel)}). The list
+ * view only creates views for the rows in view and asks the model for their values, so a model can
+ * hold a lot more entries than a list view could hold controls.
+ * 
+ * Rows are displayed with {@code String.valueOf(get(index))}. A model has to notify its listeners
+ * after it changed. Like all gui changes, models should be changed on the drawing thread.
+ * 
+ * @param <T> type of the entries
+ */
+public interface ListModel<T> {
+
+	/**
+	 * Receives the changes of a model.
+	 */
+	public interface Listener {
+
+		/**
+		 * Entries have been inserted.
+		 * 
+		 * @param index index of the first new entry
+		 * @param count number of entries
+		 */
+		void itemsInserted(int index, int count);
+
+		/**
+		 * Entries have been removed.
+		 * 
+		 * @param index index of the first removed entry
+		 * @param count number of entries
+		 */
+		void itemsRemoved(int index, int count);
+
+		/**
+		 * Entries have been replaced.
+		 * 
+		 * @param index index of the first changed entry
+		 * @param count number of entries
+		 */
+		void itemsChanged(int index, int count);
+	}
+
+	int size();
+
+	T get(int index);
+
+	void addListener(Listener listener);
+
+	void removeListener(Listener listener);
+}
@@ -1,9 +1,15 @@
 package guiSET.core;
 
+import processing.core.*;
 import processing.event.*;
 
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 
 
 
@@ -13,6 +19,10 @@ import java.util.Comparator;
  * other than ListItems or derived but these will only raise the itemSelected event if they call
  * ListViews (protected) itemPressed(Control) method.
  * 
+ * For a lot of entries the list view can be bound to a {@link ListModel} with
+ * {@link #setModel(ListModel)}. Then only ListItems for the rows in view are created and recycled
+ * while scrolling. Selection, sorting and keyboard navigation work on model indices in this mode.
+ * 
  * @author E-Bow
  *
  */
@@ -36,13 +46,61 @@ public class ListView extends VScrollContainer {
 	protected boolean makeItemsFillAvailableWidth = true;
 
 
-	// currrently selected (or last selected) item
+	// selected indices (model indices in model mode), the lead is the most recently selected one
+	protected SelectionModel selection = new SelectionModel();
+
+	// nesting of selection changes, the change event is raised once at the end
+	private int selectionChanging = 0;
+
+	/**
+	 * @deprecated Use {@link #getSelectedItem()}. Still updated after every selection change, always
+	 *             null in model mode.
+	 */
+	@Deprecated
 	protected Control selectedItem;
 
+	/**
+	 * @deprecated Use {@link #getSelectedItems()} or {@link #getSelectedIndices()}. Still updated after
+	 *             every selection change, but in the order of the list instead of the order the items
+	 *             were selected in, and always empty in model mode. Changing it has no effect.
+	 */
+	@Deprecated
+	protected ArrayList<Control> selectedItems = new ArrayList<Control>(0);
+
+
+	/*
+	 * Model mode: the rows are taken from a ListModel and only the ListItems for
+	 * the rows in view exist (they are the items of this container).
+	 */
+	protected ListModel<?> model;
+	private final ModelListener modelListener = new ModelListener();
+
+	// model index of each row if the rows have been sorted or filtered, otherwise null; rowOf is
+	// the inverse (-1 for entries that are filtered out)
+	private int[] order, rowOf;
+
+	// all model indices in sorted order or null, order is this after filtering
+	private int[] sortedOrder;
+	private String filter = ""; // lowercase
 
-	// if multiSelect true then this list contains the selected items (one of which
-	// is "selectedItem"
-	protected ArrayList<Control> selectedItems;
+	// texts of the entries from the last sort or filter, valid while the model version is the same
+	private String[] texts, lowerTexts;
+	private int textsVersion = -1;
+	private int modelVersion = 0;
+
+	// running sort or filter
+	private Task task;
+
+	// Model insertions (count > 0) and removals (count < 0) as {index, count} that have not been
+	// applied to the sorted and filtered order yet. They are applied in one pass when the rows are
+	// needed, at the latest in the next render.
+	private final ArrayList<int[]> pendingChanges = new ArrayList<int[]>();
+
+	// height of a row including margins, -1 if it needs to be measured
+	private int rowHeight = -1;
+
+	private ListItem[] boundViews = new ListItem[0];
+	private final ArrayList<ListItem> freeViews = new ArrayList<ListItem>();
 
 
 
@@ -52,7 +110,6 @@ public class ListView extends VScrollContainer {
 
 	public ListView(int width, int height) {
 		super(width, height);
-		selectedItems = new ArrayList<Control>(0);
 
 		setBorderWidth(1);
 		setBackgroundColor(GuisetColor.WHITE);
@@ -68,57 +125,49 @@ public class ListView extends VScrollContainer {
 	 */
 
 	protected void itemPressed(Control item) {
+		int row = model != null ? (item instanceof ListItem ? ((ListItem) item).row : -1) : items.indexOf(item);
+		if (row >= 0) {
+			rowPressed(row);
+		}
+	}
+
+	/*
+	 * Change the selection like a click on the given row, depending on shift and
+	 * control.
+	 */
+	private void rowPressed(int row) {
 		focus();
+		int index = indexAtRow(row);
+		beginSelectionChange();
 
 		if (!multiSelect) {
 
-			// just deselect previous selectedItem and select the new one
-			if (item != selectedItem) { // dont raise itemSelected-event if already selected
-				deselect(selectedItem);
-				selectImpl(item);
+			// just deselect previous selected item and select the new one
+			if (index != selection.getLead()) { // dont raise itemSelected-event if already selected
+				deselectAll();
+				selectImpl(index);
 			}
 
-		} else { // if (multiSelect)
-
-			if (getFrame().isControlDown()) {
-
-				// if control pressed: add to selection if not yet selected, else deselect
+		} else if (getFrame().isControlDown()) {
 
-				if (selectedItems.contains(item)) {
-					deselect(item);
-				} else {
-					selectImpl(item);
-				}
-
-			} else if (getFrame().isShiftDown()) {
-
-				// if shift pressed: select all items between this and previously selected item
-
-				int selStart = getSelectionIndex();
-				int selEnd = indexOf(item);
-
-				if (selStart > -1 && selEnd > -1) {
-
-					if (selStart > selEnd) {
-						for (int i = selStart - 1; i >= selEnd; i--) {
-							selectImpl(i);
-						}
+			// if control pressed: add to selection if not yet selected, else deselect
+			if (selection.isSelected(index)) {
+				deselect(index);
+			} else {
+				selectImpl(index);
+			}
 
-					} else if (selStart < selEnd) {
+		} else if (getFrame().isShiftDown() && rowOfIndex(selection.getAnchor()) > -1) {
 
-						for (int i = selStart + 1; i <= selEnd; i++) {
-							selectImpl(i);
-						}
-					}
-				}
-			} else {
-				// if no modifier pressed: deselect all selected and select the new item
+			// if shift pressed: select all items between the anchor and this item
+			selectRows(rowOfIndex(selection.getAnchor()), row);
 
-				deselectAll();
-				selectImpl(item);
-			}
+		} else {
+			// if no modifier pressed: deselect all selected and select the new item
+			deselectAll();
+			selectImpl(index);
 		}
-
+		endSelectionChange();
 	}
 
 
@@ -127,41 +176,114 @@ public class ListView extends VScrollContainer {
 
 
 	/*
-	 * Officially select an item internally (also checks if item is in this list).
-	 * 
-	 * selectedItem is only modified here ! selectedItems is only modified here and
-	 * in deselect
+	 * Officially select an item internally (also checks if the index is valid).
+	 * The item becomes anchor and lead of the selection.
 	 * 
 	 * The style of the selected item will be changed to fit background and hover
 	 * color for selected items.
-	 * 
 	 */
 	protected void selectImpl(int index) {
-		if (index >= 0 && index < items.size()) {
-			selectedItem = items.get(index);
+		if (index >= 0 && index < getItemCount()) {
+			selection.select(index);
+			selection.setAnchor(index);
+			selection.setLead(index);
+			setViewSelected(viewOf(index), true);
+			fireSelect(index);
+		} else {
+			selection.setLead(-1);
+		}
+	}
 
-			if (!selectedItems.contains(selectedItem)) {
-				selectedItems.add(selectedItem);
+	protected void selectImpl(Control item) {
+		selectImpl(indexOf(item));
+	}
+
+	/*
+	 * Select all rows from one row to another (inclusive). The anchor stays, the
+	 * last row becomes the lead. The select event is raised once for the lead.
+	 */
+	private void selectRows(int from, int to) {
+		syncOrder();
+		int lo = Math.min(from, to), hi = Math.max(from, to);
+		if (order == null) {
+			selection.selectRange(lo, hi);
+		} else {
+			for (int row = lo; row <= hi; row++) {
+				selection.select(order[row]);
+			}
+		}
+		if (model != null) {
+			updateViews();
+		} else {
+			for (int i = lo; i <= hi; i++) {
+				setViewSelected(items.get(i), true);
 			}
+		}
+		int lead = indexAtRow(to);
+		selection.setLead(lead);
+		fireSelect(lead);
+	}
+
+	/*
+	 * Raise the select event for an index. In model mode entries that aren't shown
+	 * by a row in view have no item to pass, so the event is skipped for them.
+	 */
+	private void fireSelect(int index) {
+		Control view = viewOf(index);
+		if (view != null) {
+			handleEvent(selectListener, view);
+		}
+	}
 
-			try {
-				// only raise event if item has not been selected before
-				if (!((ListItem) selectedItem).selected) {
-					((ListItem) selectedItem).selected = true; // dont use setter here
-					selectedItem.update();
+	// the style of selected items differs (don't use the setter of ListItem here)
+	private void setViewSelected(Control view, boolean selected) {
+		if (view instanceof ListItem && ((ListItem) view).selected != selected) {
+			((ListItem) view).selected = selected;
+			view.invalidatePaint();
+		}
+	}
 
-				}
-			} catch (ClassCastException e) {
+	// update the selected state of all views in model mode
+	private void updateViews() {
+		for (int i = 0; i < items.size(); i++) {
+			ListItem view = (ListItem) items.get(i);
+			if (view.row >= 0) {
+				setViewSelected(view, selection.isSelected(indexAtRow(view.row)));
 			}
-			handleEvent(selectListener, selectedItem);
+		}
+	}
 
-		} else {
-			selectedItem = null;
+	private void beginSelectionChange() {
+		selectionChanging++;
+	}
+
+	private void endSelectionChange() {
+		if (--selectionChanging == 0) {
+			updateSelectedItems();
+			if (selection.takeChanged()) {
+				handleEvent(selectionChangeListener, this);
+			}
 		}
 	}
 
-	protected void selectImpl(Control item) {
-		selectImpl(indexOf(item));
+	// keep the deprecated fields for subclasses up to date
+	@SuppressWarnings("deprecation")
+	private void updateSelectedItems() {
+		selectedItem = getSelectedItem();
+		selectedItems.clear();
+		if (model == null) {
+			for (int i = selection.nextSelected(0); i >= 0 && i < items.size(); i = selection.nextSelected(i + 1)) {
+				selectedItems.add(items.get(i));
+			}
+		}
+	}
+
+	@Override
+	public int indexOf(Control item) {
+		if (model != null) {
+			return item instanceof ListItem && ((ListItem) item).row >= 0 ? indexAtRow(((ListItem) item).row) : -1;
+		}
+		return super.indexOf(item);
 	}
 
 
@@ -177,19 +299,13 @@ public class ListView extends VScrollContainer {
 	 * @param index index of item to deselect. Throws no error if index is bad.
 	 */
 	public void deselect(int index) {
-		if (index >= 0 && index < items.size()) {
-			Control c = items.get(index);
-			if (c instanceof ListItem) {
-				// only raise event if item has not been selected before
-				if (((ListItem) c).isSelected()) {
-					((ListItem) c).selected = false; // dont use setter here
-					c.update();
-				}
-			}
-
-			selectedItems.remove(c);	// does no harm if not in list
-			if (selectedItem == c)		// if this is head-of-selected-items, deselect
-				selectImpl(-1);
+		if (index >= 0 && index < getItemCount()) {
+			beginSelectionChange();
+			selection.deselect(index);
+			setViewSelected(viewOf(index), false);
+			if (selection.getLead() == index) // if this is head-of-selected-items, deselect
+				selection.setLead(-1);
+			endSelectionChange();
 		}
 	}
 
@@ -206,10 +322,18 @@ public class ListView extends VScrollContainer {
 	 * Deselect all items
 	 */
 	public void deselectAll() {
-		while (selectedItems.size() > 0) {
-			deselect(selectedItems.get(0));
+		beginSelectionChange();
+		if (model != null) {
+			for (Control c : items) {
+				setViewSelected(c, false);
+			}
+		} else {
+			for (int i = selection.nextSelected(0); i >= 0 && i < items.size(); i = selection.nextSelected(i + 1)) {
+				setViewSelected(items.get(i), false);
+			}
 		}
-		selectImpl(-1);
+		selection.clear(); // resets anchor and lead too
+		endSelectionChange();
 	}
 
 
@@ -222,9 +346,11 @@ public class ListView extends VScrollContainer {
 	 * @param index index in listviews item list
 	 */
 	public void select(int index) {
+		beginSelectionChange();
 		if (!multiSelect)
 			deselectAll();
 		selectImpl(index);
+		endSelectionChange();
 	}
 
 	/**
@@ -234,9 +360,71 @@ public class ListView extends VScrollContainer {
 	 * @param item item to select
 	 */
 	public void select(Control item) {
-		if (!multiSelect)
-			deselectAll();
-		selectImpl(item);
+		select(indexOf(item));
+	}
+
+	/**
+	 * Select all items from one index to another (inclusive) if multiselect is activated. The select
+	 * event is raised once for the last item.
+	 * 
+	 * @param from first index
+	 * @param to   last index
+	 */
+	public void selectRange(int from, int to) {
+		int n = getItemCount();
+		if (!multiSelect || n == 0)
+			return;
+		from = Math.max(0, Math.min(from, n - 1));
+		to = Math.max(0, Math.min(to, n - 1));
+		beginSelectionChange();
+		selection.selectRange(from, to);
+		if (model != null) {
+			updateViews();
+		} else {
+			for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+				setViewSelected(items.get(i), true);
+			}
+		}
+		selection.setLead(to);
+		fireSelect(to);
+		endSelectionChange();
+	}
+
+	/**
+	 * Deselect all items from one index to another (inclusive).
+	 * 
+	 * @param from first index
+	 * @param to   last index
+	 */
+	public void deselectRange(int from, int to) {
+		int n = getItemCount();
+		if (n == 0)
+			return;
+		from = Math.max(0, Math.min(from, n - 1));
+		to = Math.max(0, Math.min(to, n - 1));
+		beginSelectionChange();
+		selection.deselectRange(from, to);
+		if (model != null) {
+			updateViews();
+		} else {
+			for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+				setViewSelected(items.get(i), false);
+			}
+		}
+		if (selection.getLead() >= Math.min(from, to) && selection.getLead() <= Math.max(from, to)) {
+			selection.setLead(-1);
+		}
+		endSelectionChange();
+	}
+
+	/**
+	 * Check if the item with given index is selected.
+	 * 
+	 * @param index index (model index in model mode)
+	 * @return true if selected
+	 */
+	public boolean isSelected(int index) {
+		return selection.isSelected(index);
 	}
 
 
@@ -246,10 +434,12 @@ public class ListView extends VScrollContainer {
 	 * @param index index in listviews item list
 	 */
 	public void setSelectedItem(int index) {
+		beginSelectionChange();
 		deselectAll();
 		selectImpl(index);
-		scrollToItem(selectedItem);
-		update();
+		scrollToItem(index);
+		invalidatePaint();
+		endSelectionChange();
 	}
 
 
@@ -272,6 +462,17 @@ public class ListView extends VScrollContainer {
 	 * @param newItem item text
 	 */
 	public void add(String newItem) {
+		if (model != null) {
+			System.err.println("ListView: can't add items in model mode, add them to the model instead");
+			return;
+		}
+		this.add(createListItem(newItem));
+	}
+
+	/*
+	 * Create a ListItem with the properties for new items.
+	 */
+	protected ListItem createListItem(String newItem) {
 		ListItem newListItem = new ListItem();
 
 		/*
@@ -285,13 +486,16 @@ public class ListView extends VScrollContainer {
 		newListItem.setSelectionColor(getSelectionColor());
 		newListItem.setSelectionHoverColor(getSelectionHoverColor());
 		newListItem.setTextColor(getTextColor());
-
-		this.add(newListItem);
+		return newListItem;
 	}
 
 
 	@Override
 	public void add(Control... items) {
+		if (model != null) {
+			System.err.println("ListView: can't add items in model mode, add them to the model instead");
+			return;
+		}
 		for (Control item : items) {
 			if (item instanceof ListItem) {
 				item.setWidth(getAvailableWidth());
@@ -308,6 +512,10 @@ public class ListView extends VScrollContainer {
 	 */
 	@Override
 	public void clear() {
+		if (model != null) {
+			setModel(null);
+			return;
+		}
 		deselectAll();
 		super.clear();
 	}
@@ -320,8 +528,14 @@ public class ListView extends VScrollContainer {
 	 */
 	@Override
 	public Control remove(int index) {
+		beginSelectionChange();
 		deselect(index);
-		return super.remove(index);
+		Control removedItem = super.remove(index);
+		if (model == null) {
+			selection.remove(index, 1);
+		}
+		endSelectionChange();
+		return removedItem;
 	}
 
 	/**
@@ -331,8 +545,43 @@ public class ListView extends VScrollContainer {
 	 */
 	@Override
 	public boolean remove(Control item) {
-		deselect(item);
-		return super.remove(item);
+		int index = indexOf(item);
+		if (index < 0 || model != null)
+			return false;
+		remove(index);
+		return true;
+	}
+
+	@Override
+	protected void insertImpl(int position, Control item) {
+		super.insertImpl(position, item);
+		if (model == null) {
+			selection.insert(position, 1);
+		}
+	}
+
+	/**
+	 * Sort items providing a Comparator. Selected items stay selected.
+	 * 
+	 * @param comp Comparator
+	 */
+	@Override
+	public void sortItems(Comparator<Control> comp) {
+		if (model != null)
+			return;
+		Control[] before = items.toArray(new Control[items.size()]);
+		super.sortItems(comp);
+
+		IdentityHashMap<Control, Integer> newIndices = new IdentityHashMap<Control, Integer>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			newIndices.put(items.get(i), i);
+		}
+		int[] moved = new int[before.length];
+		for (int i = 0; i < before.length; i++) {
+			moved[i] = newIndices.get(before[i]);
+		}
+		selection.permute(moved);
+		updateSelectedItems();
 	}
 
 
@@ -354,22 +603,59 @@ public class ListView extends VScrollContainer {
 	}
 
 	/**
-	 * Sort items alphanumerically. If argument is false then the items are sorted backwards.
+	 * Sort items alphanumerically. If argument is true then the items are sorted backwards. Items
+	 * without text keep their position. Selected items stay selected.
 	 * 
+	 * The sort runs on the calling thread, in model mode use {@link #sortAsync(boolean)} for large
+	 * lists to keep the sketch responsive.
 	 * 
 	 * @param reversed sort reversed
 	 */
 	public void sortAlphaNumerically(boolean reversed) {
-		sortItems(new Comparator<Control>() {
+		if (model != null) {
+			startTask(new Task(), true, reversed, null, filter, false);
+			return;
+		}
+		/*
+		 * get the texts once instead of in every comparison, then sort the positions
+		 * of the text items by them (stable, equal texts keep their order)
+		 */
+		int n = items.size();
+		int[] slots = new int[n];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			if (items.get(i) instanceof TextBased) {
+				slots[count++] = i;
+			}
+		}
+		String[] keys = new String[count];
+		Integer[] sorted = new Integer[count];
+		for (int k = 0; k < count; k++) {
+			String text = ((TextBased) items.get(slots[k])).getText();
+			keys[k] = text == null ? "" : text;
+			sorted[k] = k;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
 			@Override
-			public int compare(Control a, Control b) {
-				if (a instanceof TextBased && b instanceof TextBased) {
-					return ((TextBased) a).getText().compareTo(((TextBased) b).getText()) * (reversed ? -1 : 1);
-				} else {
-					return 0;
-				}
+			public int compare(Integer a, Integer b) {
+				return reversed ? keys[b].compareTo(keys[a]) : keys[a].compareTo(keys[b]);
 			}
 		});
+
+		Control[] before = items.toArray(new Control[n]);
+		int[] moved = new int[n];
+		for (int i = 0; i < n; i++) {
+			moved[i] = i;
+		}
+		for (int k = 0; k < count; k++) {
+			int from = slots[sorted[k]];
+			items.set(slots[k], before[from]);
+			moved[from] = slots[k];
+		}
+		itemsChanged();
+		invalidateLayout();
+		selection.permute(moved);
+		updateSelectedItems();
 	}
 
 
@@ -389,7 +675,7 @@ public class ListView extends VScrollContainer {
 	 */
 	public void setNewItemBackgroundColor(int itemBackgroundColor) {
 		this.newItemBackgroundColor = itemBackgroundColor;
-		update();
+		invalidatePaint();
 	}
 
 
@@ -411,7 +697,7 @@ public class ListView extends VScrollContainer {
 			// lighten color for HoverColor and PressedColor when color too dark
 			selectionHoverColor = GuisetColor.create(r + 20, g + 20, b + 20);
 		}
-		update();
+		invalidatePaint();
 	}
 
 
@@ -422,7 +708,7 @@ public class ListView extends VScrollContainer {
 	 */
 	public void setSelectionHoverColor(int selectionHoverColor) {
 		this.selectionHoverColor = selectionHoverColor;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -436,9 +722,11 @@ public class ListView extends VScrollContainer {
 		if (!multiSelect) {
 			// if set multiselect to false while multiple items are selected:
 			// deselect all and re-select the most recent
-			Control temp = selectedItem;
+			beginSelectionChange();
+			int temp = selection.getLead();
 			deselectAll();
 			selectImpl(temp);
+			endSelectionChange();
 		}
 	}
 
@@ -464,24 +752,77 @@ public class ListView extends VScrollContainer {
 	}
 
 	/**
-	 * Get most recently selected item.
+	 * Get most recently selected item. In model mode this is null, use {@link #getSelectedValue()}
+	 * instead.
 	 * 
 	 * @return selected item
 	 */
 	public Control getSelectedItem() {
-		return selectedItem;
+		int lead = selection.getLead();
+		return model == null && lead >= 0 && lead < items.size() ? items.get(lead) : null;
 	}
 
+	/**
+	 * Get the index of the most recently selected item (the model index in model mode).
+	 * 
+	 * @return index or -1
+	 */
 	public int getSelectionIndex() {
-		return items.indexOf(selectedItem);
+		return selection.getLead();
+	}
+
+	/**
+	 * Get the model entry of the most recently selected row in model mode.
+	 * 
+	 * @return selected entry or null
+	 */
+	public Object getSelectedValue() {
+		int lead = selection.getLead();
+		if (model != null && lead >= 0 && lead < model.size()) {
+			return model.get(lead);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the indices of all selected items (model indices in model mode) in ascending order.
+	 * 
+	 * @return selected indices
+	 */
+	public int[] getSelectedIndices() {
+		return selection.getSelectedIndices();
+	}
+
+	/**
+	 * Get the selection with anchor and lead. Change it through the methods of the list view.
+	 * 
+	 * @return selection
+	 */
+	public SelectionModel getSelectionModel() {
+		return selection;
+	}
+
+	public ListModel<?> getModel() {
+		return model;
 	}
 
 	/**
-	 * Get all selected items (if multiselect enabled).
+	 * Get all selected items (if multiselect enabled) in the order of the list.
+	 * 
+	 * Changed in this version: this used to return the internal list in the order the items were
+	 * selected in. Now it returns a new list in the order of the list every time, changing it doesn't
+	 * change the selection. In model mode the list is always empty, use {@link #getSelectedIndices()}
+	 * instead.
 	 * 
 	 * @return selected items
 	 */
 	public ArrayList<Control> getSelectedItems() {
+		ArrayList<Control> selectedItems = new ArrayList<Control>(model == null ? selection.getSelectedCount() : 0);
+		if (model == null) {
+			for (int i = selection.nextSelected(0); i >= 0 && i < items.size(); i = selection.nextSelected(i + 1)) {
+				selectedItems.add(items.get(i));
+			}
+		}
 		return selectedItems;
 	}
 
@@ -507,6 +848,10 @@ public class ListView extends VScrollContainer {
 	/**
 	 * Set a listener for when an item is selected.
 	 * 
+	 * In model mode the item is the row that currently shows the entry and the event is only raised
+	 * if the entry is in view. Use {@link #setSelectionChangeListener(String, Object)} and
+	 * {@link #getSelectionIndex()} there instead.
+	 * 
 	 * Event arguments: the {@link Control} whose state has changed
 	 * 
 	 * @param methodName methodName
@@ -548,26 +893,614 @@ public class ListView extends VScrollContainer {
 		selectListener = null;
 	}
 
+	protected EventListener selectionChangeListener;
+
+	/**
+	 * Set a listener for when the selection changed. It is raised once per change, i.e. once when a
+	 * range of items is selected with shift.
+	 * 
+	 * Event arguments: this {@link ListView}
+	 * 
+	 * @param methodName methodName
+	 * @param target     target
+	 */
+	public void setSelectionChangeListener(String methodName, Object target) {
+		selectionChangeListener = createEventListener(methodName, target, ListView.class);
+	}
+
+	public void setSelectionChangeListener(String methodName) {
+		setSelectionChangeListener(methodName, getPApplet());
+	}
+
+	/**
+	 * Set a listener lambda for when the selection changed.
+	 * 
+	 * Event arguments: this {@link ListView}
+	 * 
+	 * @param lambda lambda expression with {@link ListView} parameter
+	 */
+	public void setSelectionChangeListener(Predicate1<ListView> lambda) {
+		selectionChangeListener = new LambdaEventListener1<ListView>(lambda);
+	}
+
+	/**
+	 * Set a listener lambda for when the selection changed.
+	 * 
+	 * Event arguments: none
+	 * 
+	 * @param lambda lambda expression
+	 */
+	public void setSelectionChangeListener(Predicate lambda) {
+		selectionChangeListener = new LambdaEventListener(lambda);
+	}
+
+	public void removeSelectionChangeListener() {
+		selectionChangeListener = null;
+	}
+
 
 
 	@Override
 	protected void keyPress(KeyEvent e) {
 		super.keyPress(e);
+		int row = rowOfIndex(selection.getLead());
 		switch (e.getKeyCode()) {
 		case Constants.DOWN:
-			int selectionIndex = getSelectionIndex();
-			if (selectionIndex < items.size() - 1) {
-				itemPressed(items.get(selectionIndex + 1));
-				scrollToItem(selectionIndex + 1);
+			if (row < getRowCount() - 1) {
+				rowPressed(row + 1);
+				scrollToItem(indexAtRow(row + 1));
 			}
 			break;
 		case Constants.UP:
-			selectionIndex = getSelectionIndex();
-			if (selectionIndex > 0) {
-				itemPressed(items.get(selectionIndex - 1));
-				scrollToItem(selectionIndex - 1);
+			if (row > 0) {
+				rowPressed(row - 1);
+				scrollToItem(indexAtRow(row - 1));
 			}
 			break;
 		}
 	}
+
+
+
+
+
+	/*
+	 * MODEL MODE
+	 */
+
+	/**
+	 * Bind the list view to a model. All items are removed and only ListItems for the rows in view
+	 * are created (and reused while scrolling), so the model can hold a lot of entries. Rows are
+	 * displayed with {@code String.valueOf(model.get(index))} and have the height of a single line.
+	 * 
+	 * In model mode indices of {@link #select(int)}, {@link #deselect(int)},
+	 * {@link #scrollToItem(int)}, {@link #getSelectionIndex()} etc. are model indices. Items can't be
+	 * added to the list view itself. Pass null to leave model mode.
+	 * 
+	 * The item select event is only raised for entries in view, the selection change event is
+	 * raised for every change.
+	 * 
+	 * @param model model or null
+	 */
+	public void setModel(ListModel<?> model) {
+		deselectAll();
+		if (this.model != null) {
+			this.model.removeListener(modelListener);
+		}
+		super.clear();
+		this.model = model;
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+		order = null;
+		rowOf = null;
+		sortedOrder = null;
+		filter = "";
+		texts = null;
+		lowerTexts = null;
+		textsVersion = -1;
+		modelVersion++;
+		pendingChanges.clear();
+		selection.clear();
+		selection.takeChanged();
+		updateSelectedItems();
+		rowHeight = -1;
+		if (model != null) {
+			model.addListener(modelListener);
+		}
+		update();
+	}
+
+	@Override
+	protected void render() {
+		if (model == null) {
+			super.render();
+			return;
+		}
+		drawDefaultBackground();
+
+		syncOrder();
+		int rows = getRowCount();
+		int h = getRowHeight();
+		fullScrollHeight = getPaddingTop() + rows * h + getPaddingBottom();
+		scrollPosition = PApplet.constrain(scrollPosition, 0, PApplet.max(0, fullScrollHeight - getHeight()));
+		layoutDirty = false;
+
+		int first = Math.max(0, (scrollPosition - getPaddingTop()) / h);
+		int last = Math.min(rows - 1, (scrollPosition - getPaddingTop() + getHeight()) / h);
+		bindRows(first, last);
+
+		for (int i = 0; i < items.size(); i++) {
+			ListItem view = (ListItem) items.get(i);
+			if (view.row >= 0) {
+				renderItem(view, view.getMarginLeft() + getPaddingLeft(), getPaddingTop() + view.row * h + view.getMarginTop() - scrollPosition);
+			} else {
+				view.offsetX = getWidth(); // out of view, no mouse events
+				view.offsetY = getHeight();
+			}
+		}
+
+		drawScrollbar();
+		drawDefaultDisabled();
+	}
+
+	/*
+	 * Make sure there is a view for each row from first to last. Views that
+	 * already show one of these rows keep it, the others are bound to the
+	 * remaining rows. Binding doesn't invalidate anything as the views are
+	 * rendered right afterwards.
+	 */
+	private void bindRows(int first, int last) {
+		int count = Math.max(0, last - first + 1);
+		while (items.size() < count) {
+			ListItem view = createListItem("");
+			view.setWidth(getAvailableWidth());
+			insertImpl(items.size(), view);
+		}
+
+		if (boundViews.length < count) {
+			boundViews = new ListItem[count];
+		}
+		Arrays.fill(boundViews, 0, count, null);
+		freeViews.clear();
+		for (int i = 0; i < items.size(); i++) {
+			ListItem view = (ListItem) items.get(i);
+			if (view.row >= first && view.row <= last && boundViews[view.row - first] == null) {
+				boundViews[view.row - first] = view;
+			} else {
+				view.row = -1;
+				freeViews.add(view);
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			if (boundViews[i] == null) {
+				ListItem view = freeViews.remove(freeViews.size() - 1);
+				int index = indexAtRow(first + i);
+				view.row = first + i;
+				view.text = String.valueOf(model.get(index));
+				view.selected = selection.isSelected(index);
+				view.dirty = true;
+			}
+		}
+	}
+
+	// let all views be bound again, i.e. because the model changed
+	private void unbindViews() {
+		for (int i = 0; i < items.size(); i++) {
+			((ListItem) items.get(i)).row = -1;
+		}
+		invalidatePaint();
+	}
+
+	// item that shows the entry with given index, null if not in view (model mode)
+	private Control viewOf(int index) {
+		if (model == null) {
+			return index >= 0 && index < items.size() ? items.get(index) : null;
+		}
+		int row = rowOfIndex(index);
+		for (int i = 0; i < items.size(); i++) {
+			if (row >= 0 && ((ListItem) items.get(i)).row == row) {
+				return items.get(i);
+			}
+		}
+		return null;
+	}
+
+	private int indexAtRow(int row) {
+		syncOrder();
+		return order != null ? order[row] : row;
+	}
+
+	private int rowOfIndex(int index) {
+		if (index < 0)
+			return -1;
+		syncOrder();
+		return rowOf != null ? rowOf[index] : index;
+	}
+
+	private int getRowCount() {
+		if (model != null) {
+			syncOrder();
+			return order != null ? order.length : model.size();
+		}
+		return items.size();
+	}
+
+	// number of entries, including the ones that are filtered out
+	private int getItemCount() {
+		return model != null ? model.size() : items.size();
+	}
+
+	/*
+	 * Height of a row in model mode, measured with an item for a single line.
+	 */
+	private int getRowHeight() {
+		if (rowHeight < 0) {
+			ListItem template = createListItem("X");
+			rowHeight = Math.max(1, template.getHeight() + template.getMarginTop() + template.getMarginBottom());
+		}
+		return rowHeight;
+	}
+
+	private void scrollToRow(int row) {
+		if (row < 0)
+			return;
+		int h = getRowHeight();
+		int y = getPaddingTop() + row * h;
+		if (scrollPosition > y) {
+			setScrollPosition(y);
+		} else if (scrollPosition + getHeight() < y + h) {
+			setScrollPosition(y - getHeight() + h);
+		}
+	}
+
+	@Override
+	public void scrollToItem(int index) {
+		if (model != null) {
+			if (index >= 0 && index < model.size()) {
+				scrollToRow(rowOfIndex(index));
+			}
+			return;
+		}
+		super.scrollToItem(index);
+	}
+
+	@Override
+	public void scrollToItem(Control item) {
+		if (model != null) {
+			if (item instanceof ListItem) {
+				scrollToRow(((ListItem) item).row);
+			}
+			return;
+		}
+		super.scrollToItem(item);
+	}
+
+	/**
+	 * Handle of a sort or filter that runs in the background, see {@link ListView#sortAsync(boolean)}
+	 * and {@link ListView#filterAsync(String)}.
+	 */
+	public static class Task {
+
+		volatile boolean cancelled = false;
+		volatile boolean done = false;
+		volatile float progress = 0;
+
+		/**
+		 * Stop the task. The rows of the list view stay as they are.
+		 */
+		public void cancel() {
+			cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		/**
+		 * @return true if the task has finished and the rows have been updated
+		 */
+		public boolean isDone() {
+			return done;
+		}
+
+		/**
+		 * @return progress from 0 to 1
+		 */
+		public float getProgress() {
+			return progress;
+		}
+	}
+
+	/**
+	 * Sort the rows alphanumerically on a background thread without changing the model (model mode
+	 * only). The rows are updated in the frame after the sort has finished, a running sort or filter is
+	 * cancelled. An active filter is kept.
+	 * 
+	 * @param reversed sort reversed
+	 * @return handle to follow or cancel the sort
+	 */
+	public Task sortAsync(boolean reversed) {
+		return sortAsync(null, reversed);
+	}
+
+	/**
+	 * Sort the rows on a background thread with given collator (i.e. for locale aware sorting) without
+	 * changing the model (model mode only). The collation keys are computed once per entry.
+	 * 
+	 * @param collator collator, null to compare the texts alphanumerically
+	 * @param reversed sort reversed
+	 * @return handle to follow or cancel the sort
+	 */
+	public Task sortAsync(Collator collator, boolean reversed) {
+		Task t = new Task();
+		if (model == null) {
+			System.err.println("ListView.sortAsync() is only available in model mode, use sortAlphaNumerically()");
+			t.cancelled = true;
+			return t;
+		}
+		return startTask(t, true, reversed, collator, filter, true);
+	}
+
+	/**
+	 * Only show rows that contain given text (case insensitive) without changing the model (model mode
+	 * only). The rows are filtered on a background thread and updated in the frame after the filter has
+	 * finished, a running sort or filter is cancelled. If the text only gets longer (i.e. while typing),
+	 * only the rows shown so far are filtered again. Indices stay model indices.
+	 * 
+	 * @param text text to search for, null or "" to show all rows
+	 * @return handle to follow or cancel the filter
+	 */
+	public Task filterAsync(String text) {
+		Task t = new Task();
+		if (model == null) {
+			System.err.println("ListView.filterAsync() is only available in model mode");
+			t.cancelled = true;
+			return t;
+		}
+		return startTask(t, false, false, null, text == null ? "" : text.toLowerCase(Locale.ROOT), true);
+	}
+
+	/**
+	 * Get the text rows are filtered with (lowercase).
+	 * 
+	 * @return filter text, "" if not filtered
+	 */
+	public String getFilter() {
+		return filter;
+	}
+
+	/*
+	 * Take a snapshot of the model and run a sort or filter on it. Asynchronous
+	 * jobs run in the common fork join pool and are applied with the frame's
+	 * scheduler, so the rows only change on the drawing thread.
+	 */
+	private Task startTask(Task t, boolean sort, boolean reversed, Collator collator, String newFilter, boolean async) {
+		if (task != null && task != t) {
+			task.cancel();
+		}
+		task = t;
+		syncOrder();
+
+		RowOrder job = new RowOrder(t, modelVersion, sort, reversed, collator, newFilter);
+		if (textsVersion == modelVersion) {
+			job.texts = texts;
+			job.lowerTexts = lowerTexts;
+			// a longer filter text only removes rows
+			if (!sort && newFilter.contains(filter)) {
+				job.candidates = order;
+			}
+		} else {
+			Object[] values = new Object[model.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = model.get(i);
+			}
+			job.values = values;
+		}
+		if (!sort) {
+			job.sorted = sortedOrder;
+		}
+
+		Frame frame = getFrame();
+		if (async && frame != null) {
+			ForkJoinPool.commonPool().execute(() -> {
+				job.run();
+				if (!t.cancelled) {
+					frame.getScheduler().schedule(0, () -> applyTask(job));
+				}
+			});
+		} else {
+			job.run();
+			applyTask(job);
+		}
+		return t;
+	}
+
+	private void applyTask(RowOrder job) {
+		Task t = job.task;
+		if (t.cancelled || t != task) {
+			return;
+		}
+		if (job.version != modelVersion) {
+			// the model changed in the meantime, do it again
+			startTask(t, job.sort, job.reversed, job.collator, job.filter, true);
+			return;
+		}
+		task = null;
+		texts = job.texts;
+		lowerTexts = job.lowerTexts;
+		textsVersion = job.version;
+		if (job.sort) {
+			sortedOrder = job.sorted;
+		}
+		filter = job.filter;
+		order = job.order;
+		updateRowOf();
+		unbindViews();
+		t.progress = 1;
+		t.done = true;
+	}
+
+	private void updateRowOf() {
+		if (order == null) {
+			rowOf = null;
+			return;
+		}
+		rowOf = new int[model.size()];
+		Arrays.fill(rowOf, -1);
+		for (int row = 0; row < order.length; row++) {
+			rowOf[order[row]] = row;
+		}
+	}
+
+	/*
+	 * Apply the pending model changes to the sorted and filtered order in one
+	 * pass. The changes are first combined into segments of the new model, each
+	 * either a range of entries from before the changes or a range of new
+	 * entries. New entries are shown at the end until sorted again (if they match
+	 * the filter).
+	 */
+	private void syncOrder() {
+		if (pendingChanges.isEmpty())
+			return;
+
+		// rowOf has the model size from before the changes
+		int oldSize = rowOf.length;
+		ArrayList<int[]> segments = new ArrayList<int[]>(); // {first old index or -1 if new, length}
+		if (oldSize > 0) {
+			segments.add(new int[] { 0, oldSize });
+		}
+		for (int[] change : pendingChanges) {
+			int i = splitSegments(segments, change[0]);
+			if (change[1] > 0) {
+				if (i > 0 && segments.get(i - 1)[0] < 0) {
+					segments.get(i - 1)[1] += change[1]; // i.e. consecutive appends
+				} else {
+					segments.add(i, new int[] { -1, change[1] });
+				}
+			} else {
+				segments.subList(i, splitSegments(segments, change[0] - change[1])).clear();
+			}
+		}
+		pendingChanges.clear();
+
+		int[] newIndices = new int[oldSize];
+		Arrays.fill(newIndices, -1);
+		int[] added = new int[model.size()];
+		int addedCount = 0;
+		int position = 0;
+		for (int[] segment : segments) {
+			for (int k = 0; k < segment[1]; k++) {
+				if (segment[0] >= 0) {
+					newIndices[segment[0] + k] = position + k;
+				} else {
+					added[addedCount++] = position + k;
+				}
+			}
+			position += segment[1];
+		}
+
+		if (sortedOrder != null) {
+			sortedOrder = remapIndices(sortedOrder, newIndices, added, addedCount, false);
+		}
+		if (filter.length() > 0) {
+			order = remapIndices(order, newIndices, added, addedCount, true);
+		} else {
+			order = sortedOrder;
+		}
+		updateRowOf();
+	}
+
+	// Make a segment start at given position, returns its index (segments.size() at the end)
+	private static int splitSegments(ArrayList<int[]> segments, int position) {
+		int start = 0;
+		for (int i = 0; i < segments.size(); i++) {
+			int[] segment = segments.get(i);
+			if (start == position) {
+				return i;
+			}
+			if (position < start + segment[1]) {
+				int length = position - start;
+				segments.add(i + 1, new int[] { segment[0] < 0 ? -1 : segment[0] + length, segment[1] - length });
+				segment[1] = length;
+				return i + 1;
+			}
+			start += segment[1];
+		}
+		return segments.size();
+	}
+
+	private int[] remapIndices(int[] o, int[] newIndices, int[] added, int addedCount, boolean filtered) {
+		int[] result = new int[o.length + addedCount];
+		int n = 0;
+		for (int row = 0; row < o.length; row++) {
+			int index = newIndices[o[row]];
+			if (index >= 0) {
+				result[n++] = index;
+			}
+		}
+		for (int i = 0; i < addedCount; i++) {
+			if (!filtered || String.valueOf(model.get(added[i])).toLowerCase(Locale.ROOT).contains(filter)) {
+				result[n++] = added[i];
+			}
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	@Override
+	protected int getFirstEventItem() {
+		return model != null ? 0 : super.getFirstEventItem();
+	}
+
+	@Override
+	protected int getLastEventItem() {
+		return model != null ? items.size() - 1 : super.getLastEventItem();
+	}
+
+	@Override
+	public void setFontSize(float fontSize) {
+		super.setFontSize(fontSize);
+		if (model != null) {
+			// views are created again with the new size
+			rowHeight = -1;
+			super.clear();
+		}
+	}
+
+	/*
+	 * Keeps selection, sorted and filtered order in sync with the model.
+	 */
+	private class ModelListener implements ListModel.Listener {
+
+		@Override
+		public void itemsInserted(int index, int count) {
+			modelVersion++;
+			selection.insert(index, count);
+			if (order != null) {
+				pendingChanges.add(new int[] { index, count });
+			}
+			unbindViews();
+		}
+
+		@Override
+		public void itemsRemoved(int index, int count) {
+			modelVersion++;
+			beginSelectionChange();
+			selection.remove(index, count);
+			if (order != null) {
+				pendingChanges.add(new int[] { index, -count });
+			}
+			unbindViews();
+			endSelectionChange();
+		}
+
+		@Override
+		public void itemsChanged(int index, int count) {
+			// the rows stay where they are until sorted or filtered again
+			modelVersion++;
+			unbindViews();
+		}
+	}
 }
@@ -0,0 +1,574 @@
+package guiSET.core;
+
+
+/*
+ * LogView is a view-only text area for text that arrives continuously (i.e.
+ * from a serial port or another process). Text can only be appended.
+ *
+ * The lines are kept in a ring buffer, so appending a line and dropping the
+ * oldest one when the retention limit is reached take O(1) (amortized when the
+ * buffer grows). Each line is measured and wrapped once when it arrives, the
+ * breaks are cached and only computed again when the width or font size
+ * changes. The number of rows of each slot is kept in an ExtentIndex, so the
+ * lines in view are found in O(log n) and only these are drawn.
+ *
+ * Text can be appended from any thread, it is collected and moved into the
+ * buffer on the animation thread by the scheduler of the frame.
+ */
+
+import processing.core.*;
+import processing.data.IntList;
+
+
+/**
+ * A view-only text area for streaming text like the output of a serial port or a log. Text can
+ * only be appended with {@link #append(String)}, which may be called from any thread (i.e. from
+ * serialEvent()). Old lines are dropped when the line or byte limit is exceeded. Long lines are
+ * wrapped at the width of the view.
+ *
+ * While the view is scrolled to the bottom it follows new text, scrolling up stops following until
+ * the user scrolls down to the bottom again.
+ */
+public class LogView extends VScrollContainer {
+
+	// ring buffer of lines, the line with index i is in slot (head + i) % lines.length
+	private String[] lines;
+	private float[] lineWidths; 	// width of each line in pixel
+	private int[][] lineBreaks; 	// start of each row after the first one, null if the line fits
+	private int head = 0;
+	private int count = 0;
+
+	// number of rows of each slot (0 for empty slots)
+	private final ExtentIndex rows = new ExtentIndex();
+
+	// true if the last line has not been terminated with a newline yet
+	private boolean lineOpen = false;
+
+	private int maxLines = 10000;
+	private long maxBytes = -1;
+	private long bytes = 0;
+
+	private boolean autoScroll = true;
+	private boolean pinned = true;
+	private boolean lineWrap = true;
+
+	// width and font size the lines have been measured and wrapped for
+	private int wrapWidth = -1;
+	private float wrapFontSize = -1;
+
+	// text appended since the last flush (possibly from another thread)
+	private final StringBuilder incoming = new StringBuilder();
+	private boolean flushScheduled = false;
+
+
+
+	public LogView() {
+		this(200, 150);
+	}
+
+	public LogView(int width, int height) {
+		super(width, height);
+		allocate(16);
+
+		setBackgroundColor(230);
+		setPadding(3);
+		setFontSize(12);
+		setLineHeightPercent(120);
+		setSlimScrollHandle(true);
+	}
+
+
+
+
+	/*
+	 * Graphics
+	 */
+
+	@Override
+	protected void render() {
+		flush();
+		checkWrap();
+
+		pg.textSize(getFontSize());
+		drawDefaultBackground();
+
+		int lineHeight = getLineHeight();
+		fullScrollHeight = getPaddingTop() + rows.total() * lineHeight + getPaddingBottom();
+		if (autoScroll && pinned) {
+			scrollPosition = fullScrollHeight - getHeight();
+		}
+		scrollPosition = PApplet.constrain(scrollPosition, 0, PApplet.max(0, fullScrollHeight - getHeight()));
+
+		pg.fill(getTextColor());
+		pg.textAlign(PApplet.LEFT, PApplet.TOP);
+
+		// only visit the lines in view
+		int index = lineAtRow(Math.max(0, (scrollPosition - getPaddingTop()) / lineHeight));
+		float posY = getPaddingTop() + rowOffset(index) * lineHeight - scrollPosition;
+		for (; index < count && posY <= getHeight(); index++) {
+			int slot = slot(index);
+			String line = lines[slot];
+			int[] breaks = lineBreaks[slot];
+			if (breaks == null) {
+				pg.text(line, getPaddingLeft(), posY);
+				posY += lineHeight;
+			} else {
+				for (int row = 0; row <= breaks.length && posY <= getHeight(); row++) {
+					if (posY + lineHeight >= 0) {
+						int start = row == 0 ? 0 : breaks[row - 1];
+						int end = row == breaks.length ? line.length() : breaks[row];
+						pg.text(line.substring(start, end), getPaddingLeft(), posY);
+					}
+					posY += lineHeight;
+				}
+			}
+		}
+
+		drawScrollbar();
+		drawDefaultDisabled();
+	}
+
+
+
+	/*
+	 * Ring buffer
+	 */
+
+	private int slot(int index) {
+		return (head + index) % lines.length;
+	}
+
+	private void allocate(int capacity) {
+		String[] newLines = new String[capacity];
+		float[] newWidths = new float[capacity];
+		int[][] newBreaks = new int[capacity][];
+		for (int i = 0; i < count; i++) {
+			int slot = slot(i);
+			newLines[i] = lines[slot];
+			newWidths[i] = lineWidths[slot];
+			newBreaks[i] = lineBreaks[slot];
+		}
+		lines = newLines;
+		lineWidths = newWidths;
+		lineBreaks = newBreaks;
+		head = 0;
+		buildRows();
+	}
+
+	private void buildRows() {
+		rows.resize(lines.length);
+		for (int slot = 0; slot < lines.length; slot++) {
+			rows.put(slot, rowsOf(slot));
+		}
+		rows.build();
+	}
+
+	private int rowsOf(int slot) {
+		if (lines[slot] == null)
+			return 0;
+		return lineBreaks[slot] == null ? 1 : lineBreaks[slot].length + 1;
+	}
+
+	private void addLine(String line) {
+		if (count == lines.length) {
+			if (maxLines > 0 && count >= maxLines) {
+				removeFirst();
+			} else {
+				int capacity = 2 * lines.length;
+				allocate(maxLines > 0 ? Math.min(capacity, maxLines) : capacity);
+			}
+		}
+		count++;
+		setLine(slot(count - 1), line);
+	}
+
+	private void setLine(int slot, String line) {
+		if (lines[slot] != null) {
+			bytes -= sizeOf(lines[slot]);
+		}
+		lines[slot] = line;
+		bytes += sizeOf(line);
+		measure(slot);
+		rows.set(slot, rowsOf(slot));
+	}
+
+	private void removeFirst() {
+		int removedRows = rows.get(head);
+		bytes -= sizeOf(lines[head]);
+		lines[head] = null;
+		lineBreaks[head] = null;
+		rows.set(head, 0);
+		head = (head + 1) % lines.length;
+		count--;
+		if (count == 0) {
+			lineOpen = false;
+		}
+		if (!pinned) {
+			// keep the text in view where it is
+			scrollPosition = Math.max(0, scrollPosition - removedRows * getLineHeight());
+		}
+	}
+
+	// drop the oldest lines until the limits are met
+	private void trim() {
+		while (count > 0 && (maxLines > 0 && count > maxLines || maxBytes >= 0 && bytes > maxBytes)) {
+			removeFirst();
+		}
+	}
+
+	private static long sizeOf(String line) {
+		return 2L * line.length();
+	}
+
+	// rows before the line with given index
+	private int rowOffset(int index) {
+		int base = rows.offset(head);
+		int slot = head + index;
+		if (slot <= lines.length) {
+			return rows.offset(slot) - base;
+		}
+		return rows.total() - base + rows.offset(slot - lines.length);
+	}
+
+	// index of the line that contains given row, count if there is none
+	private int lineAtRow(int row) {
+		int total = rows.total();
+		if (row >= total)
+			return count;
+		int base = rows.offset(head);
+		int untilEnd = total - base;
+		int slot = row < untilEnd ? rows.find(base + row + 1) : rows.find(row - untilEnd + 1);
+		return Math.min(count, (slot - head + lines.length) % lines.length);
+	}
+
+
+
+	/*
+	 * Wrapping
+	 */
+
+	private void measure(int slot) {
+		lineWidths[slot] = textWidth(lines[slot]);
+		wrap(slot);
+	}
+
+	private void wrap(int slot) {
+		lineBreaks[slot] = lineWrap && lineWidths[slot] > wrapWidth ? breakLine(lines[slot]) : null;
+	}
+
+	/*
+	 * Find the start of each row after the first one. Lines are broken after the
+	 * last space in a row or within a word if there is none. Spaces never start a
+	 * new row.
+	 */
+	private int[] breakLine(String line) {
+		IntList breaks = new IntList();
+		int rowStart = 0;
+		int spaceIndex = -1;
+		float rowWidth = 0;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			float charWidth = textWidth(c);
+			if (c == ' ') {
+				spaceIndex = i;
+			} else if (rowWidth + charWidth > wrapWidth && i > rowStart) {
+				if (spaceIndex >= rowStart) {
+					rowStart = spaceIndex + 1;
+					rowWidth = textWidth(line.substring(rowStart, i));
+				} else {
+					rowStart = i;
+					rowWidth = 0;
+				}
+				breaks.append(rowStart);
+				spaceIndex = -1;
+			}
+			rowWidth += charWidth;
+		}
+		return breaks.size() > 0 ? breaks.array() : null;
+	}
+
+	/*
+	 * Wrap all lines again if the width or font size changed. Only lines that
+	 * don't fit need to be broken, the widths are only measured again for a new
+	 * font size.
+	 */
+	private void checkWrap() {
+		int width = getAvailableWidth();
+		if (width == wrapWidth && getFontSize() == wrapFontSize)
+			return;
+
+		boolean measure = getFontSize() != wrapFontSize;
+		wrapWidth = width;
+		wrapFontSize = getFontSize();
+		for (int i = 0; i < count; i++) {
+			if (measure) {
+				measure(slot(i));
+			} else {
+				wrap(slot(i));
+			}
+		}
+		buildRows();
+	}
+
+
+
+	/*
+	 * Moving appended text into the buffer
+	 */
+
+	/*
+	 * Move the text appended so far into the buffer. Only called on the
+	 * animation thread.
+	 */
+	private void flush() {
+		String text;
+		synchronized (incoming) {
+			flushScheduled = false;
+			if (incoming.length() == 0)
+				return;
+			text = incoming.toString();
+			incoming.setLength(0);
+		}
+
+		checkWrap();
+		int start = 0;
+		while (true) {
+			int end = text.indexOf('\n', start);
+			String part = text.substring(start, end < 0 ? text.length() : end);
+			if (part.indexOf('\r') >= 0) {
+				part = part.replace("\r", "");
+			}
+			if (part.length() > 0 || end >= 0) {
+				if (lineOpen) {
+					setLine(slot(count - 1), lines[slot(count - 1)] + part);
+				} else {
+					addLine(part);
+					lineOpen = true;
+				}
+			}
+			if (end < 0)
+				break;
+			lineOpen = false;
+			start = end + 1;
+		}
+		trim();
+		contentChanged();
+	}
+
+	private void contentChanged() {
+		fullScrollHeight = getPaddingTop() + rows.total() * getLineHeight() + getPaddingBottom();
+		invalidatePaint();
+	}
+
+
+
+
+	/*
+	 * SETTER
+	 */
+
+	/**
+	 * Append text to the log. Newlines start new lines, carriage returns are ignored. Text without a
+	 * newline at the end is continued by the next call. Can be called from any thread, the text shows
+	 * up in the next frame.
+	 *
+	 * @param text text to append
+	 */
+	public void append(String text) {
+		if (text == null || text.isEmpty())
+			return;
+		Frame frame = getFrame();
+		synchronized (incoming) {
+			incoming.append(text);
+			if (flushScheduled || frame == null)
+				return;
+			flushScheduled = true;
+		}
+		frame.getScheduler().schedule(0, this::flush);
+	}
+
+	/**
+	 * Append text and terminate the line. Can be called from any thread.
+	 *
+	 * @param line line to append
+	 */
+	public void appendLine(String line) {
+		append(line + "\n");
+	}
+
+	/**
+	 * Remove all lines (including text appended but not shown yet).
+	 */
+	public void clear() {
+		synchronized (incoming) {
+			incoming.setLength(0);
+		}
+		while (count > 0) {
+			removeFirst();
+		}
+		head = 0;
+		lineOpen = false;
+		pinned = true;
+		contentChanged();
+	}
+
+	/**
+	 * Set the maximum number of lines to keep. The oldest lines are dropped when more lines arrive.
+	 * Default is 10000.
+	 *
+	 * @param maxLines maximum number of lines, 0 for no limit
+	 */
+	public void setMaxLines(int maxLines) {
+		flush();
+		this.maxLines = Math.max(0, maxLines);
+		trim();
+		if (this.maxLines > 0 && lines.length > this.maxLines) {
+			allocate(Math.max(count, this.maxLines));
+		}
+		contentChanged();
+	}
+
+	/**
+	 * Set the maximum size of the text to keep in bytes (two bytes per character). The oldest lines are
+	 * dropped when more text arrives. By default there is no limit.
+	 *
+	 * @param maxBytes maximum size in bytes, negative for no limit
+	 */
+	public void setMaxBytes(long maxBytes) {
+		flush();
+		this.maxBytes = maxBytes < 0 ? -1 : maxBytes;
+		trim();
+		contentChanged();
+	}
+
+	/**
+	 * Follow new text while scrolled to the bottom (default true). If false, the view is never scrolled
+	 * when text arrives.
+	 *
+	 * @param autoScroll auto scroll
+	 */
+	public void setAutoScroll(boolean autoScroll) {
+		this.autoScroll = autoScroll;
+		invalidatePaint();
+	}
+
+	/**
+	 * Wrap lines that are wider than the view (default true).
+	 *
+	 * @param lineWrap line wrap
+	 */
+	public void setLineWrap(boolean lineWrap) {
+		this.lineWrap = lineWrap;
+		wrapWidth = -1; // wrap again
+		invalidatePaint();
+	}
+
+	/**
+	 * Scroll to the last line and follow new text again.
+	 */
+	public void scrollToBottom() {
+		pinned = true;
+		invalidatePaint();
+	}
+
+	@Override
+	public void setScrollPosition(int scrollPosition) {
+		super.setScrollPosition(scrollPosition);
+		pinned = scrollPosition >= fullScrollHeight - getHeight();
+	}
+
+	/**
+	 * LogView can't contain items, use {@link #append(String)}.
+	 */
+	@Override
+	public void add(Control... items) {
+		System.err.println("LogView can't contain items, use append() to add text");
+	}
+
+	/**
+	 * LogView can't contain items, use {@link #append(String)}.
+	 */
+	@Override
+	public void insert(int position, Control... items) {
+		System.err.println("LogView can't contain items, use append() to add text");
+	}
+
+
+
+
+	/*
+	 * GETTER
+	 */
+
+	/**
+	 * Number of lines in the log (the last one might not be terminated yet).
+	 *
+	 * @return number of lines
+	 */
+	public int getLineCount() {
+		flush();
+		return count;
+	}
+
+	/**
+	 * Get the line with given index, 0 is the oldest line that is still kept.
+	 *
+	 * @param index index
+	 * @return line or null if index is bad
+	 */
+	public String getLine(int index) {
+		flush();
+		return index >= 0 && index < count ? lines[slot(index)] : null;
+	}
+
+	/**
+	 * Get all lines that are kept, separated by newlines.
+	 *
+	 * @return text
+	 */
+	public String getLogText() {
+		flush();
+		StringBuilder builder = new StringBuilder((int) Math.min(Integer.MAX_VALUE, bytes / 2 + count));
+		for (int i = 0; i < count; i++) {
+			builder.append(lines[slot(i)]);
+			if (i < count - 1 || !lineOpen) {
+				builder.append('\n');
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Size of the text that is kept in bytes (two bytes per character).
+	 *
+	 * @return size in bytes
+	 */
+	public long getBytes() {
+		flush();
+		return bytes;
+	}
+
+	public int getMaxLines() {
+		return maxLines;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public boolean isAutoScroll() {
+		return autoScroll;
+	}
+
+	public boolean isLineWrap() {
+		return lineWrap;
+	}
+
+	/**
+	 * @return true if the view is scrolled to the bottom and follows new text
+	 */
+	public boolean isPinnedToBottom() {
+		return pinned;
+	}
+}
@@ -0,0 +1,42 @@
+package guiSET.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/*
+ * Small thread-safe cache that discards the least recently used entry when it
+ * exceeds its capacity. Used for images that can be shared by many controls
+ * (shadows, masks, ...).
+ */
+class LruCache<K, V> {
+
+	private final LinkedHashMap<K, V> map;
+
+	LruCache(final int capacity) {
+		map = new LinkedHashMap<K, V>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	synchronized V get(K key) {
+		return map.get(key);
+	}
+
+	synchronized void put(K key, V value) {
+		map.put(key, value);
+	}
+
+	synchronized int size() {
+		return map.size();
+	}
+
+	synchronized void clear() {
+		map.clear();
+	}
+}
@@ -4,8 +4,6 @@ package guiSET.core;
 import processing.event.*;
 
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
 
 
 
@@ -523,20 +521,16 @@ public class MenuItem extends TextBased {
 				dropDown.hide();
 			}
 			open = false;
-			update();
+			invalidatePaint();
 
 			// headers need to stop the timer and close the surface
 			if (type == Type.MENU_HEADER) {
 
 				MenuSurface.closeMenuSurface();
 
-				if (hoverTimerTask != null) {
-					hoverTimerTask.cancel();
-					hoverTimerTask = null;
-
-					// cease timer completely
-					hoverTimer.cancel();
-					hoverTimer.purge();
+				if (hoverTask != null) {
+					hoverTask.cancel();
+					hoverTask = null;
 				}
 			}
 		}
@@ -587,8 +581,6 @@ public class MenuItem extends TextBased {
 				dropDown.setPosition(offsetX, headerStrip.getOffsetYToWindow() + headerStrip.getHeight());
 				dropDown.setY(headerStrip.getOffsetYToWindow()  + headerStrip.getHeight());
 			} 
-			// reset timer (when closing the strip, the timer is always ceased)
-			hoverTimer = new Timer();
 		} else {
 			int offsetXToWindow = getOffsetXToWindow();
 			int right = offsetXToWindow + getWidth();
@@ -813,7 +805,7 @@ public class MenuItem extends TextBased {
 	 */
 	public void setChecked(boolean checked) {
 		this.checked = checked;
-		update();
+		invalidatePaint();
 	}
 
 	public boolean isChecked() {
@@ -929,44 +921,26 @@ public class MenuItem extends TextBased {
 
 
 	/*
-	 * Timer for allowing automatic opening of sub-strips when hovering .4s over an
-	 * item that has subitems. We only need one timer and one task, as it is only
-	 * possible to hover over one menu item at a time. When entering another item,
-	 * the task is canceled and set new.
-	 * 
-	 * When closing the entire strip the timer is discarded and recreated when the
-	 * strip is opened again.
-	 */
-	private static Timer hoverTimer = new Timer();
-	private static HoverTimerTask hoverTimerTask;
-
-	/*
-	 * Special TimerTask version that keeps track of the item that has summoned the
-	 * timer
+	 * Task for allowing automatic opening of sub-strips when hovering .4s over an
+	 * item that has subitems. We only need one task, as it is only possible to
+	 * hover over one menu item at a time. When entering another item, the task is
+	 * canceled and set new. It runs on the scheduler of the Frame (and thus on the
+	 * animation thread like the other events).
 	 */
-	private static class HoverTimerTask extends TimerTask {
-		MenuItem item;
-
-		public HoverTimerTask(MenuItem item) {
-			super();
-			this.item = item;
-		}
-
-		@Override
-		public void run() {
-			// if still hovered over after time, then open this strip
+	private static Scheduler.Task hoverTask;
 
-			if (item.pHovered && !item.open) {
+	// if still hovered over after time, then open this strip
+	private static void hoverTimeElapsed(MenuItem item) {
+		if (item.pHovered && !item.open) {
 
-				// if has items, then open. If not then dont call open as this will call
-				// itemSelected and close all
-				if (item.items.size() > 0) {
-					item.open();
-				} else {
-					// close all siblings
-					for (Control c : ((MenuStrip) item.parent).items) {
-						((MenuItem) c).close();
-					}
+			// if has items, then open. If not then dont call open as this will call
+			// itemSelected and close all
+			if (item.items.size() > 0) {
+				item.open();
+			} else {
+				// close all siblings
+				for (Control c : ((MenuStrip) item.parent).items) {
+					((MenuItem) c).close();
 				}
 			}
 		}
@@ -974,12 +948,11 @@ public class MenuItem extends TextBased {
 
 	protected void startHoverTimer() {
 		// cancel task when having left another item in under MenuItemHoverMilliseconds
-		if (hoverTimerTask != null)
-			hoverTimerTask.cancel();
+		if (hoverTask != null)
+			hoverTask.cancel();
 
 		// create task new
-		hoverTimerTask = new HoverTimerTask(this);
-		hoverTimer.schedule(hoverTimerTask, Math.max(0, GuisetGlobalValues.menuItemHoverTime));
+		hoverTask = getFrame().getScheduler().schedule(Math.max(0, GuisetGlobalValues.menuItemHoverTime), () -> hoverTimeElapsed(this));
 	}
 
 	/*
@@ -1008,7 +981,7 @@ public class MenuItem extends TextBased {
 				}
 			}
 		}
-		update();
+		invalidatePaint();
 	}
 
 
@@ -1029,7 +1002,7 @@ public class MenuItem extends TextBased {
 			} else {
 				open();
 			}
-			update();
+			invalidatePaint();
 		}
 
 		stopPropagation();
@@ -1044,7 +1017,7 @@ public class MenuItem extends TextBased {
 		if (type == Type.NESTED_MENU_ITEM) {
 			open();
 		}
-		update();
+		invalidatePaint();
 		stopPropagation();
 	}
 
@@ -1139,13 +1112,6 @@ class MenuStrip extends Container {
 	@Override
 	protected void render() {
 
-		// only if parent is not a ParentGraphicsRenderer (temporary solution)
-		if (pg != parent.pg) {
-			// we cheat here and give some extra size for shadow
-			pg = getPApplet().createGraphics(getWidth() + 5, getHeight() + 5);
-			pg.beginDraw();
-		}
-
 		// drawShadow(getWidth(), getHeight(), 5);
 
 		drawDefaultBackground();
@@ -482,14 +482,35 @@ public class MultilineTextbox extends VScrollContainer {
 
 
 
+	/*
+	 * The cursor is toggled every half cursor cycle by a task on the Frames
+	 * scheduler, so it also blinks in NO_LOOP mode without waking the sketch more
+	 * often than needed. Only one textbox can be focused at a time.
+	 */
+	private static Scheduler.Task cursorTask;
+
+	private void scheduleCursorBlink() {
+		cursorTask = getFrame().getScheduler().schedule(Textbox.globalCursorCycleTime / 2, () -> {
+			currentDisplayCursor = !currentDisplayCursor;
+			invalidatePaint();
+			scheduleCursorBlink();
+		});
+	}
+
+	private static void stopCursorBlink() {
+		if (cursorTask != null) {
+			cursorTask.cancel();
+			cursorTask = null;
+		}
+	}
+
 	/**
-	 * Simple thread that sleeps for one half cursor cycle and toggles cursor visibilty. An interruption
-	 * just restarts the thread, except the variable finish has been set to false previously. Everything
-	 * alright with thread saftey?
+	 * Thread that used to blink the cursor.
 	 * 
-	 * @author Mc-Zen
-	 *
+	 * @deprecated The cursor is blinked by a task of the Frame now. The thread is not started anymore,
+	 *             {@link #t} is only kept for subclasses that still refer to it.
 	 */
+	@Deprecated
 	protected class CursorThread extends Thread {
 		boolean finish = false;
 
@@ -498,7 +519,7 @@ public class MultilineTextbox extends VScrollContainer {
 				try {
 					Thread.sleep(Textbox.globalCursorCycleTime / 2);
 					currentDisplayCursor = !currentDisplayCursor;
-					update();
+					invalidatePaint();
 				} catch (InterruptedException e) {
 					if (finish)
 						return;
@@ -508,24 +529,35 @@ public class MultilineTextbox extends VScrollContainer {
 		}
 	}
 
+	/**
+	 * @deprecated Not started anymore, see {@link CursorThread}.
+	 */
+	@Deprecated
 	protected static CursorThread t;
 
+	// one placeholder that is never started, interrupting it does nothing
+	{
+		if (t == null) {
+			t = new CursorThread();
+		}
+	}
+
 	@Override
 	protected void focused() {
-		t = new CursorThread();
-		t.start();
+		stopCursorBlink();
+		scheduleCursorBlink();
 	}
 
 	@Override
 	protected void blurred() {
-		t.finish = true;
-		t.interrupt();
+		stopCursorBlink();
 	}
 
 	protected void restartCursorAnimation() {
 		if (focused) {
 			currentDisplayCursor = true;
-			t.interrupt();
+			stopCursorBlink();
+			scheduleCursorBlink();
 		}
 	}
 
@@ -602,7 +634,7 @@ public class MultilineTextbox extends VScrollContainer {
 		selectionEnd = cursorPosition;
 		needsScrolling = true;
 		endCursor = false;
-		update();
+		invalidatePaint();
 	}
 
 
@@ -670,7 +702,7 @@ public class MultilineTextbox extends VScrollContainer {
 	 */
 	public void setCursorColor(int cursorColor) {
 		this.cursorColor = cursorColor;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -689,7 +721,7 @@ public class MultilineTextbox extends VScrollContainer {
 	 */
 	public void setSelectionStart(int selectionStart) {
 		this.selectionStart = Math.max(0, Math.min(text.length(), selectionStart));
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -699,7 +731,7 @@ public class MultilineTextbox extends VScrollContainer {
 	 */
 	public void setSelectionEnd(int selectionEnd) {
 		this.selectionEnd = Math.max(0, Math.min(text.length(), selectionEnd));
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -722,7 +754,7 @@ public class MultilineTextbox extends VScrollContainer {
 	 */
 	public void setSelectionColor(int selectionColor) {
 		this.selectionColor = selectionColor;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -732,7 +764,7 @@ public class MultilineTextbox extends VScrollContainer {
 	 */
 	public void setHint(String hint) {
 		this.hint = hint;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -1054,7 +1086,7 @@ public class MultilineTextbox extends VScrollContainer {
 			case 'A':
 				selectionStart = 0;
 				selectionEnd = text.length();
-				update();
+				invalidatePaint();
 				break;
 			}
 		}
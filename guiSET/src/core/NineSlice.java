@@ -0,0 +1,91 @@
+package guiSET.core;
+
+import processing.core.*;
+
+
+/*
+ * Draws an image as 9-slice: the corners are drawn at their original size and
+ * the edges are repeated along one axis. This way a small image (i.e. a shadow
+ * or a rounded rectangle) can be drawn at any size.
+ *
+ * The edges are tiled and not stretched, because drawing scaled images is a lot
+ * slower in Java2D than copying them. Images for this class should therefore
+ * have a middle part (TILE pixels wide) that is constant along both axes. The
+ * center is a single color then and is drawn as plain rect (or not at all if
+ * it is transparent).
+ */
+class NineSlice {
+
+	static final int TILE = 64;
+
+	private NineSlice() {
+	}
+
+	/*
+	 * Draw img onto the rectangle (x, y, w, h). inset is the size of the corners
+	 * in the image. If the target is smaller than two corners, they are shrinked.
+	 * Changes fill and stroke of pg if the center is drawn.
+	 */
+	static void draw(PGraphics pg, PImage img, int inset, float x, float y, float w, float h) {
+		/*
+		 * The images are shared by many elements that might render concurrently. Java2D
+		 * creates a cache for an image the first time it is drawn onto a graphics and
+		 * tracks that with the modified state of the image.
+		 */
+		synchronized (img) {
+			drawImpl(pg, img, inset, x, y, w, h);
+		}
+	}
+
+	private static void drawImpl(PGraphics pg, PImage img, int inset, float x, float y, float w, float h) {
+		float cx = Math.min(inset, w / 2);
+		float cy = Math.min(inset, h / 2);
+		int iw = img.width, ih = img.height;
+
+		float x1 = x + cx, x2 = x + w - cx;
+		float y1 = y + cy, y2 = y + h - cy;
+
+		// corners
+		pg.image(img, x, y, cx, cy, 0, 0, inset, inset);
+		pg.image(img, x2, y, cx, cy, iw - inset, 0, iw, inset);
+		pg.image(img, x, y2, cx, cy, 0, ih - inset, inset, ih);
+		pg.image(img, x2, y2, cx, cy, iw - inset, ih - inset, iw, ih);
+
+		// edges
+		tile(pg, img, x1, y, x2 - x1, cy, inset, 0, iw - inset, inset, true, false);
+		tile(pg, img, x1, y2, x2 - x1, cy, inset, ih - inset, iw - inset, ih, true, false);
+		tile(pg, img, x, y1, cx, y2 - y1, 0, inset, inset, ih - inset, false, true);
+		tile(pg, img, x2, y1, cx, y2 - y1, iw - inset, inset, iw, ih - inset, false, true);
+
+		int center = img.pixels[ih / 2 * iw + iw / 2];
+		if (x2 > x1 && y2 > y1 && (center >>> 24) > 0) {
+			pg.noStroke();
+			pg.fill(center);
+			pg.rect(x1, y1, x2 - x1, y2 - y1);
+		}
+	}
+
+	/*
+	 * Fill the rectangle (x, y, w, h) with copies of the image part (u1, v1, u2,
+	 * v2) along the axes where repeat is set. Along the other axes the part is
+	 * scaled (only needed when the corners are shrinked).
+	 */
+	private static void tile(PGraphics pg, PImage img, float x, float y, float w, float h, int u1, int v1, int u2, int v2, boolean tileX,
+			boolean tileY) {
+		if (w <= 0 || h <= 0 || u2 <= u1 || v2 <= v1)
+			return;
+
+		float stepX = tileX ? u2 - u1 : w;
+		float stepY = tileY ? v2 - v1 : h;
+
+		for (float ty = y; ty < y + h; ty += stepY) {
+			float th = Math.min(stepY, y + h - ty);
+			int tv2 = tileY ? v1 + (int) Math.ceil(th) : v2;
+			for (float tx = x; tx < x + w; tx += stepX) {
+				float tw = Math.min(stepX, x + w - tx);
+				int tu2 = tileX ? u1 + (int) Math.ceil(tw) : u2;
+				pg.image(img, tx, ty, tw, th, u1, v1, tu2, tv2);
+			}
+		}
+	}
+}
@@ -51,7 +51,7 @@ public class PasswordTextbox extends Textbox {
 	 */
 	public void setPasswordChar(char passwordChar) {
 		this.passwordChar = passwordChar;
-		update();
+		invalidatePaint();
 	}
 
 
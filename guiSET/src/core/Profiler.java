@@ -0,0 +1,540 @@
+package guiSET.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import processing.core.*;
+
+
+/**
+ * Opt-in profiler that shows which elements make a frame slow.
+ *
+ * When enabled, the {@link Frame} records for each frame how long each element took to render
+ * (including and excluding its children), whether it was dirty, how often it has been invalidated
+ * since the last frame and how often a new buffer had to be allocated for it. Mouse event dispatch
+ * is timed as well.
+ *
+ * The recorded data can be read through {@link #getLastFrame()} or a {@link FrameListener}. The
+ * optional overlay draws a flame graph of the last rendered frame at the bottom of the window and
+ * flashes the regions that have been repainted.
+ *
+ * Only rendering on the drawing thread is recorded in detail. Buffers that are rendered
+ * concurrently in advance (see {@link Frame#setParallelRendering(boolean)}) don't appear in the
+ * samples.
+ *
+ * Get the profiler with {@link Frame#getProfiler()}.
+ */
+public class Profiler {
+
+	/**
+	 * Measurements of one element in one frame.
+	 */
+	public static class Sample {
+		private final Control control;
+		private final Sample parent;
+		private final int depth;
+		private final int x, y, width, height;
+		private final boolean dirty;
+		private int invalidations = 0;
+		private int bufferAllocations = 0;
+		private long renderTime = 0;
+		private long childrenTime = 0;
+		private int subtreeSize = 1;
+		private int dirtySubtreeSize;
+
+		Sample(Control control, Sample parent, int x, int y, boolean dirty) {
+			this.control = control;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.x = x;
+			this.y = y;
+			this.width = control.getWidth();
+			this.height = control.getHeight();
+			this.dirty = dirty;
+			this.dirtySubtreeSize = dirty ? 1 : 0;
+		}
+
+		public Control getControl() {
+			return control;
+		}
+
+		/**
+		 * @return sample of the element that rendered this one, null for the Frame
+		 */
+		public Sample getParent() {
+			return parent;
+		}
+
+		/**
+		 * @return nesting depth, 0 for the Frame
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * @return x-coordinate relative to the window
+		 */
+		public int getX() {
+			return x;
+		}
+
+		/**
+		 * @return y-coordinate relative to the window
+		 */
+		public int getY() {
+			return y;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return true if the element has been rendered anew and not only projected from its buffer or
+		 *         recording (unbuffered elements are always rendered anew)
+		 */
+		public boolean isDirty() {
+			return dirty;
+		}
+
+		/**
+		 * @return how often the element has been invalidated since the previous frame
+		 */
+		public int getInvalidations() {
+			return invalidations;
+		}
+
+		/**
+		 * @return how often a new buffer has been allocated for the element in this frame
+		 */
+		public int getBufferAllocations() {
+			return bufferAllocations;
+		}
+
+		/**
+		 * @return time needed to render the element including its children in microseconds
+		 */
+		public float getRenderTime() {
+			return renderTime / 1000f;
+		}
+
+		/**
+		 * @return time needed to render the element without its children in microseconds
+		 */
+		public float getSelfTime() {
+			return (renderTime - childrenTime) / 1000f;
+		}
+
+		/**
+		 * @return number of rendered elements in the subtree of this element (including itself)
+		 */
+		public int getSubtreeSize() {
+			return subtreeSize;
+		}
+
+		/**
+		 * @return number of dirty elements in the subtree of this element (including itself)
+		 */
+		public int getDirtySubtreeSize() {
+			return dirtySubtreeSize;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < depth; i++) {
+				sb.append("  ");
+			}
+			sb.append(control.getClass().getSimpleName());
+			if (!control.name.isEmpty()) {
+				sb.append(" '").append(control.name).append('\'');
+			}
+			return sb.append(String.format(": total=%.1fus self=%.1fus%s invalidations=%d allocations=%d dirty subtree=%d/%d", getRenderTime(),
+					getSelfTime(), dirty ? " dirty" : "", invalidations, bufferAllocations, dirtySubtreeSize, subtreeSize)).toString();
+		}
+	}
+
+	/**
+	 * Measurements of one frame.
+	 */
+	public static class FrameProfile {
+		private final long frameNumber;
+		private long frameTime;
+		private long renderTime;
+		private long mouseEventTime;
+		private int mouseEvents;
+		private int hitTests;
+		private final List<Sample> samples = new ArrayList<Sample>();
+
+		FrameProfile(long frameNumber) {
+			this.frameNumber = frameNumber;
+		}
+
+		public long getFrameNumber() {
+			return frameNumber;
+		}
+
+		/**
+		 * @return time of Frame.display() (tasks, rendering, animations) in microseconds
+		 */
+		public float getFrameTime() {
+			return frameTime / 1000f;
+		}
+
+		/**
+		 * @return time needed for rendering in microseconds
+		 */
+		public float getRenderTime() {
+			return renderTime / 1000f;
+		}
+
+		/**
+		 * @return time needed to dispatch mouse events since the previous frame in microseconds
+		 */
+		public float getMouseEventTime() {
+			return mouseEventTime / 1000f;
+		}
+
+		/**
+		 * @return number of mouse events since the previous frame
+		 */
+		public int getMouseEvents() {
+			return mouseEvents;
+		}
+
+		/**
+		 * @return number of elements that containers passed mouse events to
+		 */
+		public int getHitTests() {
+			return hitTests;
+		}
+
+		/**
+		 * @return samples of all rendered elements in drawing order (parents before their children),
+		 *         empty if nothing has been rendered
+		 */
+		public List<Sample> getSamples() {
+			return Collections.unmodifiableList(samples);
+		}
+
+		/**
+		 * @return number of elements that have been rendered anew (see {@link Sample#isDirty()})
+		 */
+		public int getDirtyElements() {
+			return samples.isEmpty() ? 0 : samples.get(0).dirtySubtreeSize;
+		}
+
+		/**
+		 * @return samples sorted by self time, slowest first
+		 */
+		public List<Sample> getSlowest(int count) {
+			List<Sample> sorted = new ArrayList<Sample>(samples);
+			sorted.sort((a, b) -> Long.compare(b.renderTime - b.childrenTime, a.renderTime - a.childrenTime));
+			return sorted.subList(0, Math.min(count, sorted.size()));
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(String.format("frame %d: %.1fus (render %.1fus, %d dirty of %d), %d mouse events %.1fus (%d hit tests)",
+					frameNumber, getFrameTime(), getRenderTime(), getDirtyElements(), samples.size(), mouseEvents, getMouseEventTime(), hitTests));
+			for (Sample s : samples) {
+				sb.append('\n').append(s);
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Listener that is called after each profiled frame.
+	 */
+	public interface FrameListener {
+		void frameProfiled(FrameProfile profile);
+	}
+
+
+
+	/*
+	 * The profiler of the Frame if it is enabled, otherwise null. Checked by the
+	 * instrumented code so that a disabled profiler costs almost nothing.
+	 */
+	static volatile Profiler active;
+
+	private boolean enabled = false;
+	private boolean overlayEnabled = false;
+	private FrameListener listener;
+
+	private Thread displayThread;
+	private long frameNumber = 0;
+	private long frameStart;
+	private FrameProfile current = new FrameProfile(0);
+	private FrameProfile lastFrame;
+	private FrameProfile lastRenderedFrame;
+
+	private final ArrayList<Sample> stack = new ArrayList<Sample>();
+	private final IdentityHashMap<Control, int[]> invalidations = new IdentityHashMap<Control, int[]>();
+
+	// repainted regions of the last frames for flashing: x, y, w, h, frame number
+	private final ArrayList<int[]> flashes = new ArrayList<int[]>();
+	private static final int FLASH_FRAMES = 12;
+
+	Profiler() {
+	}
+
+	/**
+	 * Enable or disable profiling. Default: false.
+	 *
+	 * @param enabled enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		active = enabled ? this : (active == this ? null : active);
+		if (!enabled) {
+			synchronized (this) {
+				invalidations.clear();
+			}
+			stack.clear();
+			flashes.clear();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Show a flame graph of the last rendered frame and flash repainted regions on top of the GUI.
+	 * Enables the profiler. Default: false.
+	 *
+	 * @param overlayEnabled show overlay
+	 */
+	public void setOverlayEnabled(boolean overlayEnabled) {
+		this.overlayEnabled = overlayEnabled;
+		if (overlayEnabled) {
+			setEnabled(true);
+		}
+	}
+
+	public boolean isOverlayEnabled() {
+		return overlayEnabled;
+	}
+
+	/**
+	 * Set a listener that is called with the profile of each frame (i.e. for logging).
+	 *
+	 * @param listener listener, null to remove
+	 */
+	public void setFrameListener(FrameListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return profile of the last frame, null if no frame has been profiled yet
+	 */
+	public FrameProfile getLastFrame() {
+		return lastFrame;
+	}
+
+	/**
+	 * @return profile of the last frame in which something has been rendered, null if there is none
+	 */
+	public FrameProfile getLastRenderedFrame() {
+		return lastRenderedFrame;
+	}
+
+
+
+	/*
+	 * RECORDING (called by Frame, Control and Container)
+	 */
+
+	void beginFrame() {
+		displayThread = Thread.currentThread();
+		frameStart = System.nanoTime();
+		stack.clear();
+	}
+
+	void endFrame() {
+		FrameProfile profile = current;
+		profile.frameTime = System.nanoTime() - frameStart;
+		synchronized (this) {
+			current = new FrameProfile(++frameNumber);
+		}
+		lastFrame = profile;
+		if (!profile.samples.isEmpty()) {
+			lastRenderedFrame = profile;
+			for (Sample s : profile.samples) {
+				if (s.dirty) {
+					flashes.add(new int[] { s.x, s.y, s.width, s.height, (int) profile.frameNumber });
+				}
+			}
+		}
+		if (listener != null) {
+			listener.frameProfiled(profile);
+		}
+	}
+
+	/*
+	 * Start measuring an element that is about to be rendered at (x, y) relative
+	 * to the element that is currently measured. Returns false (and records
+	 * nothing) if not called on the drawing thread.
+	 */
+	boolean beginSample(Control control, int x, int y) {
+		if (Thread.currentThread() != displayThread)
+			return false;
+		Sample parent = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+		if (parent != null) {
+			x += parent.x;
+			y += parent.y;
+		}
+		Sample sample = new Sample(control, parent, x, y, !control.rendersFromCache());
+		synchronized (this) {
+			int[] count = invalidations.remove(control);
+			if (count != null) {
+				sample.invalidations = count[0];
+			}
+		}
+		current.samples.add(sample);
+		stack.add(sample);
+		sample.renderTime = System.nanoTime(); // start time until endSample()
+		return true;
+	}
+
+	void endSample() {
+		Sample sample = stack.remove(stack.size() - 1);
+		sample.renderTime = System.nanoTime() - sample.renderTime;
+		if (sample.parent != null) {
+			sample.parent.childrenTime += sample.renderTime;
+			sample.parent.subtreeSize += sample.subtreeSize;
+			sample.parent.dirtySubtreeSize += sample.dirtySubtreeSize;
+		} else {
+			current.renderTime += sample.renderTime;
+		}
+	}
+
+	synchronized void invalidated(Control control) {
+		int[] count = invalidations.get(control);
+		if (count == null) {
+			invalidations.put(control, new int[] { 1 });
+		} else {
+			count[0]++;
+		}
+	}
+
+	void bufferAllocated() {
+		if (Thread.currentThread() == displayThread && !stack.isEmpty()) {
+			stack.get(stack.size() - 1).bufferAllocations++;
+		}
+	}
+
+	synchronized void mouseEventHandled(long time) {
+		current.mouseEvents++;
+		current.mouseEventTime += time;
+	}
+
+	void hitTested() {
+		current.hitTests++;
+	}
+
+
+
+	/*
+	 * OVERLAY
+	 */
+
+	private static final int ROW_HEIGHT = 14;
+
+	/*
+	 * Draw the overlay onto the sketch. The GUI below has to be drawn anew each
+	 * frame, as the overlay changes.
+	 */
+	void drawOverlay(PGraphics g, int width, int height) {
+		g.pushStyle();
+		g.pushMatrix();
+		g.resetMatrix();
+		g.noClip();
+
+		// flash repainted regions, fading out over a few frames
+		g.noFill();
+		g.strokeWeight(1);
+		for (int i = flashes.size() - 1; i >= 0; i--) {
+			int[] f = flashes.get(i);
+			int age = (int) (frameNumber - f[4]);
+			if (age >= FLASH_FRAMES) {
+				flashes.remove(i);
+				continue;
+			}
+			int alpha = 255 * (FLASH_FRAMES - age) / FLASH_FRAMES;
+			g.stroke(255, 0, 255, alpha);
+			g.fill(255, 0, 255, alpha / 5);
+			g.rect(f[0], f[1], f[2] - 1, f[3] - 1);
+		}
+
+		FrameProfile profile = lastRenderedFrame;
+		if (profile != null && !profile.samples.isEmpty()) {
+			drawFlameGraph(g, profile, width, height);
+		}
+
+		g.popMatrix();
+		g.popStyle();
+	}
+
+	/*
+	 * Each element is a bar as wide as its render time, its children are placed
+	 * on top of it from left to right. The Frame is the bottom row and spans the
+	 * whole width.
+	 */
+	private void drawFlameGraph(PGraphics g, FrameProfile profile, int width, int height) {
+		List<Sample> samples = profile.samples;
+		int maxDepth = 0;
+		for (Sample s : samples) {
+			maxDepth = Math.max(maxDepth, s.depth);
+		}
+		int top = height - (maxDepth + 2) * ROW_HEIGHT;
+
+		g.noStroke();
+		g.fill(0, 160);
+		g.rect(0, top, width, height - top);
+
+		g.textSize(10);
+		g.textAlign(PConstants.LEFT, PConstants.CENTER);
+		g.fill(255);
+		g.text(String.format("frame %d: %.2f ms, render %.2f ms, %d of %d elements dirty, %d mouse events %.2f ms", profile.frameNumber,
+				profile.getFrameTime() / 1000, profile.getRenderTime() / 1000, profile.getDirtyElements(), samples.size(), profile.mouseEvents,
+				profile.getMouseEventTime() / 1000), 4, top + ROW_HEIGHT / 2);
+
+		float scale = width / (float) Math.max(1, samples.get(0).renderTime);
+		IdentityHashMap<Sample, float[]> next = new IdentityHashMap<Sample, float[]>(); // next free x for children
+
+		for (Sample s : samples) {
+			float x;
+			if (s.parent == null) {
+				x = 0;
+			} else {
+				float[] free = next.get(s.parent);
+				x = free[0];
+				free[0] += s.renderTime * scale;
+			}
+			next.put(s, new float[] { x });
+
+			float w = s.renderTime * scale;
+			if (w < 1)
+				continue;
+			int y = height - (s.depth + 1) * ROW_HEIGHT;
+			int hue = s.control.getClass().getName().hashCode();
+			g.fill(s.dirty ? 0xFF000000 | (0xC04000 + (hue & 0x3F3F3F)) : 0xFF606060 + (hue & 0x1F1F1F));
+			g.rect(x, y, w - 1, ROW_HEIGHT - 1);
+			if (w > 40) {
+				g.fill(255);
+				String label = s.control.getClass().getSimpleName() + String.format(" %.0fus", s.getRenderTime());
+				g.text(label, x + 2, y, w - 4, ROW_HEIGHT);
+			}
+		}
+	}
+}
@@ -0,0 +1,564 @@
+package guiSET.core;
+
+import processing.core.*;
+
+
+/*
+ * Graphics that does not draw anything but records the drawing calls of a
+ * control's render() method into a DisplayList.
+ *
+ * Only the calls controls commonly use are recorded. If render() calls
+ * anything else (i.e. reads or modifies pixels, masks or uses 3D), the
+ * recording is marked as unsupported and the control needs to be rendered
+ * directly.
+ *
+ * Colors are recorded after they have been calculated, everything else is
+ * recorded as it has been called so that replaying behaves exactly like
+ * calling the same methods on the target.
+ */
+class RecordingGraphics extends PGraphics {
+
+	private DisplayList list = new DisplayList();
+	private boolean unsupported = false;
+
+	private PGraphics textGraphics; // for font metrics in case someone asks anyway
+
+
+	RecordingGraphics(PApplet papplet, PGraphics textGraphics) {
+		this.textGraphics = textGraphics;
+		setParent(papplet);
+		setPrimary(false);
+		setSize(1, 1);
+		colorMode(RGB, 255);
+	}
+
+
+
+	void beginRecord() {
+		list.clear();
+		unsupported = false;
+	}
+
+	/*
+	 * Returns the recorded commands or null if something has been called that can't be recorded.
+	 */
+	DisplayList endRecord() {
+		DisplayList result = unsupported ? null : list.copy();
+		list.clear();
+		return result;
+	}
+
+	/*
+	 * Fill used by drawDefaultBackground(). Marked in the display list so it can be patched later.
+	 */
+	void backgroundFill(int color) {
+		list.add(DisplayList.BACKGROUND_FILL, color);
+	}
+
+	private void unsupported() {
+		unsupported = true;
+	}
+
+
+
+	/*
+	 * Style
+	 */
+
+	@Override
+	protected void fillFromCalc() {
+		super.fillFromCalc();
+		list.add(DisplayList.FILL, fillColor);
+	}
+
+	@Override
+	public void noFill() {
+		super.noFill();
+		list.add(DisplayList.NO_FILL);
+	}
+
+	@Override
+	protected void strokeFromCalc() {
+		super.strokeFromCalc();
+		list.add(DisplayList.STROKE, strokeColor);
+	}
+
+	@Override
+	public void noStroke() {
+		super.noStroke();
+		list.add(DisplayList.NO_STROKE);
+	}
+
+	@Override
+	protected void tintFromCalc() {
+		super.tintFromCalc();
+		list.add(DisplayList.TINT, tintColor);
+	}
+
+	@Override
+	public void noTint() {
+		super.noTint();
+		list.add(DisplayList.NO_TINT);
+	}
+
+	@Override
+	public void strokeWeight(float weight) {
+		list.add(DisplayList.STROKE_WEIGHT, weight);
+	}
+
+	@Override
+	public void strokeCap(int cap) {
+		list.add(DisplayList.STROKE_CAP, cap);
+	}
+
+	@Override
+	public void strokeJoin(int join) {
+		list.add(DisplayList.STROKE_JOIN, join);
+	}
+
+	@Override
+	public void rectMode(int mode) {
+		list.add(DisplayList.RECT_MODE, mode);
+	}
+
+	@Override
+	public void ellipseMode(int mode) {
+		list.add(DisplayList.ELLIPSE_MODE, mode);
+	}
+
+	@Override
+	public void imageMode(int mode) {
+		list.add(DisplayList.IMAGE_MODE, mode);
+	}
+
+	@Override
+	public void blendMode(int mode) {
+		list.add(DisplayList.BLEND_MODE, mode);
+	}
+
+	@Override
+	public void pushStyle() {
+		list.add(DisplayList.PUSH_STYLE);
+	}
+
+	@Override
+	public void popStyle() {
+		list.add(DisplayList.POP_STYLE);
+	}
+
+
+
+	/*
+	 * Text
+	 */
+
+	@Override
+	public void textAlign(int alignX) {
+		list.add(DisplayList.TEXT_ALIGN, alignX);
+	}
+
+	@Override
+	public void textAlign(int alignX, int alignY) {
+		list.add(DisplayList.TEXT_ALIGN_XY, alignX);
+		list.addInt(alignY);
+	}
+
+	@Override
+	public void textSize(float size) {
+		list.add(DisplayList.TEXT_SIZE, size);
+	}
+
+	@Override
+	public void textLeading(float leading) {
+		list.add(DisplayList.TEXT_LEADING, leading);
+	}
+
+	@Override
+	public void textFont(PFont which) {
+		list.addRef(DisplayList.TEXT_FONT, which);
+	}
+
+	@Override
+	public void textFont(PFont which, float size) {
+		list.addRef(DisplayList.TEXT_FONT_SIZE, which, size);
+	}
+
+	@Override
+	public void textMode(int mode) {
+		list.add(DisplayList.TEXT_MODE, mode);
+	}
+
+	@Override
+	public void text(char c, float x, float y) {
+		list.add(DisplayList.TEXT_CHAR, c);
+		list.addFloats(x, y);
+	}
+
+	@Override
+	public void text(String str, float x, float y) {
+		list.addRef(DisplayList.TEXT, str, x, y);
+	}
+
+	@Override
+	public void text(char[] chars, int start, int stop, float x, float y) {
+		list.addRef(DisplayList.TEXT, new String(chars, start, stop - start), x, y);
+	}
+
+	@Override
+	public void text(String str, float x1, float y1, float x2, float y2) {
+		list.addRef(DisplayList.TEXT_BOX, str, x1, y1, x2, y2);
+	}
+
+	// Font metrics depend on the state of the target, they are not known while recording.
+
+	@Override
+	public float textWidth(char c) {
+		unsupported();
+		return textGraphics.textWidth(c);
+	}
+
+	@Override
+	public float textWidth(String str) {
+		unsupported();
+		return textGraphics.textWidth(str);
+	}
+
+	@Override
+	public float textWidth(char[] chars, int start, int length) {
+		unsupported();
+		return textGraphics.textWidth(chars, start, length);
+	}
+
+	@Override
+	public float textAscent() {
+		unsupported();
+		return textGraphics.textAscent();
+	}
+
+	@Override
+	public float textDescent() {
+		unsupported();
+		return textGraphics.textDescent();
+	}
+
+
+
+	/*
+	 * Shapes
+	 */
+
+	@Override
+	public void point(float x, float y) {
+		list.add(DisplayList.POINT, x, y);
+	}
+
+	@Override
+	public void line(float x1, float y1, float x2, float y2) {
+		list.add(DisplayList.LINE, x1, y1, x2, y2);
+	}
+
+	@Override
+	public void triangle(float x1, float y1, float x2, float y2, float x3, float y3) {
+		list.add(DisplayList.TRIANGLE, x1, y1, x2, y2, x3, y3);
+	}
+
+	@Override
+	public void quad(float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4) {
+		list.add(DisplayList.QUAD, x1, y1, x2, y2, x3, y3, x4, y4);
+	}
+
+	@Override
+	public void rect(float a, float b, float c, float d) {
+		list.add(DisplayList.RECT, a, b, c, d);
+	}
+
+	@Override
+	public void rect(float a, float b, float c, float d, float r) {
+		list.add(DisplayList.ROUNDED_RECT, a, b, c, d, r);
+	}
+
+	@Override
+	public void rect(float a, float b, float c, float d, float tl, float tr, float br, float bl) {
+		list.add(DisplayList.ROUNDED_RECT_4, a, b, c, d, tl, tr, br, bl);
+	}
+
+	@Override
+	public void ellipse(float a, float b, float c, float d) {
+		list.add(DisplayList.ELLIPSE, a, b, c, d);
+	}
+
+	@Override
+	public void arc(float a, float b, float c, float d, float start, float stop) {
+		list.add(DisplayList.ARC, a, b, c, d, start, stop);
+	}
+
+	@Override
+	public void arc(float a, float b, float c, float d, float start, float stop, int mode) {
+		list.add(DisplayList.ARC_MODE, mode);
+		list.addFloats(a, b, c, d, start, stop);
+	}
+
+	@Override
+	public void image(PImage img, float a, float b) {
+		list.addRef(DisplayList.IMAGE, img, a, b);
+	}
+
+	@Override
+	public void image(PImage img, float a, float b, float c, float d) {
+		list.addRef(DisplayList.IMAGE_SIZE, img, a, b, c, d);
+	}
+
+	@Override
+	public void image(PImage img, float a, float b, float c, float d, int u1, int v1, int u2, int v2) {
+		list.addRef(DisplayList.IMAGE_REGION, img, a, b, c, d);
+		list.addInt(u1);
+		list.addInt(v1);
+		list.addInt(u2);
+		list.addInt(v2);
+	}
+
+	@Override
+	public void beginShape() {
+		list.add(DisplayList.BEGIN_SHAPE);
+	}
+
+	@Override
+	public void beginShape(int kind) {
+		list.add(DisplayList.BEGIN_SHAPE_KIND, kind);
+	}
+
+	@Override
+	public void vertex(float x, float y) {
+		list.add(DisplayList.VERTEX, x, y);
+	}
+
+	@Override
+	public void vertex(float x, float y, float u, float v) {
+		list.add(DisplayList.VERTEX_UV, x, y, u, v);
+	}
+
+	@Override
+	public void bezierVertex(float x2, float y2, float x3, float y3, float x4, float y4) {
+		list.add(DisplayList.BEZIER_VERTEX, x2, y2, x3, y3, x4, y4);
+	}
+
+	@Override
+	public void quadraticVertex(float cx, float cy, float x3, float y3) {
+		list.add(DisplayList.QUADRATIC_VERTEX, cx, cy, x3, y3);
+	}
+
+	@Override
+	public void curveVertex(float x, float y) {
+		list.add(DisplayList.CURVE_VERTEX, x, y);
+	}
+
+	@Override
+	public void beginContour() {
+		list.add(DisplayList.BEGIN_CONTOUR);
+	}
+
+	@Override
+	public void endContour() {
+		list.add(DisplayList.END_CONTOUR);
+	}
+
+	@Override
+	public void endShape() {
+		list.add(DisplayList.END_SHAPE);
+	}
+
+	@Override
+	public void endShape(int mode) {
+		list.add(DisplayList.END_SHAPE_MODE, mode);
+	}
+
+
+
+	/*
+	 * Transformation and clipping
+	 */
+
+	@Override
+	public void pushMatrix() {
+		list.add(DisplayList.PUSH_MATRIX);
+	}
+
+	@Override
+	public void popMatrix() {
+		list.add(DisplayList.POP_MATRIX);
+	}
+
+	@Override
+	public void translate(float x, float y) {
+		list.add(DisplayList.TRANSLATE, x, y);
+	}
+
+	@Override
+	public void rotate(float angle) {
+		list.add(DisplayList.ROTATE, angle);
+	}
+
+	@Override
+	public void scale(float s) {
+		list.add(DisplayList.SCALE, s);
+	}
+
+	@Override
+	public void scale(float x, float y) {
+		list.add(DisplayList.SCALE_XY, x, y);
+	}
+
+	@Override
+	public void shearX(float angle) {
+		list.add(DisplayList.SHEAR_X, angle);
+	}
+
+	@Override
+	public void shearY(float angle) {
+		list.add(DisplayList.SHEAR_Y, angle);
+	}
+
+	@Override
+	public void clip(float a, float b, float c, float d) {
+		list.add(DisplayList.CLIP, a, b, c, d);
+	}
+
+	@Override
+	public void noClip() {
+		list.add(DisplayList.NO_CLIP);
+	}
+
+	// resetting the matrix would also discard the translation to the controls position
+	@Override
+	public void resetMatrix() {
+		unsupported();
+	}
+
+	@Override
+	public void applyMatrix(float n00, float n01, float n02, float n10, float n11, float n12) {
+		unsupported();
+	}
+
+	@Override
+	public void translate(float x, float y, float z) {
+		unsupported();
+	}
+
+
+
+	/*
+	 * Everything else that ends up here or that works on pixels can't be recorded.
+	 */
+
+	@Override
+	protected void rectImpl(float x1, float y1, float x2, float y2) {
+		unsupported();
+	}
+
+	@Override
+	protected void ellipseImpl(float x, float y, float w, float h) {
+		unsupported();
+	}
+
+	@Override
+	protected void arcImpl(float x, float y, float w, float h, float start, float stop, int mode) {
+		unsupported();
+	}
+
+	@Override
+	protected void imageImpl(PImage img, float x1, float y1, float x2, float y2, int u1, int v1, int u2, int v2) {
+		unsupported();
+	}
+
+	@Override
+	protected void textLineImpl(char[] buffer, int start, int stop, float x, float y) {
+		unsupported();
+	}
+
+	@Override
+	protected void backgroundImpl() {
+		unsupported();
+	}
+
+	@Override
+	protected void backgroundImpl(PImage image) {
+		unsupported();
+	}
+
+	@Override
+	public void vertex(float x, float y, float z) {
+		unsupported();
+	}
+
+	@Override
+	public void loadPixels() {
+		unsupported();
+	}
+
+	@Override
+	public void updatePixels(int x, int y, int w, int h) {
+		unsupported();
+	}
+
+	@Override
+	public int get(int x, int y) {
+		unsupported();
+		return 0;
+	}
+
+	@Override
+	public PImage get(int x, int y, int w, int h) {
+		unsupported();
+		return new PImage(Math.max(1, w), Math.max(1, h), ARGB);
+	}
+
+	@Override
+	public void set(int x, int y, int c) {
+		unsupported();
+	}
+
+	@Override
+	public void set(int x, int y, PImage img) {
+		unsupported();
+	}
+
+	@Override
+	public void mask(PImage img) {
+		unsupported();
+	}
+
+	@Override
+	public void mask(int[] maskArray) {
+		unsupported();
+	}
+
+	@Override
+	public void filter(int kind) {
+		unsupported();
+	}
+
+	@Override
+	public void filter(int kind, float param) {
+		unsupported();
+	}
+
+	@Override
+	public void copy(int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh) {
+		unsupported();
+	}
+
+	@Override
+	public void copy(PImage src, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh) {
+		unsupported();
+	}
+
+	@Override
+	public void blend(int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh, int mode) {
+		unsupported();
+	}
+
+	@Override
+	public void blend(PImage src, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh, int mode) {
+		unsupported();
+	}
+}
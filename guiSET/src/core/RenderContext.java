@@ -0,0 +1,99 @@
+package guiSET.core;
+
+import processing.core.*;
+
+
+/*
+ * State that is needed while rendering a tree of controls: the current clip,
+ * offscreen layers for opacity and helper graphics for recording and text
+ * measurement.
+ *
+ * Each thread that renders uses its own context, so that independent subtrees
+ * can be rendered concurrently (see Frame.setParallelRendering()). The context
+ * is handed from parent to child in renderItem().
+ *
+ * The clip is given in the coordinates of the graphics that is currently drawn
+ * onto. Primitives take about half the time of a rect class (measured on windows).
+ */
+class RenderContext {
+
+	int clipX0, clipY0, clipX1, clipY1;
+
+	private RecordingGraphics recorder;
+	private PGraphics textGraphics;
+	private final LayerStack layers = new LayerStack(this);
+
+	private static final ThreadLocal<RenderContext> contexts = new ThreadLocal<RenderContext>() {
+		@Override
+		protected RenderContext initialValue() {
+			return new RenderContext();
+		}
+	};
+
+	/*
+	 * Get the context of the calling thread.
+	 */
+	static RenderContext forCurrentThread() {
+		return contexts.get();
+	}
+
+
+
+	void setClip(int x0, int y0, int x1, int y1) {
+		clipX0 = x0;
+		clipY0 = y0;
+		clipX1 = x1;
+		clipY1 = y1;
+	}
+
+	void intersectClip(int x0, int y0, int x1, int y1) {
+		clipX0 = Math.max(clipX0, x0);
+		clipY0 = Math.max(clipY0, y0);
+		clipX1 = Math.min(clipX1, x1);
+		clipY1 = Math.min(clipY1, y1);
+	}
+
+	void subtractFromClip(int x, int y) {
+		clipX0 -= x;
+		clipX1 -= x;
+		clipY0 -= y;
+		clipY1 -= y;
+	}
+
+	void applyClip(PGraphics pg) {
+		pg.clip(clipX0, clipY0, clipX1 - clipX0, clipY1 - clipY0);
+	}
+
+
+
+	/*
+	 * Layers for controls that are rendered unbuffered with opacity < 1.
+	 */
+	LayerStack getLayers() {
+		return layers;
+	}
+
+	RecordingGraphics getRecorder() {
+		if (recorder == null) {
+			recorder = new RecordingGraphics(Frame.getPApplet(), getTextGraphics());
+		}
+		return recorder;
+	}
+
+	/*
+	 * Graphics for measuring text. The thread that created the Frame shares the
+	 * one of TextBased, other threads get their own (measuring changes its state).
+	 */
+	PGraphics getTextGraphics() {
+		if (textGraphics == null) {
+			textGraphics = Frame.getPApplet().createGraphics(1, 1);
+			textGraphics.beginDraw();
+			textGraphics.textSize(12);
+		}
+		return textGraphics;
+	}
+
+	void setTextGraphics(PGraphics textGraphics) {
+		this.textGraphics = textGraphics;
+	}
+}
@@ -0,0 +1,281 @@
+package guiSET.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+
+/**
+ * Automatic choice between buffered and unbuffered rendering for all elements that use
+ * {@link Control#AUTOMATIC_RENDERING}.
+ *
+ * For each of these elements it is measured how long rendering takes, how often the element is
+ * projected onto its parent and how often it changes. Buffering saves the rendering time each time
+ * the element is projected without having changed. Elements for which this pays off are buffered,
+ * as long as the total size of their buffers stays within the memory budget. Cheap elements and
+ * elements that change (almost) every frame are rendered unbuffered.
+ *
+ * The policy is evaluated periodically by the {@link Frame}. The result of the last evaluation can
+ * be audited through {@link #getDecisions()}.
+ */
+public class RenderingPolicy {
+
+	/**
+	 * Result of the policy for one element.
+	 */
+	public static class Decision {
+		private final Control control;
+		private final boolean buffered;
+		private final boolean changed;
+		private final float averageRenderTime;
+		private final float compositesPerFrame;
+		private final float invalidationsPerFrame;
+		private final long bufferBytes;
+		private final String reason;
+
+		Decision(Control control, boolean buffered, boolean changed, float averageRenderTime, float compositesPerFrame, float invalidationsPerFrame,
+				long bufferBytes, String reason) {
+			this.control = control;
+			this.buffered = buffered;
+			this.changed = changed;
+			this.averageRenderTime = averageRenderTime;
+			this.compositesPerFrame = compositesPerFrame;
+			this.invalidationsPerFrame = invalidationsPerFrame;
+			this.bufferBytes = bufferBytes;
+			this.reason = reason;
+		}
+
+		public Control getControl() {
+			return control;
+		}
+
+		/**
+		 * @return true if the element is rendered buffered now
+		 */
+		public boolean isBuffered() {
+			return buffered;
+		}
+
+		/**
+		 * @return true if the renderer has been switched by this decision
+		 */
+		public boolean hasChanged() {
+			return changed;
+		}
+
+		/**
+		 * @return average time needed to render the element in microseconds
+		 */
+		public float getAverageRenderTime() {
+			return averageRenderTime;
+		}
+
+		/**
+		 * @return how often the element has been projected onto its parent per frame
+		 */
+		public float getCompositesPerFrame() {
+			return compositesPerFrame;
+		}
+
+		/**
+		 * @return how often the element changed per frame
+		 */
+		public float getInvalidationsPerFrame() {
+			return invalidationsPerFrame;
+		}
+
+		/**
+		 * @return size of the buffer the element needs (or would need) in bytes
+		 */
+		public long getBufferBytes() {
+			return bufferBytes;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %s (%s) render=%.1fus composites/frame=%.2f invalidations/frame=%.2f bytes=%d", control.getClass().getSimpleName()
+					+ (control.name.isEmpty() ? "" : " '" + control.name + "'"), buffered ? "buffered" : "unbuffered", reason, averageRenderTime,
+					compositesPerFrame, invalidationsPerFrame, bufferBytes);
+		}
+	}
+
+
+
+	// Elements managed by this policy. Elements that are not referenced anywhere else are dropped.
+	private Set<Control> controls = Collections.newSetFromMap(new WeakHashMap<Control, Boolean>());
+
+	private List<Decision> decisions = new ArrayList<Decision>();
+
+	private long memoryBudget = 16 * 1024 * 1024;
+	private int evaluationInterval = 60;
+	private float minSavedTime = 20;
+	private float maxInvalidationsPerFrame = .5f;
+
+	private int frames = 0;
+
+
+
+	synchronized void register(Control control) {
+		controls.add(control);
+	}
+
+	synchronized void unregister(Control control) {
+		controls.remove(control);
+	}
+
+	/*
+	 * Called by Frame each frame.
+	 */
+	void frameRendered() {
+		if (controls.isEmpty())
+			return;
+		if (++frames >= evaluationInterval) {
+			evaluate();
+		}
+	}
+
+	/**
+	 * Evaluate the policy now and switch renderers accordingly.
+	 */
+	public synchronized void evaluate() {
+		int n = Math.max(1, frames);
+		frames = 0;
+
+		ArrayList<Decision> result = new ArrayList<Decision>();
+		ArrayList<Control> candidates = new ArrayList<Control>();
+
+		for (Control c : controls) {
+			if (c.compositeCalls == 0) {
+				// not visible at all during this interval, keep as it is
+				result.add(decide(c, c.isBuffered(), n, "not rendered"));
+			} else if (c.invalidations / (float) n > maxInvalidationsPerFrame) {
+				result.add(decide(c, false, n, "changes too often"));
+			} else if (savedTimePerFrame(c, n) < minSavedTime) {
+				result.add(decide(c, false, n, "cheap to render"));
+			} else {
+				candidates.add(c);
+			}
+		}
+
+		// buffer the elements where it saves most time per byte first
+		Collections.sort(candidates, new Comparator<Control>() {
+			@Override
+			public int compare(Control a, Control b) {
+				return Float.compare(savedTimePerFrame(b, n) / bufferBytes(b), savedTimePerFrame(a, n) / bufferBytes(a));
+			}
+		});
+
+		long bytes = 0;
+		for (Control c : candidates) {
+			if (bytes + bufferBytes(c) <= memoryBudget) {
+				bytes += bufferBytes(c);
+				result.add(decide(c, true, n, "expensive and rarely changing"));
+			} else {
+				result.add(decide(c, false, n, "memory budget exceeded"));
+			}
+		}
+
+		for (Control c : controls) {
+			c.renderCalls = 0;
+			c.compositeCalls = 0;
+			c.invalidations = 0;
+		}
+		decisions = result;
+	}
+
+	/*
+	 * Rendering time (in microseconds) that buffering saves per frame: rendering is
+	 * only necessary when the element changed and not each time it is projected.
+	 */
+	private static float savedTimePerFrame(Control c, int frames) {
+		return c.averageRenderTime / 1000f * Math.max(0, c.compositeCalls - c.invalidations) / frames;
+	}
+
+	private static long bufferBytes(Control c) {
+		return 4L * c.getWidth() * c.getHeight();
+	}
+
+	private Decision decide(Control c, boolean buffered, int frames, String reason) {
+		boolean changed = buffered != c.isBuffered();
+		if (changed) {
+			if (buffered) {
+				c.setToBufferedRenderer();
+			} else {
+				c.setToUnbufferedRenderer();
+			}
+		}
+		return new Decision(c, buffered, changed, c.averageRenderTime / 1000f, c.compositeCalls / (float) frames, c.invalidations / (float) frames,
+				bufferBytes(c), reason);
+	}
+
+
+
+	/**
+	 * Get the decisions made during the last evaluation.
+	 *
+	 * @return list of decisions
+	 */
+	public synchronized List<Decision> getDecisions() {
+		return new ArrayList<Decision>(decisions);
+	}
+
+	/**
+	 * Set the maximum total size of the buffers of all automatically managed elements.
+	 *
+	 * @param bytes memory budget in bytes
+	 */
+	public synchronized void setMemoryBudget(long bytes) {
+		memoryBudget = Math.max(0, bytes);
+	}
+
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Set after how many frames the policy is evaluated.
+	 *
+	 * @param frames evaluation interval in frames
+	 */
+	public synchronized void setEvaluationInterval(int frames) {
+		evaluationInterval = Math.max(1, frames);
+	}
+
+	public synchronized int getEvaluationInterval() {
+		return evaluationInterval;
+	}
+
+	/**
+	 * Set the rendering time (in microseconds per frame) that buffering needs to save at least. Below
+	 * that, elements are rendered unbuffered.
+	 *
+	 * @param microseconds minimum saved time per frame
+	 */
+	public synchronized void setMinSavedTime(float microseconds) {
+		minSavedTime = microseconds;
+	}
+
+	public synchronized float getMinSavedTime() {
+		return minSavedTime;
+	}
+
+	/**
+	 * Set how often (per frame) an element may change at most and still be buffered.
+	 *
+	 * @param rate maximum invalidations per frame
+	 */
+	public synchronized void setMaxInvalidationsPerFrame(float rate) {
+		maxInvalidationsPerFrame = rate;
+	}
+
+	public synchronized float getMaxInvalidationsPerFrame() {
+		return maxInvalidationsPerFrame;
+	}
+}
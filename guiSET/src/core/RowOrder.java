@@ -0,0 +1,147 @@
+package guiSET.core;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+
+/*
+ * Sorts and filters the rows of a ListView in model mode. A job works on a
+ * snapshot of the model (or the texts of the last job) and can run on another
+ * thread. The result is applied on the drawing thread by the list view.
+ *
+ * The texts of the entries are computed once per job (and reused by the next
+ * job as long as the model doesn't change), so comparisons don't call
+ * toString(). Large lists are sorted with Arrays.parallelSort().
+ */
+class RowOrder implements Runnable {
+
+	static final int PARALLEL_THRESHOLD = 8192;
+
+	final ListView.Task task;
+	final int version;	// model version of the snapshot
+	final boolean sort;
+	final boolean reversed;
+	final Collator collator;
+	final String filter;	// lowercase, empty for none
+
+	// snapshot of the model entries, null if the texts are known
+	Object[] values;
+	String[] texts, lowerTexts;
+
+	// sorted model indices (input if not sorting, null means model order)
+	int[] sorted;
+	// rows to filter if the filter has only been narrowed, null for all sorted rows
+	int[] candidates;
+
+	// result: model index of each row, null if unsorted and unfiltered
+	int[] order;
+
+	RowOrder(ListView.Task task, int version, boolean sort, boolean reversed, Collator collator, String filter) {
+		this.task = task;
+		this.version = version;
+		this.sort = sort;
+		this.reversed = reversed;
+		this.collator = collator;
+		this.filter = filter;
+	}
+
+	@Override
+	public void run() {
+		try {
+			int n = texts != null ? texts.length : values.length;
+			if (texts == null) {
+				texts = new String[n];
+				for (int i = 0; i < n; i++) {
+					texts[i] = String.valueOf(values[i]);
+					progress(i, n, 0, .3f);
+				}
+				values = null;
+			}
+
+			if (sort) {
+				sorted = sortedIndices(n);
+			}
+			task.progress = .8f;
+
+			if (filter.length() > 0) {
+				if (lowerTexts == null) {
+					lowerTexts = new String[n];
+					for (int i = 0; i < n; i++) {
+						lowerTexts[i] = texts[i].toLowerCase(Locale.ROOT);
+						progress(i, n, .8f, .1f);
+					}
+				}
+				int[] from = candidates != null ? candidates : sorted;
+				int m = from != null ? from.length : n;
+				int[] result = new int[m];
+				int count = 0;
+				for (int row = 0; row < m; row++) {
+					int i = from != null ? from[row] : row;
+					if (lowerTexts[i].contains(filter)) {
+						result[count++] = i;
+					}
+					progress(row, m, .9f, .1f);
+				}
+				order = Arrays.copyOf(result, count);
+			} else {
+				order = sorted;
+			}
+		} catch (CancellationException e) {
+			task.cancelled = true;
+		}
+	}
+
+	private int[] sortedIndices(int n) {
+		Integer[] indices = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = i;
+		}
+
+		Comparator<Integer> comparator;
+		if (collator != null) {
+			CollationKey[] keys = new CollationKey[n];
+			for (int i = 0; i < n; i++) {
+				keys[i] = collator.getCollationKey(texts[i]);
+				progress(i, n, .3f, .2f);
+			}
+			comparator = (a, b) -> keys[a].compareTo(keys[b]);
+		} else {
+			String[] keys = texts;
+			comparator = (a, b) -> keys[a].compareTo(keys[b]);
+		}
+		if (reversed) {
+			comparator = comparator.reversed();
+		}
+		Comparator<Integer> c = comparator;
+		Comparator<Integer> cancellable = (a, b) -> {
+			if (task.cancelled)
+				throw new CancellationException();
+			return c.compare(a, b);
+		};
+
+		if (n >= PARALLEL_THRESHOLD) {
+			Arrays.parallelSort(indices, cancellable);
+		} else {
+			Arrays.sort(indices, cancellable);
+		}
+
+		int[] result = new int[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = indices[i];
+		}
+		return result;
+	}
+
+	// update the progress every now and then and stop if cancelled
+	private void progress(int i, int n, float start, float range) {
+		if ((i & 4095) == 0) {
+			if (task.cancelled)
+				throw new CancellationException();
+			task.progress = start + range * i / n;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package guiSET.core;
+
+import java.util.PriorityQueue;
+import java.util.Timer;
+import java.util.TimerTask;
+
+
+/*
+ * Runs delayed work of the gui (cursor blinking, menu hover delays, ...) on the
+ * animation thread of the sketch. Tasks are run by the Frame at the beginning
+ * of the first display after their deadline, so they can change controls just
+ * like event handlers.
+ *
+ * In NO_LOOP mode the sketch only displays when a redraw is requested. The
+ * scheduler then keeps a single wakeup armed for the earliest deadline which
+ * requests that redraw. Tasks that are due shortly after each other are run in
+ * the same display, so they only cost one redraw. Without pending tasks no
+ * timer is armed at all.
+ */
+class Scheduler {
+
+	// Tasks due within this time after a display are run in that display already (ns).
+	static final long COALESCE_NANOS = 4_000_000;
+
+	static final class Task {
+		private final long deadline;
+		private final long sequence; // keeps tasks with the same deadline in order
+		private final Runnable action;
+		private volatile boolean cancelled = false;
+
+		private Task(long deadline, long sequence, Runnable action) {
+			this.deadline = deadline;
+			this.sequence = sequence;
+			this.action = action;
+		}
+
+		void cancel() {
+			cancelled = true;
+		}
+	}
+
+	private final PriorityQueue<Task> tasks = new PriorityQueue<Task>(16, (a, b) -> a.deadline != b.deadline ? Long.compare(a.deadline, b.deadline)
+			: Long.compare(a.sequence, b.sequence));
+	private long sequence = 0;
+
+	private final Runnable wakeup;
+	private boolean wakeupsEnabled = false;
+	private Timer timer; 			// only created when wakeups are needed
+	private TimerTask armedWakeup;
+	private long armedDeadline;
+
+	/*
+	 * wakeup is called from a timer thread when a task gets due and wakeups are
+	 * enabled.
+	 */
+	Scheduler(Runnable wakeup) {
+		this.wakeup = wakeup;
+	}
+
+	/*
+	 * Run action on the animation thread in (at least) delay milliseconds. The
+	 * returned task can be cancelled. May be called from any thread.
+	 */
+	synchronized Task schedule(long delay, Runnable action) {
+		Task task = new Task(System.nanoTime() + Math.max(0, delay) * 1_000_000L, sequence++, action);
+		tasks.add(task);
+		arm();
+		return task;
+	}
+
+	/*
+	 * Run all tasks that are due. Called by the Frame on the animation thread
+	 * before rendering.
+	 */
+	void runDue() {
+		long now = System.nanoTime() + COALESCE_NANOS;
+		while (true) {
+			Task task;
+			synchronized (this) {
+				task = tasks.peek();
+				if (task == null || task.deadline > now)
+					break;
+				tasks.poll();
+			}
+			if (!task.cancelled) {
+				try {
+					task.action.run();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		synchronized (this) {
+			arm();
+		}
+	}
+
+	/*
+	 * Enable wakeups (needed in NO_LOOP mode only, otherwise the Frame displays
+	 * each frame anyway).
+	 */
+	synchronized void setWakeupsEnabled(boolean enabled) {
+		wakeupsEnabled = enabled;
+		if (enabled) {
+			arm();
+		} else if (armedWakeup != null) {
+			armedWakeup.cancel();
+			armedWakeup = null;
+		}
+	}
+
+	synchronized int getPendingTasks() {
+		return tasks.size();
+	}
+
+	/*
+	 * Make sure a wakeup is armed for the earliest pending task. An already armed
+	 * wakeup that is not later is kept, so many scheduled tasks cause at most one
+	 * timer at a time.
+	 */
+	private void arm() {
+		while (!tasks.isEmpty() && tasks.peek().cancelled) {
+			tasks.poll();
+		}
+		if (!wakeupsEnabled || tasks.isEmpty())
+			return;
+
+		long deadline = tasks.peek().deadline;
+		if (armedWakeup != null) {
+			if (armedDeadline <= deadline)
+				return;
+			armedWakeup.cancel();
+		}
+		if (timer == null) {
+			timer = new Timer("guiSET scheduler", true);
+		}
+		armedDeadline = deadline;
+		armedWakeup = new TimerTask() {
+			@Override
+			public void run() {
+				synchronized (Scheduler.this) {
+					if (armedWakeup != this)
+						return;
+					armedWakeup = null;
+				}
+				wakeup.run();
+			}
+		};
+		timer.schedule(armedWakeup, Math.max(0, (deadline - System.nanoTime() + 999_999) / 1_000_000));
+	}
+}
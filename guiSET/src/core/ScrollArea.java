@@ -213,7 +213,7 @@ public class ScrollArea extends Container {
 	 */
 	public void setScrollPositionX(int scrollPositionX) {
 		this.scrollPositionX = scrollPositionX;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -223,7 +223,7 @@ public class ScrollArea extends Container {
 	 */
 	public void setScrollPositionY(int scrollPositionY) {
 		this.scrollPositionY = scrollPositionY;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -358,7 +358,7 @@ public class ScrollArea extends Container {
 		super.release(e);
 		if (isDraggingScrollHandle()) {
 			startHandleDragPos = -1;
-			update();
+			invalidatePaint();
 		}
 	}
 
@@ -384,7 +384,7 @@ public class ScrollArea extends Container {
 			if (mouseIsOverScrollBarH) {
 				whichScrollBar = H_SCROLLBAR;
 				int scrollhandle_posX = scrollhandle_posX();
-				update();
+				invalidatePaint();
 
 				// if clicked on scrollhandle itself (instead of entire scroll area) the
 				// dragging is started
@@ -395,7 +395,7 @@ public class ScrollArea extends Container {
 			} else if (mouseIsOverScrollBarV) {
 				whichScrollBar = V_SCROLLBAR;
 				int scrollhandle_posY = scrollhandle_posY();
-				update();
+				invalidatePaint();
 
 				// if clicked on scrollhandle itself (instead of entire scroll area) the
 				// dragging is started
@@ -0,0 +1,301 @@
+package guiSET.core;
+
+import java.util.Arrays;
+
+
+/**
+ * Selected indices of a {@link ListView} (model indices in model mode) as sorted ranges, so that a
+ * selection takes memory per range and not per index (selecting all of a million entries is a
+ * single range) and checking an index is a binary search. The anchor is the item where a range
+ * selection with shift starts, the lead is the most recently selected item.
+ * 
+ * The selection is changed through the list view, see {@link ListView#getSelectionModel()}.
+ */
+public class SelectionModel {
+
+	// selected indices as sorted ranges [starts[i], ends[i]) that neither overlap nor touch
+	private int[] starts = new int[4];
+	private int[] ends = new int[4];
+	private int ranges = 0;
+	private int selectedCount = 0; // number of selected indices
+
+	private int anchor = -1;
+	private int lead = -1;
+
+	// set when the selection changed, reset by the list view after raising its event
+	private boolean changed = false;
+
+	SelectionModel() {
+	}
+
+	public boolean isSelected(int index) {
+		int i = rangeAfter(index);
+		return index >= 0 && i < ranges && starts[i] <= index;
+	}
+
+	public boolean isEmpty() {
+		return selectedCount == 0;
+	}
+
+	public int getSelectedCount() {
+		return selectedCount;
+	}
+
+	/**
+	 * @return index where range selections start, -1 if none
+	 */
+	public int getAnchor() {
+		return anchor;
+	}
+
+	/**
+	 * @return most recently selected index, -1 if none
+	 */
+	public int getLead() {
+		return lead;
+	}
+
+	/**
+	 * Next selected index starting from given index (inclusive), -1 if there is none.
+	 * 
+	 * @param from start index
+	 * @return next selected index
+	 */
+	public int nextSelected(int from) {
+		from = Math.max(0, from);
+		int i = rangeAfter(from);
+		return i < ranges ? Math.max(from, starts[i]) : -1;
+	}
+
+	public int getMinSelectionIndex() {
+		return ranges > 0 ? starts[0] : -1;
+	}
+
+	public int getMaxSelectionIndex() {
+		return ranges > 0 ? ends[ranges - 1] - 1 : -1;
+	}
+
+	/**
+	 * @return selected indices in ascending order
+	 */
+	public int[] getSelectedIndices() {
+		int[] indices = new int[selectedCount];
+		int n = 0;
+		for (int i = 0; i < ranges; i++) {
+			for (int index = starts[i]; index < ends[i]; index++) {
+				indices[n++] = index;
+			}
+		}
+		return indices;
+	}
+
+
+
+	/*
+	 * CHANGES (by the ListView)
+	 */
+
+	void select(int index) {
+		if (addRange(index, index + 1)) {
+			changed = true;
+		}
+	}
+
+	void deselect(int index) {
+		if (removeRange(index, index + 1)) {
+			changed = true;
+		}
+	}
+
+	// from and to inclusive
+	void selectRange(int from, int to) {
+		if (addRange(Math.min(from, to), Math.max(from, to) + 1)) {
+			changed = true;
+		}
+	}
+
+	// from and to inclusive
+	void deselectRange(int from, int to) {
+		if (removeRange(Math.min(from, to), Math.max(from, to) + 1)) {
+			changed = true;
+		}
+	}
+
+	// also forgets anchor and lead, they would point to rows that aren't selected anymore
+	void clear() {
+		if (selectedCount > 0) {
+			changed = true;
+		}
+		if (starts.length > 64) {
+			starts = new int[4];
+			ends = new int[4];
+		}
+		ranges = 0;
+		selectedCount = 0;
+		anchor = -1;
+		lead = -1;
+	}
+
+	void setAnchor(int anchor) {
+		this.anchor = anchor;
+	}
+
+	void setLead(int lead) {
+		this.lead = lead;
+	}
+
+	/*
+	 * Returns true if the selection changed since the last call.
+	 */
+	boolean takeChanged() {
+		boolean c = changed;
+		changed = false;
+		return c;
+	}
+
+
+
+	/*
+	 * REINDEXING (the selected items stay the same)
+	 */
+
+	// count items have been inserted at index
+	void insert(int index, int count) {
+		int i = rangeAfter(index);
+		if (i < ranges && starts[i] < index) {
+			// split the range around the new items, they are not selected
+			splice(i + 1, i + 1, 1);
+			starts[i + 1] = index;
+			ends[i + 1] = ends[i];
+			ends[i] = index;
+			i++;
+		}
+		for (; i < ranges; i++) {
+			starts[i] += count;
+			ends[i] += count;
+		}
+		anchor = anchor >= index ? anchor + count : anchor;
+		lead = lead >= index ? lead + count : lead;
+	}
+
+	// count items have been removed at index, removing selected items is a change
+	void remove(int index, int count) {
+		int removedEnd = index + count;
+		if (removeRange(index, removedEnd)) {
+			changed = true;
+		}
+		int i = rangeAfter(index);
+		for (int k = i; k < ranges; k++) {
+			starts[k] -= count;
+			ends[k] -= count;
+		}
+		// the ranges before and after the removed items might touch now
+		if (i > 0 && i < ranges && ends[i - 1] == starts[i]) {
+			ends[i - 1] = ends[i];
+			splice(i, i + 1, 0);
+		}
+		anchor = anchor >= removedEnd ? anchor - count : (anchor >= index ? -1 : anchor);
+		lead = lead >= removedEnd ? lead - count : (lead >= index ? -1 : lead);
+	}
+
+	// the item at index i moved to newIndices[i]
+	void permute(int[] newIndices) {
+		int[] old = getSelectedIndices();
+		int n = 0;
+		for (int index : old) {
+			if (index < newIndices.length) {
+				old[n++] = newIndices[index];
+			}
+		}
+		Arrays.sort(old, 0, n);
+		ranges = 0;
+		selectedCount = 0;
+		for (int i = 0; i < n; i++) {
+			addRange(old[i], old[i] + 1);
+		}
+		anchor = anchor >= 0 && anchor < newIndices.length ? newIndices[anchor] : -1;
+		lead = lead >= 0 && lead < newIndices.length ? newIndices[lead] : -1;
+	}
+
+
+
+	/*
+	 * RANGES
+	 */
+
+	// first range that ends after index, i.e. contains it or lies behind it
+	private int rangeAfter(int index) {
+		int lo = 0, hi = ranges;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] > index) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		return lo;
+	}
+
+	// add [lo, hi) and merge the ranges it overlaps or touches, true if indices were added
+	private boolean addRange(int lo, int hi) {
+		int i = rangeAfter(lo - 1);
+		int j = i;
+		int covered = 0;
+		while (j < ranges && starts[j] <= hi) {
+			covered += ends[j] - starts[j];
+			j++;
+		}
+		if (j > i) {
+			lo = Math.min(lo, starts[i]);
+			hi = Math.max(hi, ends[j - 1]);
+		}
+		if (hi - lo == covered) {
+			return false;
+		}
+		splice(i, j, 1);
+		starts[i] = lo;
+		ends[i] = hi;
+		selectedCount += hi - lo - covered;
+		return true;
+	}
+
+	// remove [lo, hi) and keep the parts of the ranges outside of it, true if indices were removed
+	private boolean removeRange(int lo, int hi) {
+		int i = rangeAfter(lo);
+		int j = i;
+		int removed = 0;
+		while (j < ranges && starts[j] < hi) {
+			removed += Math.min(hi, ends[j]) - Math.max(lo, starts[j]);
+			j++;
+		}
+		if (j == i) {
+			return false;
+		}
+		int left = starts[i], right = ends[j - 1];
+		splice(i, j, (left < lo ? 1 : 0) + (right > hi ? 1 : 0));
+		if (left < lo) {
+			starts[i] = left;
+			ends[i] = lo;
+			i++;
+		}
+		if (right > hi) {
+			starts[i] = hi;
+			ends[i] = right;
+		}
+		selectedCount -= removed;
+		return true;
+	}
+
+	// replace the ranges from (inclusive) to (exclusive) with n ranges to be set by the caller
+	private void splice(int from, int to, int n) {
+		int newRanges = ranges - (to - from) + n;
+		if (newRanges > starts.length) {
+			starts = Arrays.copyOf(starts, Math.max(newRanges, 2 * starts.length));
+			ends = Arrays.copyOf(ends, starts.length);
+		}
+		System.arraycopy(starts, to, starts, from + n, ranges - to);
+		System.arraycopy(ends, to, ends, from + n, ranges - to);
+		ranges = newRanges;
+	}
+}
@@ -116,6 +116,12 @@ public class Slider extends Control {
 		}
 	}
 
+	// hover and press colors are not used
+	@Override
+	protected boolean allowsBackgroundPatching() {
+		return true;
+	}
+
 
 
 	/*
@@ -137,7 +143,7 @@ public class Slider extends Control {
 		if (tempValue != this.value) {
 			handleEvent(valueChangeListener, this);
 		}
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -150,7 +156,7 @@ public class Slider extends Control {
 		if (minValue <= maxValue) {
 			this.minValue = minValue;
 			setValue(value); // might need constraining
-			update();
+			invalidatePaint();
 		} else {
 			System.out.println("minValue can't be larger than maxValue");
 		}
@@ -166,7 +172,7 @@ public class Slider extends Control {
 		if (maxValue >= minValue) {
 			this.maxValue = maxValue;
 			setValue(value); // might need constraining
-			update();
+			invalidatePaint();
 		} else {
 			System.out.println("maxValue can't be less than minValue");
 		}
@@ -116,7 +116,7 @@ public class Switch extends Checkbox {
 	 */
 	public void setCurrentPosition(float c) {
 		this.currentPosition = c;
-		update();
+		invalidatePaint();
 	}
 
 	/**
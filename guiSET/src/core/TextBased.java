@@ -53,7 +53,7 @@ abstract public class TextBased extends Control {
 	@Override
 	public void setForegroundColor(int clr) {
 		textRenderer.setTextColor(clr);
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -63,7 +63,7 @@ abstract public class TextBased extends Control {
 	 */
 	public void setTextColor(int clr) {
 		textRenderer.setTextColor(clr);
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -74,7 +74,7 @@ abstract public class TextBased extends Control {
 	public void setText(String text) {
 		this.text = text;
 		autosize();
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -85,7 +85,7 @@ abstract public class TextBased extends Control {
 	 */
 	public void setText(String text, boolean noautosize) {
 		this.text = text;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -96,7 +96,7 @@ abstract public class TextBased extends Control {
 	public void setFontSize(float fontSize) {
 		textRenderer.setFontSize(Math.max(0, fontSize));
 		autosize();
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -108,7 +108,7 @@ abstract public class TextBased extends Control {
 		if (align == Constants.CENTER || align == Constants.LEFT || align == Constants.RIGHT) {
 			textRenderer.setTextAlign(align);
 		}
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -120,7 +120,7 @@ abstract public class TextBased extends Control {
 		if (align == Constants.CENTER || align == Constants.TOP || align == Constants.BOTTOM) {
 			textRenderer.setTextAlignY(align);
 		}
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -137,7 +137,7 @@ abstract public class TextBased extends Control {
 			textRenderer.setLineHeightPercent(lineHeight);
 		}
 		autosize();
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -148,7 +148,7 @@ abstract public class TextBased extends Control {
 	public void setLineHeightPercent(int lineHeight) {
 		textRenderer.setLineHeightPercent(lineHeight);
 		autosize();
-		update();
+		invalidatePaint();
 	}
 
 	/*
@@ -506,10 +506,11 @@ abstract public class TextBased extends Control {
 		private float textWidthDuringDraw(String text) {
 			if (pfont == null) // no specific font - use standardtext implementation
 				return super.textWidth(text);
-			PFont temp = textInfo_graphics.textFont;
-			textInfo_graphics.textFont = pfont;
-			float width = textInfo_graphics.textWidth(text);
-			textInfo_graphics.textFont = temp;
+			PGraphics g = textInfo();
+			PFont temp = g.textFont;
+			g.textFont = pfont;
+			float width = g.textWidth(text);
+			g.textFont = temp;
 
 			return width;
 		}
@@ -519,10 +520,11 @@ abstract public class TextBased extends Control {
 			if (pfont == null) // no specific font - use standardtext implementation
 				return super.textWidth(text);
 
-			PFont temp = textInfo_graphics.textFont;
-			textInfo_graphics.textFont = pfont;
-			float width = textInfo_graphics.textWidth(text) / textInfo_graphics.textSize * size;
-			textInfo_graphics.textFont = temp;
+			PGraphics g = textInfo();
+			PFont temp = g.textFont;
+			g.textFont = pfont;
+			float width = g.textWidth(text) / g.textSize * size;
+			g.textFont = temp;
 
 			return width;
 		}
@@ -607,25 +609,31 @@ abstract public class TextBased extends Control {
 
 
 
-	// implementation used by BasicTextRenderer
-	private float textWidthStandardTextImpl(String text) {
+	/*
+	 * Graphics for measuring text. Threads that render in parallel use their own.
+	 */
+	private PGraphics textInfo() {
 		if (textInfo_graphics == null)
 			throw new RuntimeException("Frame needs to be intialized before any other guiSET element");
-		return textInfo_graphics.textWidth(text) / textInfo_graphics.textSize * getFontSize();
+		return renderContext.getTextGraphics();
+	}
+
+	// implementation used by BasicTextRenderer
+	private float textWidthStandardTextImpl(String text) {
+		PGraphics g = textInfo();
+		return g.textWidth(text) / g.textSize * getFontSize();
 	}
 
 	// implementation used by BasicTextRenderer
 	private float textAscentStandardTextImpl() {
-		if (textInfo_graphics == null)
-			throw new RuntimeException("Frame needs to be intialized before any other guiSET element");
-		return textInfo_graphics.textAscent() * getFontSize() / textInfo_graphics.textSize;
+		PGraphics g = textInfo();
+		return g.textAscent() * getFontSize() / g.textSize;
 	}
 
 	// implementation used by BasicTextRenderer
 	private float textDescentStandardTextImpl() {
-		if (textInfo_graphics == null)
-			throw new RuntimeException("Frame needs to be intialized before any other guiSET element");
-		return textInfo_graphics.textDescent() * getFontSize() / textInfo_graphics.textSize;
+		PGraphics g = textInfo();
+		return g.textDescent() * getFontSize() / g.textSize;
 	}
 
 
@@ -734,6 +742,16 @@ abstract public class TextBased extends Control {
 		}
 	}
 
+	/*
+	 * Without a native font the text is drawn from the glyph images of the PFont,
+	 * which are shared with all elements that use it.
+	 */
+	@Override
+	protected boolean canRenderConcurrently() {
+		PFont font = getFont();
+		return font == null || font.getNative() != null;
+	}
+
 	public static final long TEXT_COLOR = 1 << 16;
 	public static final long FONT_SIZE = 1 << 17;
 	public static final long TEXT_ALIGN = 1 << 18;
@@ -198,14 +198,35 @@ public class Textbox extends HScrollContainer {
 	}
 
 
+	/*
+	 * The cursor is toggled every half cursor cycle by a task on the Frames
+	 * scheduler, so it also blinks in NO_LOOP mode without waking the sketch more
+	 * often than needed. Only one textbox can be focused at a time.
+	 */
+	private static Scheduler.Task cursorTask;
+
+	private void scheduleCursorBlink() {
+		cursorTask = getFrame().getScheduler().schedule(globalCursorCycleTime / 2, () -> {
+			currentDisplayCursor = !currentDisplayCursor;
+			invalidatePaint();
+			scheduleCursorBlink();
+		});
+	}
+
+	private static void stopCursorBlink() {
+		if (cursorTask != null) {
+			cursorTask.cancel();
+			cursorTask = null;
+		}
+	}
+
 	/**
-	 * Simple thread that sleeps for one half cursor cycle and toggles cursor visibilty. An interruption
-	 * just restarts the thread, except the variable finish has been set to false previously. Everything
-	 * alright with thread saftey?
+	 * Thread that used to blink the cursor.
 	 * 
-	 * @author Mc-Zen
-	 *
+	 * @deprecated The cursor is blinked by a task of the Frame now. The thread is not started anymore,
+	 *             {@link #t} is only kept for subclasses that still refer to it.
 	 */
+	@Deprecated
 	protected class CursorThread extends Thread {
 		boolean finish = false;
 
@@ -214,7 +235,7 @@ public class Textbox extends HScrollContainer {
 				try {
 					Thread.sleep(globalCursorCycleTime / 2);
 					currentDisplayCursor = !currentDisplayCursor;
-					update();
+					invalidatePaint();
 				} catch (InterruptedException e) {
 					if (finish)
 						return;
@@ -224,24 +245,35 @@ public class Textbox extends HScrollContainer {
 		}
 	}
 
+	/**
+	 * @deprecated Not started anymore, see {@link CursorThread}.
+	 */
+	@Deprecated
 	protected static CursorThread t;
 
+	// one placeholder that is never started, interrupting it does nothing
+	{
+		if (t == null) {
+			t = new CursorThread();
+		}
+	}
+
 	@Override
 	protected void focused() {
-		t = new CursorThread();
-		t.start();
+		stopCursorBlink();
+		scheduleCursorBlink();
 	}
 
 	@Override
 	protected void blurred() {
-		t.finish = true;
-		t.interrupt();
+		stopCursorBlink();
 	}
 
 	protected void restartCursorAnimation() {
 		if (focused) {
 			currentDisplayCursor = true;
-			t.interrupt();
+			stopCursorBlink();
+			scheduleCursorBlink();
 		}
 	}
 
@@ -318,7 +350,7 @@ public class Textbox extends HScrollContainer {
 		selectionStart = cursorPosition;
 		selectionEnd = cursorPosition;
 		needsScrolling = true;
-		update();
+		invalidatePaint();
 	}
 
 	protected void moveCursorBy(int ammount) {
@@ -346,7 +378,7 @@ public class Textbox extends HScrollContainer {
 	 */
 	public void setCursorColor(int cursorColor) {
 		this.cursorColor = cursorColor;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -365,7 +397,7 @@ public class Textbox extends HScrollContainer {
 	 */
 	public void setSelectionStart(int selectionStart) {
 		this.selectionStart = Math.max(0, Math.min(text.length(), selectionStart));
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -375,7 +407,7 @@ public class Textbox extends HScrollContainer {
 	 */
 	public void setSelectionEnd(int selectionEnd) {
 		this.selectionEnd = Math.max(0, Math.min(text.length(), selectionEnd));
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -398,7 +430,7 @@ public class Textbox extends HScrollContainer {
 	 */
 	public void setSelectionColor(int selectionColor) {
 		this.selectionColor = selectionColor;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -408,7 +440,7 @@ public class Textbox extends HScrollContainer {
 	 */
 	public void setHint(String hint) {
 		this.hint = hint;
-		update();
+		invalidatePaint();
 	}
 
 	@Override
@@ -780,7 +812,7 @@ public class Textbox extends HScrollContainer {
 			case 'A':
 				selectionStart = 0;
 				selectionEnd = text.length();
-				update();
+				invalidatePaint();
 				break;
 			}
 		}
@@ -13,6 +13,9 @@ package guiSET.core;
  * for i.e inline-textboxes etc. (reminding of mobile phone scroll bars). 
  */
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
 import processing.core.*;
 import processing.event.*;
 
@@ -39,6 +42,19 @@ public class VScrollContainer extends VFlowContainer {
 	// textboxes)
 	protected boolean slim_scrollhandle = false;
 
+	// Heights of the items (including margins) as prefix sums, so that the position
+	// of an item and the items in view can be found without visiting all items.
+	private final ExtentIndex extents = new ExtentIndex();
+	private final IdentityHashMap<Control, Integer> itemIndices = new IdentityHashMap<Control, Integer>();
+
+	// Items that might have changed their height since the last layout pass. If items
+	// have been added, removed or reordered the index is built again.
+	private final ArrayList<Control> changedItems = new ArrayList<Control>();
+	private boolean itemsChanged = true;
+
+	// Range of items that have been rendered last time (all others are out of view)
+	private int firstRenderedItem = 0, lastRenderedItem = -1;
+
 
 
 
@@ -61,40 +77,109 @@ public class VScrollContainer extends VFlowContainer {
 
 		drawDefaultBackground();
 
-		fullScrollHeight = getPaddingTop() + getPaddingBottom();
-
-		for (Control c : items) {
-			if (c.isVisible()) {
-				fullScrollHeight += c.getMarginTop() + c.getHeight() + c.getMarginBottom();
-			}
+		// only measure the items again if any of them changed size, margin or visibility
+		if (layoutDirty || extents.size() != items.size()) {
+			layoutItems();
 		}
 		// do this here and not in setScrollPosition() as fullscrollHeight might have
 		// changed.
 		scrollPosition = PApplet.constrain(scrollPosition, 0, PApplet.max(0, fullScrollHeight - getHeight()));
 
-		int usedSpace = getPaddingTop();
-		for (Control c : items) {
+		// only visit the items in view
+		int first = extents.find(scrollPosition - getPaddingTop());
+		int last = first - 1;
+		int top = getPaddingTop() + extents.offset(first);
+		for (int i = first; i < items.size() && top - scrollPosition <= getHeight(); i++) {
+			Control c = items.get(i);
 			if (c.isVisible()) {
-				// don't draw and render if control is not visible
-
-				int cx0 = c.getMarginLeft() + getPaddingLeft();
-				int cy0 = usedSpace + c.getMarginTop() - scrollPosition;
-
-				if (cy0 > getHeight() || cy0 + c.getHeight() < 0) { // out of the containers bounds due to scrolling
-					c.offsetX = getWidth(); // one should suffice
-					c.offsetY = getHeight();
-				} else {
-					renderItem(c, cx0, cy0);
-				}
+				renderItem(c, c.getMarginLeft() + getPaddingLeft(), top + c.getMarginTop() - scrollPosition);
+			}
+			top += extents.get(i);
+			last = i;
+		}
 
-				usedSpace += (c.getHeight() + c.getMarginTop() + c.getMarginBottom());
+		// items that have been scrolled out of view should not receive mouse events
+		for (int i = firstRenderedItem; i <= lastRenderedItem; i++) {
+			if (i < first || i > last) {
+				moveOutOfView(items.get(i));
 			}
 		}
+		firstRenderedItem = first;
+		lastRenderedItem = last;
 
 		drawScrollbar();
 		drawDefaultDisabled();
 	}
 
+	/*
+	 * Update the heights of changed items and compute fullScrollHeight. If items
+	 * have been added, removed or reordered, all items are measured again and
+	 * moved out of view until they are rendered.
+	 */
+	protected void layoutItems() {
+		if (itemsChanged || extents.size() != items.size()) {
+			extents.resize(items.size());
+			itemIndices.clear();
+			for (int i = 0; i < items.size(); i++) {
+				Control c = items.get(i);
+				extents.put(i, extentOf(c));
+				itemIndices.put(c, i);
+				moveOutOfView(c);
+			}
+			extents.build();
+			firstRenderedItem = 0;
+			lastRenderedItem = -1;
+			itemsChanged = false;
+		} else {
+			for (Control c : changedItems) {
+				Integer i = itemIndices.get(c);
+				if (i != null) {
+					extents.set(i, extentOf(c));
+				}
+			}
+		}
+		changedItems.clear();
+		fullScrollHeight = getPaddingTop() + extents.total() + getPaddingBottom();
+		layoutDirty = false;
+	}
+
+	private int extentOf(Control c) {
+		return c.isVisible() ? c.getMarginTop() + c.getHeight() + c.getMarginBottom() : 0;
+	}
+
+	@Override
+	void childLayoutChanged(Control child) {
+		if (itemsChanged)
+			return;
+		if (changedItems.size() < items.size()) {
+			changedItems.add(child);
+		} else {
+			itemsChanged = true; // cheaper to measure all
+			changedItems.clear();
+		}
+	}
+
+	@Override
+	void itemsChanged() {
+		itemsChanged = true;
+		changedItems.clear();
+	}
+
+	private void moveOutOfView(Control c) {
+		c.offsetX = getWidth(); // one should suffice
+		c.offsetY = getHeight();
+	}
+
+	@Override
+	protected int getFirstEventItem() {
+		return layoutDirty ? 0 : firstRenderedItem;
+	}
+
+	@Override
+	protected int getLastEventItem() {
+		return layoutDirty ? items.size() - 1 : lastRenderedItem;
+	}
+
 //
 	// draw vertical scrollbar if needed
 	protected void drawScrollbar() {
@@ -164,10 +249,10 @@ public class VScrollContainer extends VFlowContainer {
 
 	public void scrollToItem(int index) {
 		if (index >= 0 && index < items.size()) {
-			int y = getPaddingTop();
-			for (int i = 0; i < index; i++) {
-				y += items.get(i).getMarginTop() + items.get(i).getHeight() + items.get(i).getMarginBottom();
+			if (layoutDirty || extents.size() != items.size()) {
+				layoutItems();
 			}
+			int y = getPaddingTop() + extents.offset(index);
 			Control item = items.get(index);
 			if (scrollPosition > y) {
 				setScrollPosition(y);
@@ -178,19 +263,12 @@ public class VScrollContainer extends VFlowContainer {
 	}
 
 	public void scrollToItem(Control item) {
-		if (items.indexOf(item) == -1)
-			return;
-
-		int y = getPaddingTop();
-		for (int i = 0; i < items.size(); i++) {
-			if (item == items.get(i))
-				break;
-			y += items.get(i).getMarginTop() + items.get(i).getHeight() + items.get(i).getMarginBottom();
+		if (layoutDirty || extents.size() != items.size()) {
+			layoutItems();
 		}
-		if (scrollPosition > y) {
-			setScrollPosition(y);
-		} else if (scrollPosition + getHeight() < y + item.getHeight()) {
-			setScrollPosition(y - getHeight() + item.getHeight() + item.getMarginTop() + item.getMarginBottom());
+		Integer index = itemIndices.get(item);
+		if (index != null) {
+			scrollToItem(index);
 		}
 	}
 
@@ -213,7 +291,7 @@ public class VScrollContainer extends VFlowContainer {
 		// will be constrained in render(), because since fullScrollHeight has been
 		// calculated last time there might have been added a new item
 		this.scrollPosition = scrollPosition;
-		update();
+		invalidatePaint();
 	}
 
 	/**
@@ -324,7 +402,7 @@ public class VScrollContainer extends VFlowContainer {
 		super.release(e);
 		if (isDraggingScrollHandle()) {
 			startHandleDragPos = -1;
-			update();
+			invalidatePaint();
 		}
 	}
 
@@ -348,7 +426,7 @@ public class VScrollContainer extends VFlowContainer {
 
 		if (MouseEvent.PRESS == currentMouseEvent.getAction() && mouseIsOverScrollBar) {
 			int scrollhandle_posY = scrollhandle_posY();
-			update();
+			invalidatePaint();
 
 			// if clicked on scrollhandle itself (instead of entire scroll area) the
 			// dragging is started